@@ -0,0 +1,97 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import javax.servlet.jsp.JspContext;
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.JspWriter;
+import javax.servlet.jsp.tagext.JspFragment;
+
+/**
+ * A {@link JspFragment} behaving like the fragments generated by JSP compilers: when a writer is provided, it is
+ * pushed onto the {@link JspContext} for the duration of the invocation.
+ *
+ * @author  AO Industries, Inc.
+ */
+abstract class BenchmarkFragment extends JspFragment {
+
+  /**
+   * A body writer callback.
+   */
+  @FunctionalInterface
+  interface Body {
+    void write(JspWriter out) throws JspException, IOException;
+  }
+
+  /**
+   * Creates a fragment that renders the given body.
+   */
+  static BenchmarkFragment of(JspContext jspContext, Body body) {
+    return new BenchmarkFragment(jspContext) {
+      @Override
+      protected void invoke(JspWriter out) throws JspException, IOException {
+        body.write(out);
+      }
+    };
+  }
+
+  /**
+   * Creates a fragment that writes constant template text.
+   */
+  static BenchmarkFragment text(JspContext jspContext, String text) {
+    return of(jspContext, out -> out.write(text));
+  }
+
+  private final JspContext jspContext;
+
+  BenchmarkFragment(JspContext jspContext) {
+    this.jspContext = jspContext;
+  }
+
+  @Override
+  public JspContext getJspContext() {
+    return jspContext;
+  }
+
+  @Override
+  public void invoke(Writer writer) throws JspException, IOException {
+    if (writer == null) {
+      invoke(jspContext.getOut());
+    } else {
+      JspWriter out = jspContext.pushBody(writer);
+      try {
+        invoke(out);
+      } finally {
+        jspContext.popBody();
+      }
+    }
+  }
+
+  /**
+   * Renders the body.
+   */
+  protected abstract void invoke(JspWriter out) throws JspException, IOException;
+}
@@ -0,0 +1,107 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.benchmarks;
+
+import java.io.IOException;
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.JspWriter;
+import javax.servlet.jsp.PageContext;
+import javax.servlet.jsp.tagext.BodyContent;
+import javax.servlet.jsp.tagext.BodyTag;
+import javax.servlet.jsp.tagext.IterationTag;
+import javax.servlet.jsp.tagext.Tag;
+import javax.servlet.jsp.tagext.TryCatchFinally;
+
+/**
+ * Drives the {@link BodyTag} lifecycle the same way as code generated by JSP compilers.
+ *
+ * @author  AO Industries, Inc.
+ */
+final class BodyTags {
+
+  /** Make no instances. */
+  private BodyTags() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Runs the full lifecycle of the given tag, writing the given body on each body evaluation.
+   *
+   * @param  body  the body or {@code null} for an empty tag
+   */
+  @SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+  static void run(PageContext pageContext, Tag parent, BodyTag tag, BenchmarkFragment.Body body) throws JspException, IOException {
+    tag.setPageContext(pageContext);
+    tag.setParent(parent);
+    try {
+      int startTagReturn = tag.doStartTag();
+      if (startTagReturn != Tag.SKIP_BODY) {
+        JspWriter out = pageContext.getOut();
+        boolean buffered = startTagReturn == BodyTag.EVAL_BODY_BUFFERED;
+        if (buffered) {
+          out = pageContext.pushBody();
+          tag.setBodyContent((BodyContent) out);
+          tag.doInitBody();
+        }
+        try {
+          do {
+            if (body != null) {
+              body.write(out);
+            }
+          } while (tag.doAfterBody() == IterationTag.EVAL_BODY_AGAIN);
+        } finally {
+          if (buffered) {
+            pageContext.popBody();
+          }
+        }
+      }
+      tag.doEndTag();
+    } catch (Throwable t) {
+      if (tag instanceof TryCatchFinally) {
+        try {
+          ((TryCatchFinally) tag).doCatch(t);
+        } catch (JspException | IOException | RuntimeException | Error e) {
+          throw e;
+        } catch (Throwable t2) {
+          throw new JspException(t2);
+        }
+      } else if (t instanceof JspException) {
+        throw (JspException) t;
+      } else if (t instanceof IOException) {
+        throw (IOException) t;
+      } else if (t instanceof RuntimeException) {
+        throw (RuntimeException) t;
+      } else if (t instanceof Error) {
+        throw (Error) t;
+      } else {
+        throw new JspException(t);
+      }
+    } finally {
+      if (tag instanceof TryCatchFinally) {
+        ((TryCatchFinally) tag).doFinally();
+      }
+      tag.release();
+    }
+  }
+}
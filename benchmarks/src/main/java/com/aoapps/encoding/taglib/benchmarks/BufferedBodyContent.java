@@ -0,0 +1,233 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.benchmarks;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import javax.servlet.jsp.JspWriter;
+import javax.servlet.jsp.tagext.BodyContent;
+
+/**
+ * A growable, buffering {@link BodyContent}, as returned by {@link BenchmarkPageContext#pushBody()} for the legacy
+ * {@link javax.servlet.jsp.tagext.BodyTag} implementations.
+ *
+ * <p>This is not a container-specific implementation, so it cannot be unbuffered by the legacy tags.  It measures
+ * their fallback path of copying the buffered body.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+class BufferedBodyContent extends BodyContent {
+
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+
+  private char[] buffer = new char[512];
+  private int length;
+
+  BufferedBodyContent(JspWriter enclosingWriter) {
+    super(enclosingWriter);
+  }
+
+  private void ensureCapacity(int minCapacity) {
+    if (minCapacity > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(minCapacity, buffer.length << 1));
+    }
+  }
+
+  @Override
+  public void write(int c) {
+    ensureCapacity(length + 1);
+    buffer[length++] = (char) c;
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) {
+    ensureCapacity(length + len);
+    System.arraycopy(cbuf, off, buffer, length, len);
+    length += len;
+  }
+
+  @Override
+  public void write(String str, int off, int len) {
+    ensureCapacity(length + len);
+    str.getChars(off, off + len, buffer, length);
+    length += len;
+  }
+
+  @Override
+  public void write(String str) {
+    write(str, 0, str.length());
+  }
+
+  @Override
+  public void newLine() {
+    write(LINE_SEPARATOR);
+  }
+
+  @Override
+  public void print(boolean b) {
+    write(b ? "true" : "false");
+  }
+
+  @Override
+  public void print(char c) {
+    write(c);
+  }
+
+  @Override
+  public void print(int i) {
+    write(Integer.toString(i));
+  }
+
+  @Override
+  public void print(long l) {
+    write(Long.toString(l));
+  }
+
+  @Override
+  public void print(float f) {
+    write(Float.toString(f));
+  }
+
+  @Override
+  public void print(double d) {
+    write(Double.toString(d));
+  }
+
+  @Override
+  public void print(char[] s) {
+    write(s, 0, s.length);
+  }
+
+  @Override
+  public void print(String s) {
+    write(s == null ? "null" : s);
+  }
+
+  @Override
+  public void print(Object obj) {
+    write(String.valueOf(obj));
+  }
+
+  @Override
+  public void println() {
+    newLine();
+  }
+
+  @Override
+  public void println(boolean x) {
+    print(x);
+    newLine();
+  }
+
+  @Override
+  public void println(char x) {
+    print(x);
+    newLine();
+  }
+
+  @Override
+  public void println(int x) {
+    print(x);
+    newLine();
+  }
+
+  @Override
+  public void println(long x) {
+    print(x);
+    newLine();
+  }
+
+  @Override
+  public void println(float x) {
+    print(x);
+    newLine();
+  }
+
+  @Override
+  public void println(double x) {
+    print(x);
+    newLine();
+  }
+
+  @Override
+  public void println(char[] x) {
+    print(x);
+    newLine();
+  }
+
+  @Override
+  public void println(String x) {
+    print(x);
+    newLine();
+  }
+
+  @Override
+  public void println(Object x) {
+    print(x);
+    newLine();
+  }
+
+  @Override
+  public void clear() {
+    length = 0;
+  }
+
+  @Override
+  public void clearBuffer() {
+    length = 0;
+  }
+
+  @Override
+  public void close() {
+    // Nothing to close
+  }
+
+  @Override
+  public int getBufferSize() {
+    return buffer.length;
+  }
+
+  @Override
+  public int getRemaining() {
+    return buffer.length - length;
+  }
+
+  @Override
+  public Reader getReader() {
+    return new CharArrayReader(buffer, 0, length);
+  }
+
+  @Override
+  public String getString() {
+    return new String(buffer, 0, length);
+  }
+
+  @Override
+  public void writeOut(Writer out) throws IOException {
+    out.write(buffer, 0, length);
+  }
+}
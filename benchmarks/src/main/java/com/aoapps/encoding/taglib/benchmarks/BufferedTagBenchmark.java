@@ -0,0 +1,151 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.benchmarks;
+
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.taglib.BufferWriterFactory;
+import com.aoapps.encoding.taglib.EncodingBufferedTag;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.jsp.JspException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link EncodingBufferedTag} capture, validation, and output within an XHTML page.
+ *
+ * @author  AO Industries, Inc.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BufferedTagBenchmark {
+
+  /**
+   * A larger body, to include the cost of growing the capture buffer.
+   */
+  private static final String LARGE_SCRIPT;
+
+  static {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 256; i++) {
+      sb.append(FilteredTagBenchmark.SCRIPT);
+    }
+    LARGE_SCRIPT = sb.toString();
+  }
+
+  private Page page;
+
+  @Param({"auto", "char-array", "mapped", "pooled", "segmented"})
+  public String bufferWriterFactory;
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    page = new Page(Collections.singletonMap(BufferWriterFactory.INIT_PARAM, bufferWriterFactory));
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    page.release();
+    page = null;
+  }
+
+  private void doTag(MediaType contentType, MediaType outputType, String body) throws JspException, IOException {
+    doTag(contentType, outputType, false, body);
+  }
+
+  private void doTag(MediaType contentType, MediaType outputType, boolean streamingBody, String body) throws JspException, IOException {
+    CaptureTag tag = new CaptureTag(contentType, outputType, streamingBody);
+    tag.setJspContext(page.pageContext);
+    tag.setJspBody(BenchmarkFragment.text(page.pageContext, body));
+    tag.doTag();
+    page.endRequest();
+  }
+
+  @Benchmark
+  public void javascript() throws JspException, IOException {
+    doTag(MediaType.JAVASCRIPT, MediaType.JAVASCRIPT, FilteredTagBenchmark.SCRIPT);
+  }
+
+  @Benchmark
+  public void javascriptEmpty() throws JspException, IOException {
+    doTag(MediaType.JAVASCRIPT, MediaType.JAVASCRIPT, "");
+  }
+
+  @Benchmark
+  public void javascriptLarge() throws JspException, IOException {
+    doTag(MediaType.JAVASCRIPT, MediaType.JAVASCRIPT, LARGE_SCRIPT);
+  }
+
+  /**
+   * The larger body streamed instead of captured.
+   */
+  @Benchmark
+  public void javascriptLargeStreaming() throws JspException, IOException {
+    doTag(MediaType.JAVASCRIPT, MediaType.JAVASCRIPT, true, LARGE_SCRIPT);
+  }
+
+  @Benchmark
+  public void text() throws JspException, IOException {
+    doTag(MediaType.TEXT, MediaType.TEXT, FilteredTagBenchmark.TEXT);
+  }
+
+  /**
+   * A capture nested in a capture of the same type, which passes-through to the parent.
+   */
+  @Benchmark
+  public void textNested() throws JspException, IOException {
+    CaptureTag parent = new CaptureTag(MediaType.TEXT, MediaType.TEXT);
+    parent.setJspContext(page.pageContext);
+    parent.setJspBody(BenchmarkFragment.of(page.pageContext, bodyOut -> {
+      CaptureTag child = new CaptureTag(MediaType.TEXT, MediaType.TEXT);
+      child.setJspContext(page.pageContext);
+      child.setParent(parent);
+      child.setJspBody(BenchmarkFragment.text(page.pageContext, LARGE_SCRIPT));
+      child.doTag();
+    }));
+    parent.doTag();
+    page.endRequest();
+  }
+
+  @Benchmark
+  public void textToXhtmlAttribute() throws JspException, IOException {
+    doTag(MediaType.TEXT, MediaType.XHTML_ATTRIBUTE, FilteredTagBenchmark.TEXT);
+  }
+}
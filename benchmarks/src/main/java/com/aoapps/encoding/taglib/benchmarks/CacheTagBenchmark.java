@@ -0,0 +1,100 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.benchmarks;
+
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.taglib.CacheTag;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.jsp.JspException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link CacheTag} around a navigation-sized XHTML fragment, both cached and uncached.
+ *
+ * @author  AO Industries, Inc.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheTagBenchmark {
+
+  private static final int LINKS = 20;
+
+  private Page page;
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    page = new Page();
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    page.release();
+    page = null;
+  }
+
+  private void navigation(Object key) throws JspException, IOException {
+    CacheTag tag = new CacheTag();
+    tag.setJspContext(page.pageContext);
+    tag.setType(MediaType.XHTML);
+    tag.setKey(key);
+    tag.setJspBody(BenchmarkFragment.of(page.pageContext, bodyOut -> {
+      bodyOut.write("<ul>\n");
+      for (int i = 0; i < LINKS; i++) {
+        bodyOut.write("<li><a href=\"/page-");
+        bodyOut.write(Integer.toString(i));
+        bodyOut.write(".html\">Tom &amp; Jerry&#39;s page ");
+        bodyOut.write(Integer.toString(i));
+        bodyOut.write("</a></li>\n");
+      }
+      bodyOut.write("</ul>\n");
+    }));
+    tag.doTag();
+  }
+
+  @Benchmark
+  public void cached() throws JspException, IOException {
+    navigation("navigation");
+  }
+
+  @Benchmark
+  public void uncached() throws JspException, IOException {
+    navigation(null);
+  }
+}
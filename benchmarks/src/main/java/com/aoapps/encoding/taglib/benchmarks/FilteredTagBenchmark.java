@@ -0,0 +1,114 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.benchmarks;
+
+import com.aoapps.encoding.taglib.EncodingFilteredTag;
+import com.aoapps.encoding.taglib.JavaScriptTag;
+import com.aoapps.encoding.taglib.TextTag;
+import com.aoapps.encoding.taglib.XhtmlAttributeTag;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.jsp.JspException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link EncodingFilteredTag} implementations within an XHTML page.
+ *
+ * @author  AO Industries, Inc.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilteredTagBenchmark {
+
+  static final String SCRIPT = "var a = 1;\nif (a < 2 && a > 0) {\n  document.title = \"Benchmark\";\n}\n";
+
+  static final String TEXT = "Tom & Jerry's <\"show\"> runs 24/7";
+
+  private Page page;
+
+  /**
+   * A tag and body reused across invocations, as a JSP container with tag pooling would, isolating the allocations
+   * of the tag pipeline itself.
+   */
+  private JavaScriptTag reusedTag;
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    page = new Page();
+    reusedTag = new JavaScriptTag();
+    reusedTag.setJspContext(page.pageContext);
+    reusedTag.setJspBody(BenchmarkFragment.text(page.pageContext, SCRIPT));
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    reusedTag = null;
+    page.release();
+    page = null;
+  }
+
+  private void doTag(EncodingFilteredTag tag, String body) throws JspException, IOException {
+    tag.setJspContext(page.pageContext);
+    tag.setJspBody(BenchmarkFragment.text(page.pageContext, body));
+    tag.doTag();
+  }
+
+  @Benchmark
+  public void javascript() throws JspException, IOException {
+    doTag(new JavaScriptTag(), SCRIPT);
+  }
+
+  /**
+   * Once warmed up, the encoder pipeline is reused for each tag and should not allocate.  Run with {@code -prof gc}.
+   */
+  @Benchmark
+  public void javascriptSteadyState() throws JspException, IOException {
+    reusedTag.doTag();
+  }
+
+  @Benchmark
+  public void text() throws JspException, IOException {
+    doTag(new TextTag(), TEXT);
+  }
+
+  @Benchmark
+  public void xhtmlAttribute() throws JspException, IOException {
+    doTag(new XhtmlAttributeTag(), TEXT);
+  }
+}
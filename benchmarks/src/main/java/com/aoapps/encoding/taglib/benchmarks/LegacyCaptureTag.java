@@ -0,0 +1,65 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.benchmarks;
+
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.taglib.legacy.EncodingBufferedBodyTag;
+import com.aoapps.io.buffer.BufferResult;
+import java.io.IOException;
+import java.io.Writer;
+import javax.servlet.jsp.JspException;
+
+/**
+ * A legacy buffered tag that captures its body then writes the captured body to its output.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class LegacyCaptureTag extends EncodingBufferedBodyTag {
+
+  private static final long serialVersionUID = 1L;
+
+  private final MediaType contentType;
+  private final MediaType outputType;
+
+  public LegacyCaptureTag(MediaType contentType, MediaType outputType) {
+    this.contentType = contentType;
+    this.outputType = outputType;
+  }
+
+  @Override
+  public MediaType getContentType() {
+    return contentType;
+  }
+
+  @Override
+  public MediaType getOutputType() {
+    return outputType;
+  }
+
+  @Override
+  protected int doEndTag(BufferResult capturedBody, Writer out) throws JspException, IOException {
+    capturedBody.writeTo(out);
+    return EVAL_PAGE;
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.benchmarks;
+
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.taglib.legacy.JavaScriptTag;
+import com.aoapps.encoding.taglib.legacy.OutTag;
+import com.aoapps.encoding.taglib.legacy.TextTag;
+import com.aoapps.encoding.taglib.legacy.XhtmlAttributeTag;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.tagext.Tag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the legacy {@link javax.servlet.jsp.tagext.BodyTag} implementations within an XHTML page, including
+ * the body content unbuffering.
+ *
+ * @author  AO Industries, Inc.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LegacyTagBenchmark {
+
+  private Page page;
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    page = new Page();
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    page.release();
+    page = null;
+  }
+
+  private void out(Tag parent, Object value) throws JspException, IOException {
+    OutTag tag = new OutTag();
+    tag.setValue(value);
+    BodyTags.run(page.pageContext, parent, tag, null);
+  }
+
+  @Benchmark
+  public void javascript() throws JspException, IOException {
+    BodyTags.run(page.pageContext, null, new JavaScriptTag(), out -> out.write(FilteredTagBenchmark.SCRIPT));
+  }
+
+  @Benchmark
+  public void text() throws JspException, IOException {
+    BodyTags.run(page.pageContext, null, new TextTag(), out -> out.write(FilteredTagBenchmark.TEXT));
+  }
+
+  @Benchmark
+  public void buffered() throws JspException, IOException {
+    BodyTags.run(
+        page.pageContext,
+        null,
+        new LegacyCaptureTag(MediaType.JAVASCRIPT, MediaType.JAVASCRIPT),
+        out -> out.write(FilteredTagBenchmark.SCRIPT)
+    );
+  }
+
+  @Benchmark
+  public void outXhtml() throws JspException, IOException {
+    out(null, FilteredTagBenchmark.TEXT);
+  }
+
+  @Benchmark
+  public void outInXhtmlAttribute() throws JspException, IOException {
+    XhtmlAttributeTag parent = new XhtmlAttributeTag();
+    BodyTags.run(page.pageContext, null, parent, bodyOut -> out(parent, FilteredTagBenchmark.TEXT));
+  }
+}
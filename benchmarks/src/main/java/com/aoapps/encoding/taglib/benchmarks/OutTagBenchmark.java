@@ -0,0 +1,155 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.benchmarks;
+
+import com.aoapps.encoding.taglib.JavaScriptTag;
+import com.aoapps.encoding.taglib.OutTag;
+import com.aoapps.encoding.taglib.OutTagTEI;
+import com.aoapps.encoding.taglib.XhtmlAttributeTag;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.tagext.JspTag;
+import javax.servlet.jsp.tagext.TagData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link OutTag} directly in an XHTML page, nested in an XHTML attribute, and nested in JavaScript.
+ *
+ * @author  AO Industries, Inc.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutTagBenchmark {
+
+  private static final char[] TEXT_CHARS = FilteredTagBenchmark.TEXT.toCharArray();
+
+  /**
+   * A literal value, registered as it would be during translation.  Distinct from {@link FilteredTagBenchmark#TEXT}
+   * so the other benchmarks are not affected.
+   */
+  private static final String LITERAL = "Tom & Jerry's <\"literal\"> runs 24/7";
+
+  static {
+    new OutTagTEI().validate(new TagData(new Object[][] {{"value", LITERAL}}));
+  }
+
+  private Page page;
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    page = new Page();
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    page.release();
+    page = null;
+  }
+
+  private void out(JspTag parent, Object value) throws JspException, IOException {
+    OutTag tag = new OutTag();
+    tag.setJspContext(page.pageContext);
+    tag.setParent(parent);
+    tag.setValue(value);
+    tag.doTag();
+  }
+
+  @Benchmark
+  public void xhtml() throws JspException, IOException {
+    out(null, FilteredTagBenchmark.TEXT);
+  }
+
+  @Benchmark
+  public void xhtmlInteger() throws JspException, IOException {
+    out(null, 1234567);
+  }
+
+  @Benchmark
+  public void xhtmlLong() throws JspException, IOException {
+    out(null, 1234567890123L);
+  }
+
+  @Benchmark
+  public void xhtmlBoolean() throws JspException, IOException {
+    out(null, Boolean.TRUE);
+  }
+
+  @Benchmark
+  public void xhtmlCharArray() throws JspException, IOException {
+    out(null, TEXT_CHARS);
+  }
+
+  @Benchmark
+  public void xhtmlLiteral() throws JspException, IOException {
+    out(null, LITERAL);
+  }
+
+  @Benchmark
+  public void inXhtmlAttribute() throws JspException, IOException {
+    XhtmlAttributeTag parent = new XhtmlAttributeTag();
+    parent.setJspContext(page.pageContext);
+    parent.setJspBody(BenchmarkFragment.of(page.pageContext, bodyOut -> out(parent, FilteredTagBenchmark.TEXT)));
+    parent.doTag();
+  }
+
+  @Benchmark
+  public void inJavascript() throws JspException, IOException {
+    JavaScriptTag parent = new JavaScriptTag();
+    parent.setJspContext(page.pageContext);
+    parent.setJspBody(BenchmarkFragment.of(page.pageContext, bodyOut -> {
+      bodyOut.write("var title = ");
+      out(parent, FilteredTagBenchmark.TEXT);
+      bodyOut.write(";\n");
+    }));
+    parent.doTag();
+  }
+
+  @Benchmark
+  public void inJavascriptLiteral() throws JspException, IOException {
+    JavaScriptTag parent = new JavaScriptTag();
+    parent.setJspContext(page.pageContext);
+    parent.setJspBody(BenchmarkFragment.of(page.pageContext, bodyOut -> {
+      bodyOut.write("var title = ");
+      out(parent, LITERAL);
+      bodyOut.write(";\n");
+    }));
+    parent.doTag();
+  }
+}
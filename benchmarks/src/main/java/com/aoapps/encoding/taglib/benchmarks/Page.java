@@ -0,0 +1,92 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.benchmarks;
+
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.taglib.impl.PooledBufferReleaser;
+import com.aoapps.lang.io.NullWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Map;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRequestEvent;
+import javax.servlet.ServletRequestListener;
+
+/**
+ * A single in-memory page render: servlet context, request, response, and page context.  The output is discarded
+ * unless a writer is provided.
+ *
+ * <p>A new page is created per benchmark iteration, so each iteration simulates one request containing very many
+ * tags.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+class Page {
+
+  final ServletContext servletContext;
+  final StandIns.Request request;
+  final StandIns.Response response;
+  final BenchmarkPageContext pageContext;
+
+  private final ServletRequestListener[] requestListeners = {
+      new PooledBufferReleaser()
+  };
+
+  /**
+   * @param  out  receives the page output
+   */
+  Page(MediaType responseType, Map<String, String> initParameters, Writer out) {
+    servletContext = StandIns.newServletContext(initParameters);
+    request = new StandIns.Request(servletContext);
+    response = new StandIns.Response(responseType.getContentType());
+    pageContext = new BenchmarkPageContext(servletContext, request, response, out);
+  }
+
+  Page(MediaType responseType, Map<String, String> initParameters) {
+    this(responseType, initParameters, NullWriter.getInstance());
+  }
+
+  Page(Map<String, String> initParameters) {
+    this(MediaType.XHTML, initParameters);
+  }
+
+  Page() {
+    this(Collections.emptyMap());
+  }
+
+  /**
+   * Notifies the request listeners the request has ended, as the container would.  Resources released at the end
+   * of the request, such as pooled capture buffers, are then available to the following operations.
+   */
+  void endRequest() {
+    ServletRequestEvent event = new ServletRequestEvent(servletContext, request);
+    for (ServletRequestListener listener : requestListeners) {
+      listener.requestDestroyed(event);
+    }
+  }
+
+  void release() {
+    pageContext.release();
+  }
+}
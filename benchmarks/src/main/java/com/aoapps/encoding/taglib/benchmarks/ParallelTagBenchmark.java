@@ -0,0 +1,117 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.benchmarks;
+
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.taglib.ParallelTag;
+import com.aoapps.encoding.taglib.RegionTag;
+import com.aoapps.encoding.taglib.impl.RegionExecutors;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.tagext.JspTag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link RegionTag} with slow tasks, both within a {@link ParallelTag} and alone.
+ *
+ * @author  AO Industries, Inc.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelTagBenchmark {
+
+  private static final int REGIONS = 4;
+
+  /**
+   * Simulates a slow-to-compute region, such as a remote call.
+   */
+  private static final Callable<String> SLOW_TASK = () -> {
+    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(200));
+    return FilteredTagBenchmark.TEXT;
+  };
+
+  private Page page;
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    page = new Page();
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    // Shut down the default executor, as the container would when the web application is stopped
+    new RegionExecutors().contextDestroyed(new ServletContextEvent(page.servletContext));
+    page.release();
+    page = null;
+  }
+
+  private void regions(JspTag parent) throws JspException, IOException {
+    for (int i = 0; i < REGIONS; i++) {
+      RegionTag region = new RegionTag();
+      region.setJspContext(page.pageContext);
+      region.setParent(parent);
+      region.setType(MediaType.XHTML);
+      region.setTask(SLOW_TASK);
+      region.setVar("title");
+      region.setJspBody(BenchmarkFragment.of(page.pageContext, bodyOut -> {
+        bodyOut.write("<h1>");
+        bodyOut.write(String.valueOf(page.pageContext.getAttribute("title")).replace("&", "&amp;").replace("<", "&lt;"));
+        bodyOut.write("</h1>\n");
+      }));
+      region.doTag();
+    }
+  }
+
+  @Benchmark
+  public void sequential() throws JspException, IOException {
+    regions(null);
+  }
+
+  @Benchmark
+  public void parallel() throws JspException, IOException {
+    ParallelTag parallel = new ParallelTag();
+    parallel.setJspContext(page.pageContext);
+    parallel.setJspBody(BenchmarkFragment.of(page.pageContext, bodyOut -> regions(parallel)));
+    parallel.doTag();
+  }
+}
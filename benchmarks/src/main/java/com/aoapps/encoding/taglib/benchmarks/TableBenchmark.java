@@ -0,0 +1,129 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.aoapps.encoding.taglib.benchmarks;
+
+import com.aoapps.encoding.taglib.OutTag;
+import com.aoapps.encoding.taglib.XhtmlAttributeTag;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.tagext.JspTag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks a {@value #ROWS}-row table, as rendered by a <code>&lt;c:forEach&gt;</code> loop of
+ * {@link OutTag} and {@link XhtmlAttributeTag}, where every row repeats the same tags with the same types.
+ *
+ * <p>Unlike the other benchmarks, each operation is a new request, so the per-request setup of the tags is included.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableBenchmark {
+
+  static final int ROWS = 10000;
+
+  private Page page;
+
+  @Setup(Level.Invocation)
+  public void setup() {
+    page = new Page();
+  }
+
+  @TearDown(Level.Invocation)
+  public void tearDown() {
+    page.endRequest();
+    page.release();
+    page = null;
+  }
+
+  private void out(JspTag parent, Object value) throws JspException, IOException {
+    OutTag tag = new OutTag();
+    tag.setJspContext(page.pageContext);
+    tag.setParent(parent);
+    tag.setValue(value);
+    tag.doTag();
+  }
+
+  private void attribute(Object value) throws JspException, IOException {
+    XhtmlAttributeTag tag = new XhtmlAttributeTag();
+    tag.setJspContext(page.pageContext);
+    tag.setJspBody(BenchmarkFragment.of(page.pageContext, bodyOut -> out(tag, value)));
+    tag.doTag();
+  }
+
+  /**
+   * Each row has two {@link OutTag}.
+   */
+  @Benchmark
+  public void table() throws JspException, IOException {
+    Writer out = page.pageContext.getOut();
+    out.write("<table>\n");
+    for (int row = 0; row < ROWS; row++) {
+      out.write("<tr><td>");
+      out(null, row);
+      out.write("</td><td>");
+      out(null, FilteredTagBenchmark.TEXT);
+      out.write("</td></tr>\n");
+    }
+    out.write("</table>\n");
+  }
+
+  /**
+   * Each row also has an {@link OutTag} nested in an {@link XhtmlAttributeTag}.
+   */
+  @Benchmark
+  public void tableWithAttributes() throws JspException, IOException {
+    Writer out = page.pageContext.getOut();
+    out.write("<table>\n");
+    for (int row = 0; row < ROWS; row++) {
+      out.write("<tr title=\"");
+      attribute(FilteredTagBenchmark.TEXT);
+      out.write("\"><td>");
+      out(null, row);
+      out.write("</td><td>");
+      out(null, FilteredTagBenchmark.TEXT);
+      out.write("</td></tr>\n");
+    }
+    out.write("</table>\n");
+  }
+}
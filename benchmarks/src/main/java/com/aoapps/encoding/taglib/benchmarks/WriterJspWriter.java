@@ -0,0 +1,214 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import javax.servlet.jsp.JspWriter;
+
+/**
+ * An unbuffered {@link JspWriter} that writes directly through to a wrapped {@link Writer}, similar to the writers
+ * used by containers for {@link javax.servlet.jsp.JspContext#pushBody(java.io.Writer)}.
+ *
+ * @author  AO Industries, Inc.
+ */
+class WriterJspWriter extends JspWriter {
+
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+
+  private Writer out;
+
+  WriterJspWriter(Writer out) {
+    super(NO_BUFFER, true);
+    this.out = out;
+  }
+
+  /**
+   * Gets the wrapped writer.
+   */
+  Writer getWriter() {
+    return out;
+  }
+
+  /**
+   * Sets the wrapped writer, allowing this instance to be reused.
+   */
+  void setWriter(Writer out) {
+    this.out = out;
+  }
+
+  @Override
+  public void newLine() throws IOException {
+    out.write(LINE_SEPARATOR);
+  }
+
+  @Override
+  public void print(boolean b) throws IOException {
+    out.write(b ? "true" : "false");
+  }
+
+  @Override
+  public void print(char c) throws IOException {
+    out.write(c);
+  }
+
+  @Override
+  public void print(int i) throws IOException {
+    out.write(Integer.toString(i));
+  }
+
+  @Override
+  public void print(long l) throws IOException {
+    out.write(Long.toString(l));
+  }
+
+  @Override
+  public void print(float f) throws IOException {
+    out.write(Float.toString(f));
+  }
+
+  @Override
+  public void print(double d) throws IOException {
+    out.write(Double.toString(d));
+  }
+
+  @Override
+  public void print(char[] s) throws IOException {
+    out.write(s);
+  }
+
+  @Override
+  public void print(String s) throws IOException {
+    out.write(s == null ? "null" : s);
+  }
+
+  @Override
+  public void print(Object obj) throws IOException {
+    out.write(String.valueOf(obj));
+  }
+
+  @Override
+  public void println() throws IOException {
+    newLine();
+  }
+
+  @Override
+  public void println(boolean x) throws IOException {
+    print(x);
+    newLine();
+  }
+
+  @Override
+  public void println(char x) throws IOException {
+    print(x);
+    newLine();
+  }
+
+  @Override
+  public void println(int x) throws IOException {
+    print(x);
+    newLine();
+  }
+
+  @Override
+  public void println(long x) throws IOException {
+    print(x);
+    newLine();
+  }
+
+  @Override
+  public void println(float x) throws IOException {
+    print(x);
+    newLine();
+  }
+
+  @Override
+  public void println(double x) throws IOException {
+    print(x);
+    newLine();
+  }
+
+  @Override
+  public void println(char[] x) throws IOException {
+    print(x);
+    newLine();
+  }
+
+  @Override
+  public void println(String x) throws IOException {
+    print(x);
+    newLine();
+  }
+
+  @Override
+  public void println(Object x) throws IOException {
+    print(x);
+    newLine();
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    out.write(c);
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    out.write(cbuf, off, len);
+  }
+
+  @Override
+  public void write(String str) throws IOException {
+    out.write(str);
+  }
+
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    out.write(str, off, len);
+  }
+
+  @Override
+  public void clear() throws IOException {
+    throw new IOException("Unbuffered");
+  }
+
+  @Override
+  public void clearBuffer() throws IOException {
+    // Nothing buffered
+  }
+
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    // Never close the wrapped writer
+  }
+
+  @Override
+  public int getRemaining() {
+    return 0;
+  }
+}
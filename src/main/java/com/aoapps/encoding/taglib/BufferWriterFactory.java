@@ -0,0 +1,113 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib;
+
+import com.aoapps.encoding.taglib.impl.BufferWriterFactories;
+import com.aoapps.io.buffer.AutoTempFileWriter;
+import com.aoapps.io.buffer.BufferWriter;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRequest;
+
+/**
+ * Creates the {@link BufferWriter} used to capture the body of buffered tags.  Implementations are located by
+ * {@link java.util.ServiceLoader} and selected per web application by the context-param
+ * {@link #INIT_PARAM}, matching either {@link #getName()} or the implementation class name.
+ *
+ * <p>The built-in strategies are:</p>
+ *
+ * <ul>
+ * <li>{@code auto} - The default, a {@link com.aoapps.io.buffer.CharArrayBufferWriter}, or a
+ *     {@link com.aoapps.io.buffer.SegmentedWriter} when the capture is expected to be long</li>
+ * <li>{@code char-array} - A {@link com.aoapps.io.buffer.CharArrayBufferWriter}</li>
+ * <li>{@code mapped} - A heap array until the threshold, then a memory-mapped temp file</li>
+ * <li>{@code pooled} - Character blocks recycled across requests, which must not be retained beyond the tag</li>
+ * <li>{@code segmented} - A {@link com.aoapps.io.buffer.SegmentedWriter}</li>
+ * </ul>
+ *
+ * <p>Except for {@code mapped}, each is wrapped in an {@link AutoTempFileWriter} unless the threshold is
+ * {@link Long#MAX_VALUE}.</p>
+ *
+ * @author  AO Industries, Inc.
+ *
+ * @see  EncodingBufferedTag#newBufferWriter(javax.servlet.ServletRequest, long)
+ */
+public interface BufferWriterFactory {
+
+  /**
+   * The context-param used to select the factory.
+   */
+  String INIT_PARAM = BufferWriterFactory.class.getName();
+
+  /**
+   * The name of the default factory.
+   */
+  String DEFAULT_NAME = "auto";
+
+  /**
+   * Gets the name used to select this factory in {@link #INIT_PARAM}.
+   */
+  String getName();
+
+  /**
+   * Creates a new buffer for a single capture.
+   *
+   * @param  tempFileThreshold  the number of characters that may be buffered before switching to the use of a temp
+   *                            file, or {@link Long#MAX_VALUE} to never use temp files
+   */
+  BufferWriter newBufferWriter(ServletRequest request, long tempFileThreshold);
+
+  /**
+   * Creates a new buffer for a single capture, given the expected length of the capture.
+   *
+   * <p>This default implementation ignores the expected length.</p>
+   *
+   * @param  tempFileThreshold  the number of characters that may be buffered before switching to the use of a temp
+   *                            file, or {@link Long#MAX_VALUE} to never use temp files
+   *
+   * @param  expectedLength  the expected length, learned from previous captures, or {@code -1} when unknown
+   */
+  default BufferWriter newBufferWriter(ServletRequest request, long tempFileThreshold, long expectedLength) {
+    return newBufferWriter(request, tempFileThreshold);
+  }
+
+  /**
+   * Releases a buffer created by this factory once neither the buffer nor its result will be used again, such as
+   * once the result has been written or the tag that captured it has completed.  Buffers that are not released are
+   * left to the end of the request or to garbage collection.
+   *
+   * <p>This default implementation does nothing.</p>
+   */
+  default void release(ServletRequest request, BufferWriter buffer) {
+    // Nothing to release
+  }
+
+  /**
+   * Gets the factory selected for the given web application.
+   *
+   * @throws  IllegalArgumentException  when no factory matches the value of {@link #INIT_PARAM}
+   */
+  static BufferWriterFactory getInstance(ServletContext servletContext) throws IllegalArgumentException {
+    return BufferWriterFactories.getInstance(servletContext);
+  }
+}
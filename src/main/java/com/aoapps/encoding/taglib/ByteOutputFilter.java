@@ -0,0 +1,78 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.aoapps.encoding.taglib;
+
+import com.aoapps.encoding.taglib.impl.EncodedByteSink;
+import java.io.IOException;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Encodes the output of {@link ServletResponse#getWriter()} in the response charset directly onto the
+ * {@link ServletResponse#getOutputStream()}, allowing {@link CacheTag} to store its output as bytes in the response
+ * charset and replay them without decoding and re-encoding characters.
+ *
+ * <p>Cached output is replayed as bytes only when the page writes directly to the response wrapped by this filter.
+ * Output captured by an enclosing tag, included by another page, or wrapped by another filter after this one is
+ * written as characters.  Since the page writer is never flushed early, cached output is also written as characters
+ * while anything is buffered in the page writer.  Pages that mostly replay cached output may use
+ * <code>&lt;%@ page buffer="none" %&gt;</code> to write bytes throughout.</p>
+ *
+ * <p>This filter is not registered automatically.  Map it to the pages that replay cached output:</p>
+ * <pre>&lt;filter&gt;
+ *   &lt;filter-name&gt;com.aoapps.encoding.taglib.ByteOutputFilter&lt;/filter-name&gt;
+ *   &lt;filter-class&gt;com.aoapps.encoding.taglib.ByteOutputFilter&lt;/filter-class&gt;
+ * &lt;/filter&gt;
+ * &lt;filter-mapping&gt;
+ *   &lt;filter-name&gt;com.aoapps.encoding.taglib.ByteOutputFilter&lt;/filter-name&gt;
+ *   &lt;url-pattern&gt;*.jsp&lt;/url-pattern&gt;
+ *   &lt;dispatcher&gt;REQUEST&lt;/dispatcher&gt;
+ * &lt;/filter-mapping&gt;</pre>
+ *
+ * <p>{@link ETagFilter} only digests characters: when it is mapped before this filter, responses are passed-through
+ * without an entity tag; when mapped after, cached output is written as characters.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class ByteOutputFilter implements Filter {
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+    if (response instanceof HttpServletResponse) {
+      EncodedByteSink sink = new EncodedByteSink(request, (HttpServletResponse) response);
+      try {
+        chain.doFilter(request, sink);
+      } finally {
+        sink.close();
+      }
+    } else {
+      chain.doFilter(request, response);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib;
+
+import com.aoapps.encoding.EncodingContext;
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.servlet.EncodingContextEE;
+import com.aoapps.encoding.taglib.impl.EncodedByteSink;
+import com.aoapps.encoding.taglib.impl.FragmentCache;
+import com.aoapps.encoding.taglib.impl.MediaTypeCache;
+import com.aoapps.encoding.taglib.impl.RequestEncodingContext;
+import com.aoapps.encoding.taglib.impl.ResponseContainer;
+import com.aoapps.io.buffer.BufferResult;
+import com.aoapps.lang.Coercion;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.PageContext;
+
+/**
+ * Caches the encoded and validated output of its body, keyed by the <code>key</code> attribute along with the
+ * output and container types, and the serialization and doctype of the request.  On a hit, the cached output is
+ * written without invoking the body.
+ *
+ * <p>When {@link ByteOutputFilter} is in use, the output is stored as bytes in the response charset, usually about
+ * half the memory of characters, and replayed directly to the output stream where possible.</p>
+ *
+ * <p>The cache is shared by the web application and bounded by approximate memory use, configured in bytes by the
+ * context-param {@link #MAX_WEIGHT_INIT_PARAM}.  The key must identify everything the output depends on, other than
+ * the output and container types, serialization, and doctype.  In particular, the cache does not distinguish between
+ * the enclosing encoding contexts of the same container type, nor between requests, sessions, or users.</p>
+ *
+ * <p>Output is neither cached nor replayed while the response rewrites URLs, such as adding a <code>jsessionid</code>
+ * for a session not tracked by cookie, since the output may contain URLs specific to that session.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class CacheTag extends EncodingBufferedTag {
+
+  /**
+   * The name of the context-param that configures the maximum approximate memory, in bytes, of cached output.
+   */
+  public static final String MAX_WEIGHT_INIT_PARAM = CacheTag.class.getName() + ".maxWeight";
+
+  /**
+   * A URL passed through {@link HttpServletResponse#encodeURL(java.lang.String)} to detect URL rewriting.
+   */
+  private static final String URL_REWRITING_PROBE = "/";
+
+  @Override
+  public MediaType getContentType() {
+    return mediaType;
+  }
+
+  @Override
+  public MediaType getOutputType() {
+    return mediaType;
+  }
+
+  private MediaType mediaType;
+
+  public void setType(Object type) {
+    if (type instanceof MediaType) {
+      this.mediaType = (MediaType) type;
+      return;
+    }
+    type = Coercion.trimNullIfEmpty(type);
+    String typeStr = (type == null) ? null : Coercion.toString(type);
+    try {
+      this.mediaType = MediaTypeCache.getMediaType(typeStr);
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  private Object key;
+
+  public void setKey(Object key) {
+    this.key = key;
+  }
+
+  private long ttl;
+
+  /**
+   * Sets the time-to-live in seconds.  When not positive, the output remains cached until evicted.
+   */
+  public void setTtl(long ttl) {
+    this.ttl = ttl;
+  }
+
+  /**
+   * Checks if the response currently rewrites URLs, such as adding a <code>jsessionid</code> path parameter.  The
+   * output of the body may then contain URLs specific to the session, which must not be replayed to other sessions.
+   */
+  private static boolean isUrlRewriting(ServletResponse response) {
+    if (response instanceof HttpServletResponse) {
+      return !URL_REWRITING_PROBE.equals(((HttpServletResponse) response).encodeURL(URL_REWRITING_PROBE));
+    }
+    return false;
+  }
+
+  @Override
+  public void doTag() throws JspException, IOException {
+    final PageContext pageContext = (PageContext) getJspContext();
+    if (key == null || isUrlRewriting(pageContext.getResponse())) {
+      // Not cached
+      super.doTag();
+    } else {
+      final ServletRequest request = pageContext.getRequest();
+      final RequestEncodingContext parentEncodingContext = RequestEncodingContext.getCurrentContext(request);
+      final MediaType containerType = (parentEncodingContext != null)
+          ? parentEncodingContext.contentType
+          : ResponseContainer.getInstance(request, pageContext.getResponse()).containerType;
+      FragmentCache cache = FragmentCache.getInstance(pageContext.getServletContext());
+      // The output of encoders depends on the serialization and doctype
+      EncodingContext encodingContext = new EncodingContextEE(
+          pageContext.getServletContext(),
+          (HttpServletRequest) request,
+          (HttpServletResponse) pageContext.getResponse()
+      );
+      FragmentCache.Key cacheKey = new FragmentCache.Key(
+          key,
+          mediaType,
+          containerType,
+          encodingContext.getSerialization(),
+          encodingContext.getDoctype()
+      );
+      FragmentCache.Fragment output = cache.get(cacheKey);
+      if (output == null) {
+        // Capture the output, already encoded for the container
+        StringWriter capture = new StringWriter();
+        pageContext.pushBody(capture);
+        try {
+          super.doTag();
+        } finally {
+          pageContext.popBody();
+        }
+        // Stored in the response charset when it may be replayed as bytes
+        EncodedByteSink sink = EncodedByteSink.getInstance(request);
+        output = new FragmentCache.Fragment(capture.toString(), (sink == null) ? null : sink.getCharset());
+        cache.put(cacheKey, output, TimeUnit.SECONDS.toNanos(ttl));
+      }
+      // Already valid for the container
+      output.writeTo(pageContext);
+    }
+  }
+
+  @Override
+  protected void doTag(BufferResult capturedBody, Writer out) throws JspException, IOException {
+    capturedBody.writeTo(out);
+  }
+}
@@ -0,0 +1,318 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib;
+
+import com.aoapps.encoding.taglib.impl.DigestingWriter;
+import com.aoapps.io.buffer.BufferResult;
+import com.aoapps.io.buffer.BufferWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Adds a strong <code>ETag</code> to successful <code>GET</code> responses, answering
+ * <code>304 Not Modified</code> when it matches <code>If-None-Match</code>.
+ *
+ * <p>The output written through {@link ServletResponse#getWriter()} is buffered with
+ * {@link EncodingBufferedTag#newBufferWriter(javax.servlet.ServletRequest)} while being digested, so the entity tag
+ * is known as soon as the page completes, without a second pass over the output.</p>
+ *
+ * <p>Responses are passed-through unchanged when they use {@link ServletResponse#getOutputStream()}, set their own
+ * <code>ETag</code>, have a status other than <code>200 OK</code>, or are committed before completion.  When
+ * asynchronous processing is started, the output is not complete when the filter chain returns, so any output
+ * buffered so far is written and all further output is passed-through without an <code>ETag</code>.</p>
+ *
+ * <p>This filter is not registered automatically.  Map it to the pages that benefit from conditional requests:</p>
+ * <pre>&lt;filter&gt;
+ *   &lt;filter-name&gt;com.aoapps.encoding.taglib.ETagFilter&lt;/filter-name&gt;
+ *   &lt;filter-class&gt;com.aoapps.encoding.taglib.ETagFilter&lt;/filter-class&gt;
+ * &lt;/filter&gt;
+ * &lt;filter-mapping&gt;
+ *   &lt;filter-name&gt;com.aoapps.encoding.taglib.ETagFilter&lt;/filter-name&gt;
+ *   &lt;url-pattern&gt;*.jsp&lt;/url-pattern&gt;
+ *   &lt;dispatcher&gt;REQUEST&lt;/dispatcher&gt;
+ * &lt;/filter-mapping&gt;</pre>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class ETagFilter implements Filter {
+
+  private static final String ALGORITHM = "SHA-256";
+
+  private static final String ETAG_HEADER = "ETag";
+
+  private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+
+  /**
+   * Buffers and digests the output written through {@link #getWriter()}.
+   */
+  private static final class DigestingResponse extends HttpServletResponseWrapper {
+
+    private final HttpServletRequest request;
+    private BufferWriter buffer;
+    private DigestingWriter digestingOut;
+    private PrintWriter writer;
+    private boolean outputStreamUsed;
+    private volatile boolean passthrough;
+
+    /**
+     * Delegates to the current digesting writer, which is replaced on reset, or to the wrapped response once
+     * passed-through.  Also the lock of {@link #writer}.
+     */
+    private final Writer out = new Writer() {
+      @Override
+      public void write(int c) throws IOException {
+        getOut().write(c);
+      }
+
+      @Override
+      public void write(char[] cbuf, int off, int len) throws IOException {
+        getOut().write(cbuf, off, len);
+      }
+
+      @Override
+      public void write(String str, int off, int len) throws IOException {
+        getOut().write(str, off, len);
+      }
+
+      @Override
+      public void flush() throws IOException {
+        if (passthrough) {
+          getResponse().getWriter().flush();
+        } else if (digestingOut != null) {
+          digestingOut.flush();
+        }
+      }
+
+      @Override
+      public void close() {
+        // Closed once the entity tag is known
+      }
+    };
+
+    private DigestingResponse(HttpServletRequest request, HttpServletResponse response) {
+      super(response);
+      this.request = request;
+    }
+
+    private DigestingWriter getDigestingOut() {
+      if (digestingOut == null) {
+        try {
+          buffer = EncodingBufferedTag.newBufferWriter(request);
+          digestingOut = new DigestingWriter(buffer, MessageDigest.getInstance(ALGORITHM));
+        } catch (NoSuchAlgorithmException e) {
+          throw new AssertionError("SHA-256 is required on all Java platforms", e);
+        }
+      }
+      return digestingOut;
+    }
+
+    private Writer getOut() throws IOException {
+      return passthrough ? getResponse().getWriter() : getDigestingOut();
+    }
+
+    /**
+     * Writes any buffered output to the wrapped response, then passes-through all further output.
+     */
+    private void passthrough() throws IOException {
+      synchronized (out) {
+        if (digestingOut != null) {
+          digestingOut.flush();
+          BufferWriter oldBuffer = buffer;
+          digestingOut = null;
+          buffer = null;
+          oldBuffer.close();
+          oldBuffer.getResult().writeTo(getResponse().getWriter());
+          EncodingBufferedTag.releaseBufferWriter(request, oldBuffer);
+        }
+        passthrough = true;
+      }
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      if (outputStreamUsed) {
+        throw new IllegalStateException("getOutputStream() has already been called");
+      }
+      if (writer == null) {
+        writer = new PrintWriter(out);
+      }
+      return writer;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      if (writer != null) {
+        throw new IllegalStateException("getWriter() has already been called");
+      }
+      outputStreamUsed = true;
+      return super.getOutputStream();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      if (writer != null && !passthrough) {
+        // Remain buffered until the entity tag is known
+        writer.flush();
+      } else {
+        super.flushBuffer();
+      }
+    }
+
+    /**
+     * Discards any buffered output, starting a new digest on the next write.
+     */
+    private void discard() throws IOException {
+      if (digestingOut != null) {
+        digestingOut = null;
+        BufferWriter oldBuffer = buffer;
+        buffer = null;
+        oldBuffer.close();
+        EncodingBufferedTag.releaseBufferWriter(request, oldBuffer);
+      }
+    }
+
+    @Override
+    public void resetBuffer() {
+      super.resetBuffer();
+      try {
+        discard();
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public void reset() {
+      super.reset();
+      try {
+        discard();
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+    if (request instanceof HttpServletRequest && response instanceof HttpServletResponse) {
+      HttpServletRequest httpRequest = (HttpServletRequest) request;
+      // HEAD is not digested, since the default HttpServlet.doHead discards the body before this filter sees it
+      if ("GET".equals(httpRequest.getMethod())) {
+        doFilter(httpRequest, (HttpServletResponse) response, chain);
+        return;
+      }
+    }
+    chain.doFilter(request, response);
+  }
+
+  private static void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
+    DigestingResponse digestingResponse = new DigestingResponse(request, response);
+    boolean completed = false;
+    try {
+      chain.doFilter(request, digestingResponse);
+      completed = true;
+    } finally {
+      if (!completed) {
+        digestingResponse.discard();
+      }
+    }
+    if (request.isAsyncStarted()) {
+      // The output is not complete until asynchronous processing completes
+      digestingResponse.passthrough();
+      return;
+    }
+    DigestingWriter digestingOut = digestingResponse.digestingOut;
+    if (digestingOut != null) {
+      digestingResponse.writer.flush();
+      BufferWriter buffer = digestingResponse.buffer;
+      buffer.close();
+      BufferResult result = buffer.getResult();
+      if (
+          response.getStatus() == HttpServletResponse.SC_OK
+              && !response.isCommitted()
+              && !response.containsHeader(ETAG_HEADER)
+      ) {
+        String etag = getETag(digestingOut.digest(), response.getContentType());
+        response.setHeader(ETAG_HEADER, etag);
+        if (matches(request.getHeader(IF_NONE_MATCH_HEADER), etag)) {
+          response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+          EncodingBufferedTag.releaseBufferWriter(request, buffer);
+          return;
+        }
+      }
+      result.writeTo(response.getWriter());
+      EncodingBufferedTag.releaseBufferWriter(request, buffer);
+    }
+  }
+
+  /**
+   * Gets the strong entity tag of the given digest of the output, also covering the content type, since the same
+   * characters in a different content type or encoding are a different representation.
+   */
+  private static String getETag(byte[] outputDigest, String contentType) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance(ALGORITHM);
+      digest.update(outputDigest);
+      if (contentType != null) {
+        digest.update(contentType.getBytes(StandardCharsets.UTF_8));
+      }
+      return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()) + '"';
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError("SHA-256 is required on all Java platforms", e);
+    }
+  }
+
+  /**
+   * Checks if the entity tag matches the <code>If-None-Match</code> header, using the weak comparison required for
+   * this header.
+   */
+  private static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch != null) {
+      for (String candidate : ifNoneMatch.split(",")) {
+        candidate = candidate.trim();
+        if (candidate.startsWith("W/")) {
+          candidate = candidate.substring(2);
+        }
+        if ("*".equals(candidate) || etag.equals(candidate)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
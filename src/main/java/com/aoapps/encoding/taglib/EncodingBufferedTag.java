@@ -1,6 +1,6 @@
 /*
  * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
- * Copyright (C) 2009, 2010, 2011, 2012, 2013, 2016, 2017, 2019, 2020, 2021, 2022, 2024, 2025  AO Industries, Inc.
+ * Copyright (C) 2009, 2010, 2011, 2012, 2013, 2016, 2017, 2019, 2020, 2021, 2022, 2024, 2025, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -29,7 +29,18 @@ import com.aoapps.encoding.MediaType;
 import com.aoapps.encoding.MediaValidator;
 import com.aoapps.encoding.MediaWriter;
 import com.aoapps.encoding.servlet.EncodingContextEE;
+import com.aoapps.encoding.taglib.impl.AsyncOutput;
+import com.aoapps.encoding.taglib.impl.CaptureEvent;
+import com.aoapps.encoding.taglib.impl.CaptureStatistics;
+import com.aoapps.encoding.taglib.impl.EncoderEvent;
+import com.aoapps.encoding.taglib.impl.LazyPrefixWriter;
+import com.aoapps.encoding.taglib.impl.MediaEncoderTable;
+import com.aoapps.encoding.taglib.impl.PassThroughResult;
 import com.aoapps.encoding.taglib.impl.RequestEncodingContext;
+import com.aoapps.encoding.taglib.impl.ResponseContainer;
+import com.aoapps.encoding.taglib.impl.StreamingResult;
+import com.aoapps.encoding.taglib.impl.TagMetrics;
+import com.aoapps.encoding.taglib.impl.ValidateEvent;
 import com.aoapps.io.buffer.AutoTempFileWriter;
 import com.aoapps.io.buffer.BufferResult;
 import com.aoapps.io.buffer.BufferWriter;
@@ -49,6 +60,7 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.jsp.JspException;
 import javax.servlet.jsp.JspWriter;
 import javax.servlet.jsp.PageContext;
+import javax.servlet.jsp.SkipPageException;
 import javax.servlet.jsp.tagext.JspFragment;
 import javax.servlet.jsp.tagext.SimpleTagSupport;
 
@@ -75,15 +87,18 @@ public abstract class EncodingBufferedTag extends SimpleTagSupport {
   private static final Logger logger = Logger.getLogger(EncodingBufferedTag.class.getName());
 
   /**
-   * Creates an instance of the currently preferred {@link BufferWriter}.
+   * Creates an instance of the default {@link BufferWriter}.
    * Buffering strategies may change over time as technology develops and
    * options become available.
    *
+   * <p>This does not have access to the web application, so always uses the default strategy.  Use
+   * {@link #newBufferWriter(javax.servlet.ServletRequest, long)} to honor the {@link BufferWriterFactory} selected
+   * for the web application.</p>
+   *
    * @see  TempFileContext
    * @see  AutoTempFileWriter
    */
   public static BufferWriter newBufferWriter(TempFileContext tempFileContext, long tempFileThreshold) {
-    // return new SegmentedWriter();
     BufferWriter bufferWriter = new CharArrayBufferWriter();
     if (tempFileThreshold != Long.MAX_VALUE) {
       bufferWriter = new AutoTempFileWriter(
@@ -104,11 +119,25 @@ public abstract class EncodingBufferedTag extends SimpleTagSupport {
   }
 
   /**
-   * @see  #newBufferWriter(com.aoapps.tempfiles.TempFileContext, long)
+   * Creates an instance of the {@link BufferWriter} selected for the web application.
+   *
+   * @see  BufferWriterFactory#getInstance(javax.servlet.ServletContext)
    * @see  TempFileContextEE#get(javax.servlet.ServletRequest)
    */
   public static BufferWriter newBufferWriter(ServletRequest request, long tempFileThreshold) {
-    return newBufferWriter(TempFileContextEE.get(request), tempFileThreshold);
+    return BufferWriterFactory.getInstance(request.getServletContext()).newBufferWriter(request, tempFileThreshold);
+  }
+
+  /**
+   * Creates an instance of the {@link BufferWriter} selected for the web application, sized for the expected
+   * capture length.
+   *
+   * @param  expectedLength  the expected length or {@code -1} when unknown
+   *
+   * @see  BufferWriterFactory#newBufferWriter(javax.servlet.ServletRequest, long, long)
+   */
+  public static BufferWriter newBufferWriter(ServletRequest request, long tempFileThreshold, long expectedLength) {
+    return BufferWriterFactory.getInstance(request.getServletContext()).newBufferWriter(request, tempFileThreshold, expectedLength);
   }
 
   /**
@@ -119,6 +148,16 @@ public abstract class EncodingBufferedTag extends SimpleTagSupport {
     return newBufferWriter(request, AutoTempFileWriter.DEFAULT_TEMP_FILE_THRESHOLD);
   }
 
+  /**
+   * Releases a buffer created by {@link #newBufferWriter(javax.servlet.ServletRequest, long)} once neither the buffer
+   * nor its result will be used again.
+   *
+   * @see  BufferWriterFactory#release(javax.servlet.ServletRequest, com.aoapps.io.buffer.BufferWriter)
+   */
+  public static void releaseBufferWriter(ServletRequest request, BufferWriter buffer) {
+    BufferWriterFactory.getInstance(request.getServletContext()).release(request, buffer);
+  }
+
   /**
    * Gets the type of data that is contained by this tag.
    */
@@ -133,7 +172,7 @@ public abstract class EncodingBufferedTag extends SimpleTagSupport {
 
   /**
    * Gets the number of characters that may be buffered before switching to the
-   * use of a temp file.
+   * use of a temp file.  When captures by this class of tag are usually longer, the switch is made earlier.
    *
    * @return the threshold or {@link Long#MAX_VALUE} to never use temp files.
    *
@@ -143,6 +182,66 @@ public abstract class EncodingBufferedTag extends SimpleTagSupport {
     return AutoTempFileWriter.DEFAULT_TEMP_FILE_THRESHOLD;
   }
 
+  /**
+   * Determines whether the {@linkplain #writeEncoderPrefix(com.aoapps.encoding.MediaEncoder, java.io.Writer) encoder prefix}
+   * and {@linkplain #writeEncoderSuffix(com.aoapps.encoding.MediaEncoder, java.io.Writer, boolean) encoder suffix}
+   * are omitted when the captured body is empty.  When enabled and the captured body is empty, the prefix is
+   * deferred until the first character is written, and the suffix is only written when the prefix was.
+   *
+   * <p>Only enable this when the encoder prefix and suffix merely wrap the output, such as the markup around a
+   * script or style block.  Many encoders delimit a value with them instead, such as the quotes of a string, where an
+   * empty value must still be written as <code>""</code>.</p>
+   *
+   * <p>This default implementation returns {@code false}.</p>
+   */
+  public boolean isEncoderSkippedWhenEmpty() {
+    return false;
+  }
+
+  /**
+   * Determines whether the body is streamed instead of captured up front.  When enabled, the
+   * {@linkplain #getOutputType() output type} is determined before the body is invoked, and writing the whole
+   * captured body to a writer in {@link #doTag(com.aoapps.io.buffer.BufferResult, java.io.Writer)} instead
+   * invokes the body directly on that writer.  This avoids buffering the body and allows its output to reach the
+   * container as it is produced.
+   *
+   * <p>Any other use of the captured body, such as its length, its {@link String} value, or writing a portion of it,
+   * captures the body at that time.  The body may only be streamed once, and cannot be captured once streamed.  When
+   * the body is not used at all, it is invoked after {@link #doTag(com.aoapps.io.buffer.BufferResult, java.io.Writer)}
+   * with its output discarded.</p>
+   *
+   * <p>Only enable this for tags with an output type that does not depend on the body.  Since the body has not been
+   * invoked before the {@linkplain #writePrefix(com.aoapps.encoding.MediaType, java.io.Writer) prefix} and
+   * {@linkplain #writeEncoderPrefix(com.aoapps.encoding.MediaEncoder, java.io.Writer) encoder prefix}, the
+   * encoder prefix is always deferred when {@link #isEncoderSkippedWhenEmpty()}.</p>
+   *
+   * <p>This default implementation returns {@code false}.</p>
+   */
+  public boolean isStreamingBody() {
+    return false;
+  }
+
+  /**
+   * Determines whether the output of this tag may be written asynchronously, releasing the request thread while the
+   * output drains to a slow client.  The output is written through a {@link javax.servlet.WriteListener} and the
+   * {@link javax.servlet.AsyncContext} is completed once written.
+   *
+   * <p>Asynchronous output is only used for tags not nested within other encoding tags, in a
+   * {@link javax.servlet.DispatcherType#REQUEST} dispatch that supports asynchronous processing and has not already
+   * started it, and when nothing has yet been written to the response or buffered in the page writer.  It is not used
+   * when the page writer is a {@link javax.servlet.jsp.tagext.BodyContent} captured by an enclosing tag.  The output is
+   * rendered into a buffer first, and asynchronous processing is only started once rendered successfully.  Otherwise,
+   * the output is written normally.</p>
+   *
+   * <p>When used, the output of this tag is the final output of the response: the rest of the page is skipped by
+   * throwing {@link SkipPageException} at the end of the tag.  Only enable this for tags that end their page.</p>
+   *
+   * <p>This default implementation returns {@code false}.</p>
+   */
+  public boolean isAsyncOutput() {
+    return false;
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -153,38 +252,52 @@ public abstract class EncodingBufferedTag extends SimpleTagSupport {
   @Deprecated
   @Override
   public void doTag() throws JspException, IOException {
+    try {
+      doTagImpl();
+    } catch (StreamingResult.BodyException e) {
+      // Rethrow the exception of a streaming body unchanged, such as SkipPageException
+      throw e.getCause();
+    } finally {
+      // The captured body is not used beyond the tag
+      BufferWriter buffer = capturedBuffer;
+      if (buffer != null) {
+        capturedBuffer = null;
+        releaseBufferWriter(((PageContext) getJspContext()).getRequest(), buffer);
+      }
+    }
+  }
+
+  /**
+   * The buffer of the captured body, released once the tag completes.
+   * {@code null} when the body has not been captured.
+   */
+  private BufferWriter capturedBuffer;
+
+  private void doTagImpl() throws JspException, IOException {
     final PageContext pageContext = (PageContext) getJspContext();
+    final TagMetrics metrics = TagMetrics.getInstance(pageContext.getServletContext());
+    metrics.invoked(getClass());
     final HttpServletRequest request = (HttpServletRequest) pageContext.getRequest();
     final RequestEncodingContext parentEncodingContext = RequestEncodingContext.getCurrentContext(request);
     // The output type cannot be determined until the body of the tag is invoked, because nested tags may
-    // alter the resulting type.  We invoke the body first to accommodate nested tags.
+    // alter the resulting type.  We invoke the body first to accommodate nested tags, unless streaming.
 
     final BufferResult capturedBody;
-    JspFragment body = getJspBody();
-    if (body != null) {
-      // Capture the body output while validating
-      BufferWriter captureBuffer = newBufferWriter(request, getTempFileThreshold());
-      try {
-        final MediaType captureType = getContentType();
-        MediaValidator captureValidator = MediaValidator.getMediaValidator(captureType, captureBuffer);
-        RequestEncodingContext.setCurrentContext(
-            request,
-            new RequestEncodingContext(captureType, captureValidator)
-        );
-        try {
-          invoke(body, captureValidator);
-          captureValidator.validate(captureType.getTrimBuffer());
-          captureValidator.flush();
-        } finally {
-          // Restore previous encoding context that is used for our output
-          RequestEncodingContext.setCurrentContext(request, parentEncodingContext);
-        }
-      } finally {
-        captureBuffer.close();
-      }
-      capturedBody = captureBuffer.getResult();
-    } else {
+    final StreamingResult streamingBody;
+    final JspFragment body = getJspBody();
+    if (body == null) {
       capturedBody = EmptyResult.getInstance();
+      streamingBody = null;
+    } else if (isStreamingBody()) {
+      logger.finest("Streaming body");
+      streamingBody = new StreamingResult(
+          out -> invokeBody(request, body, out, false),
+          () -> captureBody(request, body)
+      );
+      capturedBody = streamingBody;
+    } else {
+      capturedBody = captureBody(request, body);
+      streamingBody = null;
     }
 
     MediaType newOutputType = getOutputType();
@@ -194,15 +307,34 @@ public abstract class EncodingBufferedTag extends SimpleTagSupport {
       Writer failOut = FailOnWriteWriter.getInstance();
       assert failOut == Coercion.optimize(failOut, null);
       doTag(capturedBody, failOut);
+      if (streamingBody != null) {
+        streamingBody.finish();
+      }
       // suffix skipped
     } else {
       final HttpServletResponse response = (HttpServletResponse) pageContext.getResponse();
-      final JspWriter directOut = pageContext.getOut();
+      // Top-level tags may end the page with asynchronous output
+      // Rendered into a buffer first, switching to asynchronous output only once rendered successfully
+      final boolean asyncOutput =
+          parentEncodingContext == null
+              && isAsyncOutput()
+              && AsyncOutput.isPossible(request, response, pageContext.getOut());
+      final BufferWriter asyncBuffer;
+      final Writer directOut;
+      if (asyncOutput) {
+        logger.finest("Writing output asynchronously");
+        asyncBuffer = newBufferWriter(request, getTempFileThreshold());
+        directOut = asyncBuffer;
+      } else {
+        asyncBuffer = null;
+        directOut = pageContext.getOut();
+      }
 
       // Determine the container's content type and validator
       final MediaType containerType;
       final Writer containerValidator;
       final boolean isNewContainerValidator;
+      final ResponseContainer responseContainer;
       if (parentEncodingContext != null) {
         // Use the output type of the parent
         containerType = parentEncodingContext.contentType;
@@ -214,22 +346,19 @@ public abstract class EncodingBufferedTag extends SimpleTagSupport {
         // Already validated
         containerValidator = Coercion.optimize(directOut, null);
         isNewContainerValidator = false;
+        responseContainer = null;
         if (logger.isLoggable(Level.FINER)) {
           logger.finer("containerValidator from parentEncodingContext: " + containerValidator);
         }
       } else {
-        // Use the content type of the response
-        String responseContentType = response.getContentType();
-        // Default to XHTML: TODO: Is there a better way since can't set content type early in response then reset again...
-        if (responseContentType == null) {
-          responseContentType = MediaType.XHTML.getContentType();
-        }
-        containerType = MediaType.getMediaTypeForContentType(responseContentType);
+        // Use the content type of the response, resolved once per request and response content type
+        responseContainer = ResponseContainer.getInstance(request, response);
+        containerType = responseContainer.containerType;
         if (logger.isLoggable(Level.FINER)) {
-          logger.finer("containerType from responseContentType: " + containerType + " from " + responseContentType);
+          logger.finer("containerType from responseContentType: " + containerType + " from " + responseContainer.getResponseContentType());
         }
         // Need to add validator
-        containerValidator = MediaValidator.getMediaValidator(containerType, directOut);
+        containerValidator = responseContainer.getValidator(directOut);
         isNewContainerValidator = true;
         if (logger.isLoggable(Level.FINER)) {
           logger.finer("containerValidator from containerType: " + containerValidator + " from " + containerType);
@@ -240,9 +369,18 @@ public abstract class EncodingBufferedTag extends SimpleTagSupport {
       assert containerValidator == Coercion.optimize(containerValidator, null);
       writePrefix(containerType, containerValidator);
 
-      // Find the encoder
-      EncodingContext encodingContext = new EncodingContextEE(pageContext.getServletContext(), request, response);
-      MediaEncoder mediaEncoder = MediaEncoder.getInstance(encodingContext, newOutputType, containerType);
+      final long startNanos = System.nanoTime();
+
+      // Find the encoder, skipping the lookup when the types are known to not require one
+      final EncodingContext encodingContext;
+      final MediaEncoder mediaEncoder;
+      if (MediaEncoderTable.isEncoderRequired(newOutputType, containerType)) {
+        encodingContext = new EncodingContextEE(pageContext.getServletContext(), request, response);
+        mediaEncoder = MediaEncoderTable.getInstance(encodingContext, newOutputType, containerType);
+      } else {
+        encodingContext = null;
+        mediaEncoder = null;
+      }
       if (mediaEncoder != null) {
         if (logger.isLoggable(Level.FINER)) {
           logger.finer("Using MediaEncoder: " + mediaEncoder);
@@ -251,13 +389,23 @@ public abstract class EncodingBufferedTag extends SimpleTagSupport {
         setMediaEncoderOptions(mediaEncoder);
         // Encode our output.  The encoder guarantees valid output for our parent.
         Writer optimized = Coercion.optimize(containerValidator, mediaEncoder);
-        logger.finest("Writing encoder prefix");
-        writeEncoderPrefix(mediaEncoder, optimized); // TODO: Skip prefix and suffix when empty?  Pass capturedBody so implementation may decide?
+        final LazyPrefixWriter lazyPrefix;
+        final Writer encoderOut;
+        if (isEncoderSkippedWhenEmpty() && (streamingBody != null || capturedBody.getLength() == 0)) {
+          logger.finest("Deferring encoder prefix until first write");
+          lazyPrefix = new LazyPrefixWriter(optimized, () -> writeEncoderPrefix(mediaEncoder, optimized, newOutputType, containerType));
+          encoderOut = lazyPrefix;
+        } else {
+          logger.finest("Writing encoder prefix");
+          writeEncoderPrefix(mediaEncoder, optimized, newOutputType, containerType);
+          lazyPrefix = null;
+          encoderOut = optimized;
+        }
         try {
           MediaWriter mediaWriter = newOutputType.newMediaWriter(
               encodingContext,
               mediaEncoder,
-              optimized,
+              encoderOut,
               true,
               null,
               MediaWriter.DEFAULT_IS_NO_CLOSE,
@@ -275,9 +423,14 @@ public abstract class EncodingBufferedTag extends SimpleTagSupport {
             RequestEncodingContext.setCurrentContext(request, parentEncodingContext);
           }
         } finally {
-          logger.finest("Writing encoder suffix");
-          writeEncoderSuffix(mediaEncoder, optimized, newOutputType.getTrimBuffer());
+          if (lazyPrefix == null || lazyPrefix.isPrefixWritten()) {
+            logger.finest("Writing encoder suffix");
+            writeEncoderSuffix(mediaEncoder, optimized, newOutputType, containerType);
+          } else {
+            logger.finest("Skipping encoder suffix since nothing written");
+          }
         }
+        metrics.encoded(System.nanoTime() - startNanos);
       } else {
         // If parentValidMediaInput exists and is validating our output type, no additional validation is required
         if (
@@ -289,14 +442,19 @@ public abstract class EncodingBufferedTag extends SimpleTagSupport {
           }
           RequestEncodingContext.setCurrentContext(
               request,
-              new RequestEncodingContext(newOutputType, parentEncodingContext.validMediaInput)
+              new RequestEncodingContext(newOutputType, parentEncodingContext.validMediaInput, parentEncodingContext.unvalidatedOut)
           );
           try {
             assert containerValidator == Coercion.optimize(containerValidator, null);
-            doTag(capturedBody, containerValidator);
+            // Already validated captures may be written in bulk beneath the parent validator
+            doTag(
+                PassThroughResult.wrap(capturedBody, parentEncodingContext, containerValidator, getContentType()),
+                containerValidator
+            );
           } finally {
             RequestEncodingContext.setCurrentContext(request, parentEncodingContext);
           }
+          metrics.passedThrough();
         } else {
           // Not using an encoder and parent doesn't validate our output, validate our own output.
           MediaValidator validator = MediaValidator.getMediaValidator(newOutputType, containerValidator);
@@ -310,22 +468,89 @@ public abstract class EncodingBufferedTag extends SimpleTagSupport {
           try {
             assert validator == Coercion.optimize(validator, null);
             doTag(capturedBody, validator);
-            validator.validate(newOutputType.getTrimBuffer());
+            validate(validator, newOutputType);
           } finally {
             RequestEncodingContext.setCurrentContext(request, parentEncodingContext);
           }
+          metrics.validated(System.nanoTime() - startNanos);
         }
       }
 
+      if (streamingBody != null) {
+        streamingBody.finish();
+      }
+
       // Write any suffix
       assert containerValidator == Coercion.optimize(containerValidator, null);
       writeSuffix(containerType, containerValidator);
       if (isNewContainerValidator) {
-        ((MediaValidator) containerValidator).validate(containerType.getTrimBuffer());
+        validate((MediaValidator) containerValidator, containerType);
+        responseContainer.release((MediaValidator) containerValidator);
+      }
+
+      if (asyncOutput) {
+        asyncBuffer.close();
+        BufferResult result = asyncBuffer.getResult();
+        if (AsyncOutput.write(request, response, result)) {
+          // Nothing more may be written to the response
+          throw new SkipPageException();
+        }
+        // Output stream not available, already valid for the container
+        result.writeTo(pageContext.getOut());
+        releaseBufferWriter(request, asyncBuffer);
+      }
+    }
+  }
+
+  /**
+   * Invokes the body, validating its output against the content type.
+   *
+   * @param  captureOut  Receives the body output once validated.
+   * @param  flush       Flushes the output after the body is invoked.  This is only safe for capture buffers.
+   */
+  private void invokeBody(HttpServletRequest request, JspFragment body, Writer captureOut, boolean flush) throws JspException, IOException {
+    // Restore the context surrounding the invocation, which is the parent context unless streaming
+    final RequestEncodingContext outerEncodingContext = RequestEncodingContext.getCurrentContext(request);
+    final MediaType captureType = getContentType();
+    MediaValidator captureValidator = MediaValidator.getMediaValidator(captureType, captureOut);
+    RequestEncodingContext.setCurrentContext(
+        request,
+        new RequestEncodingContext(captureType, captureValidator, captureOut)
+    );
+    try {
+      invoke(body, captureValidator);
+      validate(captureValidator, captureType);
+      if (flush) {
+        captureValidator.flush();
       }
+    } finally {
+      RequestEncodingContext.setCurrentContext(request, outerEncodingContext);
     }
   }
 
+  /**
+   * Captures the body output while validating.  The buffer is selected from the lengths of previous captures by
+   * this class of tag.
+   */
+  private BufferResult captureBody(HttpServletRequest request, JspFragment body) throws JspException, IOException {
+    CaptureStatistics statistics = CaptureStatistics.getInstance(getClass());
+    long tempFileThreshold = statistics.getTempFileThreshold(getTempFileThreshold());
+    BufferWriter captureBuffer = newBufferWriter(request, tempFileThreshold, statistics.getExpectedLength());
+    capturedBuffer = captureBuffer;
+    CaptureEvent event = CaptureEvent.start();
+    try {
+      invokeBody(request, body, captureBuffer, true);
+    } finally {
+      captureBuffer.close();
+    }
+    BufferResult result = captureBuffer.getResult();
+    long length = result.getLength();
+    event.commit(getClass(), getContentType(), length, tempFileThreshold);
+    statistics.record(length);
+    TagMetrics.getInstance(request.getServletContext()).captured(length, tempFileThreshold);
+    return result;
+  }
+
   /**
    * Invokes the body.  This is only called when a body exists.  Subclasses may override this to perform
    * actions before and/or after invoking the body.  Any overriding implementation should call
@@ -338,6 +563,33 @@ public abstract class EncodingBufferedTag extends SimpleTagSupport {
     body.invoke(captureValidator);
   }
 
+  /**
+   * Writes the encoder prefix, recording an {@link EncoderEvent}.
+   */
+  private void writeEncoderPrefix(MediaEncoder mediaEncoder, Writer out, MediaType outputType, MediaType containerType) throws JspException, IOException {
+    EncoderEvent event = EncoderEvent.start();
+    writeEncoderPrefix(mediaEncoder, out);
+    event.commit(getClass(), EncoderEvent.PREFIX, outputType, containerType);
+  }
+
+  /**
+   * Writes the encoder suffix, recording an {@link EncoderEvent}.
+   */
+  private void writeEncoderSuffix(MediaEncoder mediaEncoder, Writer out, MediaType outputType, MediaType containerType) throws JspException, IOException {
+    EncoderEvent event = EncoderEvent.start();
+    writeEncoderSuffix(mediaEncoder, out, outputType.getTrimBuffer());
+    event.commit(getClass(), EncoderEvent.SUFFIX, outputType, containerType);
+  }
+
+  /**
+   * Performs the final validation, recording a {@link ValidateEvent}.
+   */
+  private void validate(MediaValidator validator, MediaType mediaType) throws IOException {
+    ValidateEvent event = ValidateEvent.start();
+    validator.validate(mediaType.getTrimBuffer());
+    event.commit(getClass(), mediaType);
+  }
+
   /**
    * Writes any prefix in the container's media type.
    * The output must be valid for the provided type.
@@ -379,6 +631,9 @@ public abstract class EncodingBufferedTag extends SimpleTagSupport {
    * <p>{@linkplain JspFragment The body}, if present, has {@linkplain JspFragment#invoke(java.io.Writer) already been invoked}
    * with any output captured.</p>
    *
+   * <p>The captured body must not be used once this tag has completed, since its buffer is then
+   * {@linkplain BufferWriterFactory#release(javax.servlet.ServletRequest, com.aoapps.io.buffer.BufferWriter) released}.</p>
+   *
    * <p>This default implementation does nothing.</p>
    *
    * @param  out  When the output type is {@code null}, will throw an exception if anything written,
@@ -1,6 +1,6 @@
 /*
  * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
- * Copyright (C) 2009, 2010, 2011, 2012, 2013, 2016, 2017, 2019, 2020, 2021, 2022, 2024, 2025  AO Industries, Inc.
+ * Copyright (C) 2009, 2010, 2011, 2012, 2013, 2016, 2017, 2019, 2020, 2021, 2022, 2024, 2025, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -23,16 +23,22 @@
 
 package com.aoapps.encoding.taglib;
 
-import com.aoapps.encoding.EncodingContext;
 import com.aoapps.encoding.MediaEncoder;
 import com.aoapps.encoding.MediaType;
 import com.aoapps.encoding.MediaValidator;
 import com.aoapps.encoding.MediaWriter;
-import com.aoapps.encoding.servlet.EncodingContextEE;
+import com.aoapps.encoding.taglib.impl.EncoderEvent;
+import com.aoapps.encoding.taglib.impl.EncoderPipeline;
+import com.aoapps.encoding.taglib.impl.LazyPrefixWriter;
+import com.aoapps.encoding.taglib.impl.MediaEncoderTable;
 import com.aoapps.encoding.taglib.impl.RequestEncodingContext;
+import com.aoapps.encoding.taglib.impl.ResponseContainer;
+import com.aoapps.encoding.taglib.impl.TagMetrics;
+import com.aoapps.encoding.taglib.impl.ValidateEvent;
 import com.aoapps.lang.Coercion;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.servlet.http.HttpServletRequest;
@@ -72,12 +78,71 @@ public abstract class EncodingFilteredTag extends SimpleTagSupport {
 
   private static final Logger logger = Logger.getLogger(EncodingFilteredTag.class.getName());
 
+  /**
+   * Writes the encoder prefix through the tag currently using an {@link EncoderPipeline}.
+   */
+  private static final class TagPrefixWriter extends LazyPrefixWriter {
+
+    private final Writer optimized;
+    private EncodingFilteredTag tag;
+    private MediaEncoder mediaEncoder;
+    private MediaType outputType;
+    private MediaType containerType;
+
+    private TagPrefixWriter(Writer optimized) {
+      super(optimized);
+      this.optimized = optimized;
+    }
+
+    @Override
+    protected void writePrefix() throws JspException, IOException {
+      tag.writeEncoderPrefix(mediaEncoder, optimized, outputType, containerType);
+    }
+  }
+
+  private static final Function<Writer, TagPrefixWriter> PREFIX_WRITER_FACTORY = TagPrefixWriter::new;
+
+  /**
+   * Tracks which classes use the default {@link #setMediaEncoderOptions(com.aoapps.encoding.MediaEncoder)}.
+   * Only these may share an {@link EncoderPipeline} with other tags.
+   */
+  private static final ClassValue<Boolean> IS_MEDIA_ENCODER_OPTIONS_DEFAULT = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      for (Class<?> c = type; c != EncodingFilteredTag.class; c = c.getSuperclass()) {
+        try {
+          c.getDeclaredMethod("setMediaEncoderOptions", MediaEncoder.class);
+          return false;
+        } catch (NoSuchMethodException e) {
+          // Continue to superclass
+        }
+      }
+      return true;
+    }
+  };
+
   /**
    * Gets the type of data that is contained by this tag.  This is used to determine the correct
    * encoder.  This is also the output type.
    */
   public abstract MediaType getContentType();
 
+  /**
+   * Determines whether the {@linkplain #writeEncoderPrefix(com.aoapps.encoding.MediaEncoder, java.io.Writer) encoder prefix}
+   * and {@linkplain #writeEncoderSuffix(com.aoapps.encoding.MediaEncoder, java.io.Writer, boolean) encoder suffix}
+   * are omitted when nothing is written.  When enabled, the prefix is deferred until the first character is written,
+   * and the suffix is only written when the prefix was.
+   *
+   * <p>Only enable this when the encoder prefix and suffix merely wrap the output, such as the markup around a
+   * script or style block.  Many encoders delimit a value with them instead, such as the quotes of a string, where an
+   * empty value must still be written as <code>""</code>.</p>
+   *
+   * <p>This default implementation returns {@code false}.</p>
+   */
+  public boolean isEncoderSkippedWhenEmpty() {
+    return false;
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -89,6 +154,8 @@ public abstract class EncodingFilteredTag extends SimpleTagSupport {
   @Override
   public void doTag() throws JspException, IOException {
     final PageContext pageContext = (PageContext) getJspContext();
+    final TagMetrics metrics = TagMetrics.getInstance(pageContext.getServletContext());
+    metrics.invoked(getClass());
     final HttpServletRequest request = (HttpServletRequest) pageContext.getRequest();
     final RequestEncodingContext parentEncodingContext = RequestEncodingContext.getCurrentContext(request);
     final MediaType newOutputType = getContentType();
@@ -99,6 +166,7 @@ public abstract class EncodingFilteredTag extends SimpleTagSupport {
     final MediaType containerType;
     final Writer containerValidator;
     final boolean isNewContainerValidator;
+    final ResponseContainer responseContainer;
     if (parentEncodingContext != null) {
       // Use the output type of the parent
       containerType = parentEncodingContext.contentType;
@@ -110,22 +178,19 @@ public abstract class EncodingFilteredTag extends SimpleTagSupport {
       // Already validated
       containerValidator = Coercion.optimize(directOut, null);
       isNewContainerValidator = false;
+      responseContainer = null;
       if (logger.isLoggable(Level.FINER)) {
         logger.finer("containerValidator from parentEncodingContext: " + containerValidator);
       }
     } else {
-      // Use the content type of the response
-      String responseContentType = response.getContentType();
-      // Default to XHTML: TODO: Is there a better way since can't set content type early in response then reset again...
-      if (responseContentType == null) {
-        responseContentType = MediaType.XHTML.getContentType();
-      }
-      containerType = MediaType.getMediaTypeForContentType(responseContentType);
+      // Use the content type of the response, resolved once per request and response content type
+      responseContainer = ResponseContainer.getInstance(request, response);
+      containerType = responseContainer.containerType;
       if (logger.isLoggable(Level.FINER)) {
-        logger.finer("containerType from responseContentType: " + containerType + " from " + responseContentType);
+        logger.finer("containerType from responseContentType: " + containerType + " from " + responseContainer.getResponseContentType());
       }
       // Need to add validator
-      containerValidator = MediaValidator.getMediaValidator(containerType, directOut);
+      containerValidator = responseContainer.getValidator(directOut);
       isNewContainerValidator = true;
       if (logger.isLoggable(Level.FINER)) {
         logger.finer("containerValidator from containerType: " + containerValidator + " from " + containerType);
@@ -136,44 +201,69 @@ public abstract class EncodingFilteredTag extends SimpleTagSupport {
     assert containerValidator == Coercion.optimize(containerValidator, null);
     writePrefix(containerType, containerValidator);
 
-    // Find the encoder
-    EncodingContext encodingContext = new EncodingContextEE(pageContext.getServletContext(), request, response);
-    MediaEncoder mediaEncoder = MediaEncoder.getInstance(encodingContext, newOutputType, containerType);
-    if (mediaEncoder != null) {
+    final long startNanos = System.nanoTime();
+
+    // Find the encoder, skipping the lookup when the types are known to not require one
+    final EncoderPipeline pipeline;
+    if (MediaEncoderTable.isEncoderRequired(newOutputType, containerType)) {
+      pipeline = EncoderPipeline.acquire(
+          pageContext.getServletContext(),
+          request,
+          response,
+          newOutputType,
+          containerType,
+          containerValidator,
+          responseContainer != null && responseContainer.isShared(containerValidator),
+          PREFIX_WRITER_FACTORY,
+          IS_MEDIA_ENCODER_OPTIONS_DEFAULT.get(getClass()) ? null : this::setMediaEncoderOptions
+      );
+    } else {
+      pipeline = null;
+    }
+    if (pipeline != null) {
+      final MediaEncoder mediaEncoder = pipeline.mediaEncoder;
       if (logger.isLoggable(Level.FINER)) {
         logger.finer("Using MediaEncoder: " + mediaEncoder);
       }
-      logger.finest("Setting encoder options");
-      setMediaEncoderOptions(mediaEncoder);
-      // Encode both our output and the content.  The encoder validates our input and guarantees valid output for our parent.
-      Writer optimized = Coercion.optimize(containerValidator, mediaEncoder);
-      logger.finest("Writing encoder prefix");
-      writeEncoderPrefix(mediaEncoder, optimized);
+      final TagPrefixWriter prefixWriter = (TagPrefixWriter) pipeline.prefixWriter;
+      prefixWriter.tag = this;
+      prefixWriter.mediaEncoder = mediaEncoder;
+      prefixWriter.outputType = newOutputType;
+      prefixWriter.containerType = containerType;
       try {
-        MediaWriter mediaWriter = newOutputType.newMediaWriter(
-            encodingContext,
-            mediaEncoder,
-            optimized,
-            true,
-            null,
-            MediaWriter.DEFAULT_IS_NO_CLOSE,
-            MediaWriter.DEFAULT_CLOSER
-        );
-        RequestEncodingContext.setCurrentContext(
-            request,
-            new RequestEncodingContext(newOutputType, mediaWriter)
-        );
+        // Encode both our output and the content.  The encoder validates our input and guarantees valid output for our parent.
+        if (isEncoderSkippedWhenEmpty()) {
+          logger.finest("Deferring encoder prefix until first write");
+        } else {
+          logger.finest("Writing encoder prefix");
+          prefixWriter.ensurePrefix();
+        }
         try {
-          assert mediaWriter == Coercion.optimize(mediaWriter, null);
-          doTag(mediaWriter);
+          MediaWriter mediaWriter = pipeline.mediaWriter;
+          RequestEncodingContext.setCurrentContext(request, pipeline.requestEncodingContext);
+          try {
+            assert mediaWriter == Coercion.optimize(mediaWriter, null);
+            doTag(mediaWriter);
+          } finally {
+            // Restore previous encoding context that is used for our output
+            RequestEncodingContext.setCurrentContext(request, parentEncodingContext);
+          }
         } finally {
-          // Restore previous encoding context that is used for our output
-          RequestEncodingContext.setCurrentContext(request, parentEncodingContext);
+          if (prefixWriter.isPrefixWritten()) {
+            logger.finest("Writing encoder suffix");
+            writeEncoderSuffix(mediaEncoder, pipeline.optimized, newOutputType, containerType);
+          } else {
+            logger.finest("Skipping encoder suffix since nothing written");
+          }
         }
       } finally {
-        logger.finest("Writing encoder suffix");
-        writeEncoderSuffix(mediaEncoder, optimized, newOutputType.getTrimBuffer());
+        prefixWriter.tag = null;
+        prefixWriter.mediaEncoder = null;
+        prefixWriter.outputType = null;
+        prefixWriter.containerType = null;
+        pipeline.release();
       }
+      metrics.encoded(System.nanoTime() - startNanos);
     } else {
       // If parentValidMediaInput exists and is validating our output type, no additional validation is required
       if (
@@ -185,7 +275,7 @@ public abstract class EncodingFilteredTag extends SimpleTagSupport {
         }
         RequestEncodingContext.setCurrentContext(
             request,
-            new RequestEncodingContext(newOutputType, parentEncodingContext.validMediaInput)
+            new RequestEncodingContext(newOutputType, parentEncodingContext.validMediaInput, parentEncodingContext.unvalidatedOut)
         );
         try {
           assert containerValidator == Coercion.optimize(containerValidator, null);
@@ -193,6 +283,7 @@ public abstract class EncodingFilteredTag extends SimpleTagSupport {
         } finally {
           RequestEncodingContext.setCurrentContext(request, parentEncodingContext);
         }
+        metrics.passedThrough();
       } else {
         // Not using an encoder and parent doesn't validate our output, validate our own output.
         MediaValidator validator = MediaValidator.getMediaValidator(newOutputType, containerValidator);
@@ -206,10 +297,11 @@ public abstract class EncodingFilteredTag extends SimpleTagSupport {
         try {
           assert validator == Coercion.optimize(validator, null);
           doTag(validator);
-          validator.validate(newOutputType.getTrimBuffer());
+          validate(validator, newOutputType);
         } finally {
           RequestEncodingContext.setCurrentContext(request, parentEncodingContext);
         }
+        metrics.validated(System.nanoTime() - startNanos);
       }
     }
 
@@ -217,10 +309,38 @@ public abstract class EncodingFilteredTag extends SimpleTagSupport {
     assert containerValidator == Coercion.optimize(containerValidator, null);
     writeSuffix(containerType, containerValidator);
     if (isNewContainerValidator) {
-      ((MediaValidator) containerValidator).validate(containerType.getTrimBuffer());
+      validate((MediaValidator) containerValidator, containerType);
+      responseContainer.release((MediaValidator) containerValidator);
     }
   }
 
+  /**
+   * Writes the encoder prefix, recording an {@link EncoderEvent}.
+   */
+  private void writeEncoderPrefix(MediaEncoder mediaEncoder, Writer out, MediaType outputType, MediaType containerType) throws JspException, IOException {
+    EncoderEvent event = EncoderEvent.start();
+    writeEncoderPrefix(mediaEncoder, out);
+    event.commit(getClass(), EncoderEvent.PREFIX, outputType, containerType);
+  }
+
+  /**
+   * Writes the encoder suffix, recording an {@link EncoderEvent}.
+   */
+  private void writeEncoderSuffix(MediaEncoder mediaEncoder, Writer out, MediaType outputType, MediaType containerType) throws JspException, IOException {
+    EncoderEvent event = EncoderEvent.start();
+    writeEncoderSuffix(mediaEncoder, out, outputType.getTrimBuffer());
+    event.commit(getClass(), EncoderEvent.SUFFIX, outputType, containerType);
+  }
+
+  /**
+   * Performs the final validation, recording a {@link ValidateEvent}.
+   */
+  private void validate(MediaValidator validator, MediaType mediaType) throws IOException {
+    ValidateEvent event = ValidateEvent.start();
+    validator.validate(mediaType.getTrimBuffer());
+    event.commit(getClass(), mediaType);
+  }
+
   /**
    * Writes any prefix in the container's media type.
    * The output must be valid for the provided type.
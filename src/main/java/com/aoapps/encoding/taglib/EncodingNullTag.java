@@ -1,6 +1,6 @@
 /*
  * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
- * Copyright (C) 2012, 2013, 2016, 2017, 2020, 2021, 2022, 2024, 2025  AO Industries, Inc.
+ * Copyright (C) 2012, 2013, 2016, 2017, 2020, 2021, 2022, 2024, 2025, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -23,18 +23,25 @@
 
 package com.aoapps.encoding.taglib;
 
-import com.aoapps.encoding.EncodingContext;
 import com.aoapps.encoding.MediaEncoder;
 import com.aoapps.encoding.MediaType;
 import com.aoapps.encoding.MediaValidator;
 import com.aoapps.encoding.MediaWriter;
-import com.aoapps.encoding.servlet.EncodingContextEE;
+import com.aoapps.encoding.taglib.impl.EncoderEvent;
+import com.aoapps.encoding.taglib.impl.EncoderPipeline;
+import com.aoapps.encoding.taglib.impl.LazyPrefixWriter;
+import com.aoapps.encoding.taglib.impl.LiteralEncodings;
+import com.aoapps.encoding.taglib.impl.MediaEncoderTable;
 import com.aoapps.encoding.taglib.impl.RequestEncodingContext;
+import com.aoapps.encoding.taglib.impl.ResponseContainer;
+import com.aoapps.encoding.taglib.impl.TagMetrics;
+import com.aoapps.encoding.taglib.impl.ValidateEvent;
 import com.aoapps.lang.Coercion;
 import com.aoapps.lang.io.FailOnWriteWriter;
 import com.aoapps.lang.io.NullWriter;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.servlet.http.HttpServletRequest;
@@ -56,6 +63,49 @@ public abstract class EncodingNullTag extends SimpleTagSupport {
 
   private static final Logger logger = Logger.getLogger(EncodingNullTag.class.getName());
 
+  /**
+   * Writes the encoder prefix through the tag currently using an {@link EncoderPipeline}.
+   */
+  private static final class TagPrefixWriter extends LazyPrefixWriter {
+
+    private final Writer optimized;
+    private EncodingNullTag tag;
+    private MediaEncoder mediaEncoder;
+    private MediaType outputType;
+    private MediaType containerType;
+
+    private TagPrefixWriter(Writer optimized) {
+      super(optimized);
+      this.optimized = optimized;
+    }
+
+    @Override
+    protected void writePrefix() throws JspException, IOException {
+      tag.writeEncoderPrefix(mediaEncoder, optimized, outputType, containerType);
+    }
+  }
+
+  private static final Function<Writer, TagPrefixWriter> PREFIX_WRITER_FACTORY = TagPrefixWriter::new;
+
+  /**
+   * Tracks which classes use the default {@link #setMediaEncoderOptions(com.aoapps.encoding.MediaEncoder)}.
+   * Only these may share an {@link EncoderPipeline} with other tags, such as the same tag repeated in a loop.
+   */
+  private static final ClassValue<Boolean> IS_MEDIA_ENCODER_OPTIONS_DEFAULT = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      for (Class<?> c = type; c != EncodingNullTag.class; c = c.getSuperclass()) {
+        try {
+          c.getDeclaredMethod("setMediaEncoderOptions", MediaEncoder.class);
+          return false;
+        } catch (NoSuchMethodException e) {
+          // Continue to superclass
+        }
+      }
+      return true;
+    }
+  };
+
   /**
    * Gets the output type of this tag.  This is used to determine the correct
    * encoder.  If the tag never has any output this should return {@code null}.
@@ -74,6 +124,8 @@ public abstract class EncodingNullTag extends SimpleTagSupport {
   @Override
   public void doTag() throws JspException, IOException {
     final PageContext pageContext = (PageContext) getJspContext();
+    final TagMetrics metrics = TagMetrics.getInstance(pageContext.getServletContext());
+    metrics.invoked(getClass());
     final HttpServletRequest request = (HttpServletRequest) pageContext.getRequest();
     final RequestEncodingContext parentEncodingContext = RequestEncodingContext.getCurrentContext(request);
     // The output type cannot be determined until the body of the tag is invoked, because nested tags may
@@ -109,6 +161,7 @@ public abstract class EncodingNullTag extends SimpleTagSupport {
       final MediaType containerType;
       final Writer containerValidator;
       final boolean isNewContainerValidator;
+      final ResponseContainer responseContainer;
       if (parentEncodingContext != null) {
         // Use the output type of the parent
         containerType = parentEncodingContext.contentType;
@@ -120,22 +173,19 @@ public abstract class EncodingNullTag extends SimpleTagSupport {
         // Already validated
         containerValidator = Coercion.optimize(directOut, null);
         isNewContainerValidator = false;
+        responseContainer = null;
         if (logger.isLoggable(Level.FINER)) {
           logger.finer("containerValidator from parentEncodingContext: " + containerValidator);
         }
       } else {
-        // Use the content type of the response
-        String responseContentType = response.getContentType();
-        // Default to XHTML: TODO: Is there a better way since can't set content type early in response then reset again...
-        if (responseContentType == null) {
-          responseContentType = MediaType.XHTML.getContentType();
-        }
-        containerType = MediaType.getMediaTypeForContentType(responseContentType);
+        // Use the content type of the response, resolved once per request and response content type
+        responseContainer = ResponseContainer.getInstance(request, response);
+        containerType = responseContainer.containerType;
         if (logger.isLoggable(Level.FINER)) {
-          logger.finer("containerType from responseContentType: " + containerType + " from " + responseContentType);
+          logger.finer("containerType from responseContentType: " + containerType + " from " + responseContainer.getResponseContentType());
         }
         // Need to add validator
-        containerValidator = MediaValidator.getMediaValidator(containerType, directOut);
+        containerValidator = responseContainer.getValidator(directOut);
         isNewContainerValidator = true;
         if (logger.isLoggable(Level.FINER)) {
           logger.finer("containerValidator from containerType: " + containerValidator + " from " + containerType);
@@ -146,44 +196,67 @@ public abstract class EncodingNullTag extends SimpleTagSupport {
       assert containerValidator == Coercion.optimize(containerValidator, null);
       writePrefix(containerType, containerValidator);
 
-      // Find the encoder
-      EncodingContext encodingContext = new EncodingContextEE(pageContext.getServletContext(), request, response);
-      MediaEncoder mediaEncoder = MediaEncoder.getInstance(encodingContext, newOutputType, containerType);
-      if (mediaEncoder != null) {
+      final long startNanos = System.nanoTime();
+
+      // Find the encoder, skipping the lookup when the types are known to not require one
+      final EncoderPipeline pipeline;
+      if (MediaEncoderTable.isEncoderRequired(newOutputType, containerType)) {
+        pipeline = EncoderPipeline.acquire(
+            pageContext.getServletContext(),
+            request,
+            response,
+            newOutputType,
+            containerType,
+            containerValidator,
+            responseContainer != null && responseContainer.isShared(containerValidator),
+            PREFIX_WRITER_FACTORY,
+            IS_MEDIA_ENCODER_OPTIONS_DEFAULT.get(getClass()) ? null : this::setMediaEncoderOptions
+        );
+      } else {
+        pipeline = null;
+      }
+      if (pipeline != null) {
+        final MediaEncoder mediaEncoder = pipeline.mediaEncoder;
         if (logger.isLoggable(Level.FINER)) {
           logger.finer("Using MediaEncoder: " + mediaEncoder);
         }
-        logger.finest("Setting encoder options");
-        setMediaEncoderOptions(mediaEncoder);
-        // Encode our output.  The encoder guarantees valid output for our parent.
-        Writer optimized = Coercion.optimize(containerValidator, mediaEncoder);
-        logger.finest("Writing encoder prefix");
-        writeEncoderPrefix(mediaEncoder, optimized);
+        final TagPrefixWriter prefixWriter = (TagPrefixWriter) pipeline.prefixWriter;
+        prefixWriter.tag = this;
+        prefixWriter.mediaEncoder = mediaEncoder;
+        prefixWriter.outputType = newOutputType;
+        prefixWriter.containerType = containerType;
         try {
-          MediaWriter mediaWriter = newOutputType.newMediaWriter(
-              encodingContext,
-              mediaEncoder,
-              optimized,
-              true,
-              null,
-              MediaWriter.DEFAULT_IS_NO_CLOSE,
-              MediaWriter.DEFAULT_CLOSER
-          );
-          RequestEncodingContext.setCurrentContext(
-              request,
-              new RequestEncodingContext(newOutputType, mediaWriter)
-          );
+          // Encode our output.  The encoder guarantees valid output for our parent.
+          logger.finest("Writing encoder prefix");
+          prefixWriter.ensurePrefix();
           try {
-            assert mediaWriter == Coercion.optimize(mediaWriter, null);
-            doTag(mediaWriter);
+            LiteralEncodings.Literal literal = getLiteral(newOutputType);
+            if (literal != null && pipeline.shared) {
+              // Write the literal as previously encoded by this same encoder
+              pipeline.optimized.write(literal.getEncoded(mediaEncoder, containerType));
+            } else {
+              MediaWriter mediaWriter = pipeline.mediaWriter;
+              RequestEncodingContext.setCurrentContext(request, pipeline.requestEncodingContext);
+              try {
+                assert mediaWriter == Coercion.optimize(mediaWriter, null);
+                doTag(mediaWriter);
+              } finally {
+                // Restore previous encoding context that is used for our output
+                RequestEncodingContext.setCurrentContext(request, parentEncodingContext);
+              }
+            }
           } finally {
-            // Restore previous encoding context that is used for our output
-            RequestEncodingContext.setCurrentContext(request, parentEncodingContext);
+            logger.finest("Writing encoder suffix");
+            writeEncoderSuffix(mediaEncoder, pipeline.optimized, newOutputType, containerType);
           }
         } finally {
-          logger.finest("Writing encoder suffix");
-          writeEncoderSuffix(mediaEncoder, optimized, newOutputType.getTrimBuffer());
+          prefixWriter.tag = null;
+          prefixWriter.mediaEncoder = null;
+          prefixWriter.outputType = null;
+          prefixWriter.containerType = null;
+          pipeline.release();
         }
+        metrics.encoded(System.nanoTime() - startNanos);
       } else {
         // If parentValidMediaInput exists and is validating our output type, no additional validation is required
         if (
@@ -195,7 +268,7 @@ public abstract class EncodingNullTag extends SimpleTagSupport {
           }
           RequestEncodingContext.setCurrentContext(
               request,
-              new RequestEncodingContext(newOutputType, parentEncodingContext.validMediaInput)
+              new RequestEncodingContext(newOutputType, parentEncodingContext.validMediaInput, parentEncodingContext.unvalidatedOut)
           );
           try {
             assert containerValidator == Coercion.optimize(containerValidator, null);
@@ -203,23 +276,31 @@ public abstract class EncodingNullTag extends SimpleTagSupport {
           } finally {
             RequestEncodingContext.setCurrentContext(request, parentEncodingContext);
           }
+          metrics.passedThrough();
         } else {
-          // Not using an encoder and parent doesn't validate our output, validate our own output.
-          MediaValidator validator = MediaValidator.getMediaValidator(newOutputType, containerValidator);
-          if (logger.isLoggable(Level.FINER)) {
-            logger.finer("Using MediaValidator: " + validator);
-          }
-          RequestEncodingContext.setCurrentContext(
-              request,
-              new RequestEncodingContext(newOutputType, validator)
-          );
-          try {
-            assert validator == Coercion.optimize(validator, null);
-            doTag(validator);
-            validator.validate(newOutputType.getTrimBuffer());
-          } finally {
-            RequestEncodingContext.setCurrentContext(request, parentEncodingContext);
+          LiteralEncodings.Literal literal = getLiteral(newOutputType);
+          if (literal != null && literal.isValid()) {
+            // Write the literal as previously validated
+            containerValidator.write(literal.getValue());
+          } else {
+            // Not using an encoder and parent doesn't validate our output, validate our own output.
+            MediaValidator validator = MediaValidator.getMediaValidator(newOutputType, containerValidator);
+            if (logger.isLoggable(Level.FINER)) {
+              logger.finer("Using MediaValidator: " + validator);
+            }
+            RequestEncodingContext.setCurrentContext(
+                request,
+                new RequestEncodingContext(newOutputType, validator)
+            );
+            try {
+              assert validator == Coercion.optimize(validator, null);
+              doTag(validator);
+              validate(validator, newOutputType);
+            } finally {
+              RequestEncodingContext.setCurrentContext(request, parentEncodingContext);
+            }
           }
+          metrics.validated(System.nanoTime() - startNanos);
         }
       }
 
@@ -227,11 +308,33 @@ public abstract class EncodingNullTag extends SimpleTagSupport {
       assert containerValidator == Coercion.optimize(containerValidator, null);
       writeSuffix(containerType, containerValidator);
       if (isNewContainerValidator) {
-        ((MediaValidator) containerValidator).validate(containerType.getTrimBuffer());
+        validate((MediaValidator) containerValidator, containerType);
+        responseContainer.release((MediaValidator) containerValidator);
       }
     }
   }
 
+  /**
+   * Gets the registered literal for the {@linkplain #getLiteralValue() literal value} of this tag.
+   */
+  private LiteralEncodings.Literal getLiteral(MediaType outputType) {
+    String literalValue = getLiteralValue();
+    return (literalValue == null) ? null : LiteralEncodings.getLiteral(literalValue, outputType);
+  }
+
+  /**
+   * Gets the output of this tag when it is a literal known at translation time, such as a literal attribute value.
+   * When the literal has been registered by the tag extra info, its encoded or validated form is cached and written
+   * in place of calling {@link #doTag(java.io.Writer)}.  Otherwise, {@link #doTag(java.io.Writer)} is called as usual.
+   *
+   * <p>When non-null, the value must be exactly what {@link #doTag(java.io.Writer)} would write in the output type.</p>
+   *
+   * <p>This default implementation returns {@code null}.</p>
+   */
+  protected String getLiteralValue() {
+    return null;
+  }
+
   /**
    * Invokes the body.  This is only called when a body exists.  Subclasses may override this to perform
    * actions before and/or after invoking the body.  Any overriding implementation should call
@@ -248,6 +351,33 @@ public abstract class EncodingNullTag extends SimpleTagSupport {
     body.invoke(NullWriter.getInstance());
   }
 
+  /**
+   * Writes the encoder prefix, recording an {@link EncoderEvent}.
+   */
+  private void writeEncoderPrefix(MediaEncoder mediaEncoder, Writer out, MediaType outputType, MediaType containerType) throws JspException, IOException {
+    EncoderEvent event = EncoderEvent.start();
+    writeEncoderPrefix(mediaEncoder, out);
+    event.commit(getClass(), EncoderEvent.PREFIX, outputType, containerType);
+  }
+
+  /**
+   * Writes the encoder suffix, recording an {@link EncoderEvent}.
+   */
+  private void writeEncoderSuffix(MediaEncoder mediaEncoder, Writer out, MediaType outputType, MediaType containerType) throws JspException, IOException {
+    EncoderEvent event = EncoderEvent.start();
+    writeEncoderSuffix(mediaEncoder, out, outputType.getTrimBuffer());
+    event.commit(getClass(), EncoderEvent.SUFFIX, outputType, containerType);
+  }
+
+  /**
+   * Performs the final validation, recording a {@link ValidateEvent}.
+   */
+  private void validate(MediaValidator validator, MediaType mediaType) throws IOException {
+    ValidateEvent event = ValidateEvent.start();
+    validator.validate(mediaType.getTrimBuffer());
+    event.commit(getClass(), mediaType);
+  }
+
   /**
    * Writes any prefix in the container's media type.
    * The output must be valid for the provided type.
@@ -1,6 +1,6 @@
 /*
  * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
- * Copyright (C) 2013, 2015, 2016, 2017, 2019, 2020, 2021, 2022, 2023, 2024, 2025  AO Industries, Inc.
+ * Copyright (C) 2013, 2015, 2016, 2017, 2019, 2020, 2021, 2022, 2023, 2024, 2025, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -24,18 +24,18 @@
 package com.aoapps.encoding.taglib;
 
 import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.taglib.impl.MediaTypeCache;
+import com.aoapps.encoding.taglib.impl.ValueWriter;
 import com.aoapps.hodgepodge.i18n.BundleLookupMarkup;
 import com.aoapps.hodgepodge.i18n.BundleLookupThreadContext;
 import com.aoapps.hodgepodge.i18n.MarkupType;
 import com.aoapps.lang.Coercion;
-import com.aoapps.lang.io.Writable;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import javax.el.ELContext;
 import javax.el.ValueExpression;
 import javax.servlet.jsp.JspException;
-import org.w3c.dom.Node;
 
 /**
  * @author  AO Industries, Inc.
@@ -104,17 +104,17 @@ public class OutTag extends EncodingNullTag {
   private MediaType mediaType;
 
   public void setType(Object type) {
+    if (type instanceof MediaType) {
+      this.mediaType = (MediaType) type;
+      return;
+    }
     type = Coercion.trimNullIfEmpty(type);
     String typeStr = (type == null) ? null : Coercion.toString(type);
-    MediaType newMediaType = MediaType.getMediaTypeByName(typeStr);
-    if (newMediaType == null) {
-      try {
-        newMediaType = MediaType.getMediaTypeForContentType(typeStr);
-      } catch (UnsupportedEncodingException e) {
-        throw new IllegalArgumentException(e);
-      }
+    try {
+      this.mediaType = MediaTypeCache.getMediaType(typeStr);
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalArgumentException(e);
     }
-    this.mediaType = newMediaType;
   }
 
   private MarkupType markupType;
@@ -142,14 +142,7 @@ public class OutTag extends EncodingNullTag {
           markupType != null
               && markupType != MarkupType.NONE
               && (threadContext = BundleLookupThreadContext.getThreadContext()) != null
-              // Avoid intermediate String from Writable
-              && (
-              !(effectiveValue instanceof Writable)
-                  || ((Writable) effectiveValue).isFastToString()
-            )
-              // Other types that will not be converted to String for bundle lookups
-              && !(value instanceof char[])
-              && !(value instanceof Node)
+              && ValueWriter.isLookupCandidate(effectiveValue)
       ) {
         toStringResult = Coercion.toString(effectiveValue);
         // Look for any message markup
@@ -171,11 +164,11 @@ public class OutTag extends EncodingNullTag {
     if (toStringResult != null) {
       out.write(toStringResult);
     } else if (value != null) {
-      Coercion.write(value, out, true);
+      ValueWriter.write(value, out);
     } else {
       Object myDefault = getDefault();
       if (myDefault != null) {
-        Coercion.write(myDefault, out, true);
+        ValueWriter.write(myDefault, out);
       }
     }
     /* BodyTag only:
@@ -183,6 +176,14 @@ public class OutTag extends EncodingNullTag {
   /**/
   }
 
+  /**
+   * Literal values are registered by {@link OutTagTEI}, allowing their encoded form to be reused.
+   */
+  @Override
+  protected String getLiteralValue() {
+    return (value instanceof String) ? (String) value : null;
+  }
+
   @Override
   protected void writeSuffix(MediaType containerType, Writer out) throws JspException, IOException {
     if (lookupMarkup != null) {
@@ -1,6 +1,6 @@
 /*
  * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
- * Copyright (C) 2013, 2016, 2017, 2018, 2020, 2021, 2022, 2025  AO Industries, Inc.
+ * Copyright (C) 2013, 2016, 2017, 2018, 2020, 2021, 2022, 2025, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -24,12 +24,20 @@
 package com.aoapps.encoding.taglib;
 
 import com.aoapps.collections.MinimalList;
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.taglib.impl.LiteralEncodings;
+import com.aoapps.encoding.taglib.impl.MediaTypeCache;
+import com.aoapps.lang.Strings;
+import java.io.UnsupportedEncodingException;
 import java.util.List;
 import javax.servlet.jsp.tagext.TagData;
 import javax.servlet.jsp.tagext.TagExtraInfo;
 import javax.servlet.jsp.tagext.ValidationMessage;
 
 /**
+ * Validates the type and registers literal values with literal types, so their encoded form may be reused at
+ * runtime by tags in the same JVM.
+ *
  * @author  AO Industries, Inc.
  */
 public class OutTagTEI extends TagExtraInfo {
@@ -38,6 +46,34 @@ public class OutTagTEI extends TagExtraInfo {
   public ValidationMessage[] validate(TagData data) {
     List<ValidationMessage> messages = MinimalList.emptyList();
     messages = TeiUtils.validateMediaType(data, messages);
+    if (messages.isEmpty()) {
+      registerLiteral(data);
+    }
     return messages.isEmpty() ? null : messages.toArray(ValidationMessage[]::new);
   }
+
+  /**
+   * Registers the value when both it and the type are literals.
+   */
+  private static void registerLiteral(TagData data) {
+    Object valueAttr = data.getAttribute("value");
+    if (valueAttr instanceof String) {
+      Object typeAttr = data.getAttribute("type");
+      if (typeAttr != TagData.REQUEST_TIME_VALUE) {
+        MediaType outputType;
+        if (typeAttr == null) {
+          // Default type of OutTag
+          outputType = MediaType.TEXT;
+        } else {
+          try {
+            outputType = MediaTypeCache.getMediaType(Strings.trimNullIfEmpty((String) typeAttr));
+          } catch (UnsupportedEncodingException e) {
+            // Already reported by validateMediaType
+            return;
+          }
+        }
+        LiteralEncodings.register((String) valueAttr, outputType);
+      }
+    }
+  }
 }
@@ -0,0 +1,258 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib;
+
+import com.aoapps.encoding.taglib.impl.RegionExecutors;
+import com.aoapps.encoding.taglib.impl.RequestEncodingContext;
+import com.aoapps.io.buffer.BufferWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRequest;
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.JspTagException;
+import javax.servlet.jsp.JspWriter;
+import javax.servlet.jsp.PageContext;
+import javax.servlet.jsp.tagext.JspFragment;
+import javax.servlet.jsp.tagext.SimpleTagSupport;
+
+/**
+ * Runs the tasks of its nested {@link RegionTag regions} concurrently, then renders the regions in document order.
+ *
+ * <p>The body is invoked once.  Each region starts its task as it is reached, and any other output of the body is
+ * captured.  Once the body completes, the captured output and the regions are written in document order, each
+ * region waiting for its task then rendering its own body.</p>
+ *
+ * <p>Only regions directly within the body are deferred.  A region within an encoding tag or any other tag that
+ * captures its body, such as <code>&lt;ao:javascript&gt;</code> or <code>&lt;c:set&gt;</code>, is rendered in
+ * place with its task run on the request thread, since its output must pass through the enclosing tag in document
+ * order.</p>
+ *
+ * <p>Since the bodies of the regions are rendered after the body of this tag has completed, they must not depend on
+ * variables that change within the body, such as the loop variable of an enclosing <code>&lt;c:forEach&gt;</code>
+ * within this tag.  Pass any such values through the task, whose result is available in the <code>var</code> of the
+ * region.</p>
+ *
+ * <p>Only the tasks are run off the request thread.  The JSP fragments of the regions share the
+ * {@link PageContext} and request of the page, which are not thread-safe, so they are always invoked on the request
+ * thread, each region being captured and validated with its own encoding context.  Tasks must not access the
+ * request, response, or page.</p>
+ *
+ * <p>Tasks are run on the {@link Executor} found in the application attribute {@link #EXECUTOR_APPLICATION_ATTRIBUTE},
+ * when set.  Otherwise, tasks are run on a default executor of the web application, using virtual threads when
+ * available, which is shut down when the web application is stopped.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class ParallelTag extends SimpleTagSupport {
+
+  /**
+   * The name of the application-scope attribute that may contain the {@link Executor} used to run region tasks.
+   */
+  public static final String EXECUTOR_APPLICATION_ATTRIBUTE = ParallelTag.class.getName() + ".executor";
+
+  /**
+   * Gets the executor for the given application.
+   */
+  static Executor getExecutor(ServletContext servletContext) {
+    Object executor = servletContext.getAttribute(EXECUTOR_APPLICATION_ATTRIBUTE);
+    return (executor != null) ? (Executor) executor : RegionExecutors.getInstance(servletContext);
+  }
+
+  /**
+   * Gets the result of a task, unwrapping any exception.
+   */
+  static Object getResult(Future<?> future) throws JspException, IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      // Restore the interrupted status
+      Thread.currentThread().interrupt();
+      throw new JspTagException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof JspException) {
+        throw (JspException) cause;
+      }
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new JspTagException(cause);
+    }
+  }
+
+  /**
+   * A region reached in the body, with the output of the body preceding it.
+   */
+  private static final class Region {
+
+    /**
+     * The closed buffer of the output preceding the region.
+     */
+    private final BufferWriter before;
+    private final RegionTag tag;
+    private final Future<?> task;
+
+    private Region(BufferWriter before, RegionTag tag, Future<?> task) {
+      this.before = before;
+      this.tag = tag;
+      this.task = task;
+    }
+  }
+
+  /**
+   * The regions reached in the body, in document order.
+   * {@code null} when not in {@link #doTag()}.
+   */
+  private List<Region> regions;
+
+  /**
+   * Captures the output of the body since the last region.
+   */
+  private BufferWriter segment;
+
+  /**
+   * The encoding context when the body was invoked.
+   */
+  private RequestEncodingContext encodingContext;
+
+  /**
+   * The writer of the body.
+   * {@code null} when not in {@link #doTag()}.
+   */
+  private JspWriter bodyOut;
+
+  @Override
+  public void doTag() throws JspException, IOException {
+    JspFragment body = getJspBody();
+    if (body != null) {
+      PageContext pageContext = (PageContext) getJspContext();
+      ServletRequest request = pageContext.getRequest();
+      encodingContext = RequestEncodingContext.getCurrentContext(request);
+      regions = new ArrayList<>();
+      try {
+        segment = EncodingBufferedTag.newBufferWriter(request);
+        // Delegates to the current segment, which is replaced at each region
+        bodyOut = pageContext.pushBody(
+            new Writer() {
+              @Override
+              public void write(int c) throws IOException {
+                segment.write(c);
+              }
+
+              @Override
+              public void write(char[] cbuf, int off, int len) throws IOException {
+                segment.write(cbuf, off, len);
+              }
+
+              @Override
+              public void write(String str, int off, int len) throws IOException {
+                segment.write(str, off, len);
+              }
+
+              @Override
+              public void flush() {
+                // Nothing to flush
+              }
+
+              @Override
+              public void close() {
+                // Closed at each region
+              }
+            }
+        );
+        try {
+          body.invoke(null);
+        } finally {
+          pageContext.popBody();
+          bodyOut = null;
+        }
+        segment.close();
+        BufferWriter after = segment;
+        segment = null;
+        // Render in document order, releasing each buffer once written
+        JspWriter out = pageContext.getOut();
+        for (Region region : regions) {
+          region.before.getResult().writeTo(out);
+          EncodingBufferedTag.releaseBufferWriter(request, region.before);
+          region.tag.render(region.task);
+        }
+        after.getResult().writeTo(out);
+        EncodingBufferedTag.releaseBufferWriter(request, after);
+      } finally {
+        // Stop any tasks not used, such as when rendering failed
+        for (Region region : regions) {
+          if (region.task != null) {
+            region.task.cancel(true);
+          }
+          EncodingBufferedTag.releaseBufferWriter(request, region.before);
+        }
+        regions = null;
+        encodingContext = null;
+        if (segment != null) {
+          segment.close();
+          EncodingBufferedTag.releaseBufferWriter(request, segment);
+          segment = null;
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks if a region is directly within the body, without any tag between that changes the encoding context or
+   * captures the output.  Only these regions may be deferred.
+   */
+  boolean isDirect() {
+    PageContext pageContext = (PageContext) getJspContext();
+    return
+        bodyOut != null
+            && pageContext.getOut() == bodyOut
+            && RequestEncodingContext.getCurrentContext(pageContext.getRequest()) == encodingContext;
+  }
+
+  /**
+   * Starts the task of a region reached in the body, deferring its rendering until the body has completed.
+   *
+   * @param  task  the task or {@code null} when the region has no task
+   */
+  void addRegion(RegionTag tag, Callable<?> task) throws IOException {
+    FutureTask<?> future;
+    if (task == null) {
+      future = null;
+    } else {
+      future = new FutureTask<>(task);
+      getExecutor(((PageContext) getJspContext()).getServletContext()).execute(future);
+    }
+    segment.close();
+    regions.add(new Region(segment, tag, future));
+    segment = EncodingBufferedTag.newBufferWriter(((PageContext) getJspContext()).getRequest());
+  }
+}
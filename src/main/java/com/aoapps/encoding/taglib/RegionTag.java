@@ -0,0 +1,154 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib;
+
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.taglib.impl.MediaTypeCache;
+import com.aoapps.io.buffer.BufferResult;
+import com.aoapps.lang.Coercion;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.JspTagException;
+import javax.servlet.jsp.tagext.JspTag;
+
+/**
+ * A region of a {@link ParallelTag}, with a task run concurrently with the tasks of the other regions.  The body is
+ * captured and validated in its own encoding context, then written in document order.
+ *
+ * <p>The result of the task is made available to the body in the page-scope variable named by <code>var</code>.
+ * Outside of a {@link ParallelTag}, or when within another tag inside of it, the task is run directly on the request
+ * thread.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class RegionTag extends EncodingBufferedTag {
+
+  @Override
+  public MediaType getContentType() {
+    return mediaType;
+  }
+
+  @Override
+  public MediaType getOutputType() {
+    return mediaType;
+  }
+
+  private MediaType mediaType;
+
+  public void setType(Object type) {
+    if (type instanceof MediaType) {
+      this.mediaType = (MediaType) type;
+      return;
+    }
+    type = Coercion.trimNullIfEmpty(type);
+    String typeStr = (type == null) ? null : Coercion.toString(type);
+    try {
+      this.mediaType = MediaTypeCache.getMediaType(typeStr);
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  private Callable<?> task;
+
+  public void setTask(Callable<?> task) {
+    this.task = task;
+  }
+
+  private String var;
+
+  public void setVar(String var) {
+    this.var = var;
+  }
+
+  /**
+   * Gets the parallel tag this region belongs to.  Regions nested within other regions do not belong to the
+   * parallel tag, since their enclosing region is only rendered after the body of the parallel tag has completed.
+   * Regions within another tag that changes the encoding context or captures the output do not belong to the
+   * parallel tag either, since their output must pass through the enclosing tag in document order.
+   *
+   * @return  the parallel tag or {@code null} when none
+   */
+  private ParallelTag getParallel() {
+    ParallelTag parallel = (ParallelTag) findAncestorWithClass(this, ParallelTag.class);
+    if (parallel != null) {
+      JspTag region = findAncestorWithClass(this, RegionTag.class);
+      if (region != null && findAncestorWithClass(region, ParallelTag.class) == parallel) {
+        // Nested within another region of the same parallel tag
+        return null;
+      }
+      if (!parallel.isDirect()) {
+        // Within an encoding or capturing tag
+        return null;
+      }
+    }
+    return parallel;
+  }
+
+  @Override
+  public void doTag() throws JspException, IOException {
+    ParallelTag parallel = getParallel();
+    if (parallel != null) {
+      // Rendered once the body of the parallel tag has completed
+      parallel.addRegion(this, task);
+    } else {
+      render(null);
+    }
+  }
+
+  /**
+   * Renders this region once its task has completed.
+   *
+   * @param  future  the task started by the parallel tag or {@code null} to run the task directly
+   */
+  void render(Future<?> future) throws JspException, IOException {
+    Object result;
+    if (future != null) {
+      result = ParallelTag.getResult(future);
+    } else if (task != null) {
+      try {
+        result = task.call();
+      } catch (JspException | IOException | RuntimeException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new JspTagException(e);
+      }
+    } else {
+      result = null;
+    }
+    if (var != null) {
+      getJspContext().setAttribute(var, result);
+    }
+    super.doTag();
+  }
+
+  @Override
+  protected void doTag(BufferResult capturedBody, Writer out) throws JspException, IOException {
+    capturedBody.writeTo(out);
+  }
+}
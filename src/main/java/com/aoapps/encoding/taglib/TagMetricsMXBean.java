@@ -0,0 +1,100 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib;
+
+import java.util.Map;
+
+/**
+ * Management interface for the encoding activity of the tags within a single web application.  Registered as
+ * {@code com.aoapps.encoding.taglib:type=TagMetrics,host=<virtual server>,context=<context path>}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public interface TagMetricsMXBean {
+
+  /**
+   * Gets the number of invocations per tag class name.
+   */
+  Map<String, Long> getInvocations();
+
+  /**
+   * Gets the number of bodies captured by buffered tags.
+   */
+  long getCaptures();
+
+  /**
+   * Gets the total number of characters captured by buffered tags.
+   */
+  long getCapturedCharacters();
+
+  /**
+   * Gets the number of captures that exceeded their temp file threshold.
+   */
+  long getTempFileSpills();
+
+  /**
+   * Gets the number of times output was encoded for its container.
+   */
+  long getEncoderPaths();
+
+  /**
+   * Gets the number of times output was validated without encoding.
+   */
+  long getValidatorPaths();
+
+  /**
+   * Gets the number of times output passed-through to a validating parent.
+   */
+  long getPassThroughPaths();
+
+  /**
+   * Gets the total nanoseconds spent in tags writing encoded output.
+   */
+  long getEncodeNanos();
+
+  /**
+   * Gets the total nanoseconds spent in tags writing validated output.
+   */
+  long getValidateNanos();
+
+  /**
+   * Gets the number of times cached output was written without invoking the body.
+   */
+  long getCacheHits();
+
+  /**
+   * Gets the number of times output was not cached.
+   */
+  long getCacheMisses();
+
+  /**
+   * Gets the number of cached outputs evicted to stay within the memory bound.
+   */
+  long getCacheEvictions();
+
+  /**
+   * Resets all counters to zero.
+   */
+  void reset();
+}
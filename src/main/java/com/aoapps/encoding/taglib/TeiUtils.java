@@ -1,6 +1,6 @@
 /*
  * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
- * Copyright (C) 2013, 2015, 2016, 2017, 2019, 2020, 2021, 2022  AO Industries, Inc.
+ * Copyright (C) 2013, 2015, 2016, 2017, 2019, 2020, 2021, 2022, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -25,6 +25,7 @@ package com.aoapps.encoding.taglib;
 
 import com.aoapps.collections.MinimalList;
 import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.taglib.impl.MediaTypeCache;
 import com.aoapps.lang.Strings;
 import java.io.UnsupportedEncodingException;
 import java.util.List;
@@ -45,7 +46,7 @@ public final class TeiUtils {
   }
 
   /**
-   * Checks that a type is a valid MediaType.
+   * Checks that a type is a valid MediaType.  Literal types are added to the cache used by the tags at runtime.
    *
    * @param  messages  the list of messages to add to, maybe <code>null</code>
    *
@@ -64,13 +65,9 @@ public final class TeiUtils {
       String type = Strings.trimNullIfEmpty((String) typeAttr); // TODO: normalizeType
       if (type != null) {
         try {
-          // First allow shortcuts (matching enum names)
-          MediaType mediaType = MediaType.getMediaTypeByName(type);
-          if (mediaType == null) {
-            // Return value not used: valdation only:
-            mediaType = MediaType.getMediaTypeForContentType(type);
-            assert mediaType != null;
-          }
+          // Resolved through the cache, so tags translated in the same JVM find their literal type already parsed
+          MediaType mediaType = MediaTypeCache.getMediaType(type);
+          assert mediaType != null;
           // Value is OK
         } catch (UnsupportedEncodingException err) {
           messages = MinimalList.add(
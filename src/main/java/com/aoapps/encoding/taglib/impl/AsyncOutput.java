@@ -0,0 +1,258 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.io.buffer.BufferResult;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.jsp.JspWriter;
+import javax.servlet.jsp.tagext.BodyContent;
+
+/**
+ * Writes the final output of a response without blocking, through a {@link WriteListener}.  The request thread is
+ * released while the output drains to the client, and the {@link AsyncContext} is completed once written.
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class AsyncOutput implements WriteListener {
+
+  private static final Logger logger = Logger.getLogger(AsyncOutput.class.getName());
+
+  /**
+   * The number of characters encoded at a time.
+   */
+  private static final int CHUNK_SIZE = 8192;
+
+  /**
+   * Checks if asynchronous output is possible for a response, without any side effects.  This is only possible when
+   * all of the following hold:
+   *
+   * <ol>
+   * <li>The request is a {@link DispatcherType#REQUEST} dispatch, not an include or forward</li>
+   * <li>Asynchronous processing is supported and not already started, so the {@link AsyncContext} is not owned
+   *     by the application</li>
+   * <li>The response has not been committed</li>
+   * <li>The page writer is not a {@link BodyContent}, such as within <code>&lt;c:set&gt;</code>, a classic
+   *     {@link javax.servlet.jsp.tagext.BodyTag}, or a fragment invoked into a writer, since its output is captured
+   *     by the enclosing tag instead of being written to the response</li>
+   * <li>Nothing is buffered in the page writer</li>
+   * </ol>
+   *
+   * <p>The output stream may still be unavailable, in which case {@link #write(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.aoapps.io.buffer.BufferResult)}
+   * returns {@code false}.</p>
+   */
+  public static boolean isPossible(HttpServletRequest request, HttpServletResponse response, JspWriter pageOut) {
+    return
+        request.getDispatcherType() == DispatcherType.REQUEST
+            && !request.isAsyncStarted()
+            && request.isAsyncSupported()
+            && !response.isCommitted()
+            && !(pageOut instanceof BodyContent)
+            && pageOut.getBufferSize() == pageOut.getRemaining();
+  }
+
+  /**
+   * Writes the final output of a response, which has already been fully rendered.  Asynchronous processing is only
+   * started once the output stream is obtained, and the {@link AsyncContext} is completed on every failure.
+   *
+   * <p>Once returned {@code true}, the output stream has been obtained and nothing more may be written to the
+   * response.</p>
+   *
+   * @return  {@code true} when the output is written, or {@code false} when the output stream is not available and
+   *          the output must be written normally
+   */
+  public static boolean write(HttpServletRequest request, HttpServletResponse response, BufferResult result) throws IOException {
+    ServletOutputStream out;
+    try {
+      out = response.getOutputStream();
+    } catch (IllegalStateException e) {
+      // Response writer already obtained
+      logger.finest("Output stream not available, writing normally");
+      return false;
+    }
+    Charset charset = Charset.forName(response.getCharacterEncoding());
+    AsyncContext asyncContext;
+    try {
+      asyncContext = request.startAsync(request, response);
+    } catch (IllegalStateException e) {
+      // Asynchronous processing not possible after all, write the output blocking
+      if (logger.isLoggable(Level.FINE)) {
+        logger.log(Level.FINE, "Unable to start asynchronous processing, writing blocking", e);
+      }
+      Writer writer = new OutputStreamWriter(out, charset);
+      result.writeTo(writer);
+      writer.flush();
+      return true;
+    }
+    boolean started = false;
+    try {
+      AsyncOutput asyncOutput = new AsyncOutput(asyncContext, out, charset, result);
+      out.setWriteListener(asyncOutput);
+      started = true;
+    } finally {
+      if (!started) {
+        asyncContext.complete();
+      }
+    }
+    return true;
+  }
+
+  private final AsyncContext asyncContext;
+  private final ServletOutputStream out;
+  private final CharsetEncoder charsetEncoder;
+  private final char[] chars = new char[CHUNK_SIZE];
+  private final ByteBuffer bytes;
+  private final ChunkWriter chunkWriter = new ChunkWriter();
+  private final BufferResult result;
+  private long position;
+  private boolean completed;
+
+  private AsyncOutput(AsyncContext asyncContext, ServletOutputStream out, Charset charset, BufferResult result) {
+    this.asyncContext = asyncContext;
+    this.out = out;
+    this.result = result;
+    this.charsetEncoder = charset.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    this.bytes = ByteBuffer.allocate((int) Math.ceil(CHUNK_SIZE * (double) charsetEncoder.maxBytesPerChar()));
+    // Nothing encoded yet
+    this.bytes.limit(0);
+  }
+
+  /**
+   * Receives one chunk of characters from the result.
+   */
+  private final class ChunkWriter extends Writer {
+    private int len;
+
+    private void reset() {
+      len = 0;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int count) {
+      System.arraycopy(cbuf, off, chars, len, count);
+      len += count;
+    }
+
+    @Override
+    public void write(String str, int off, int count) {
+      str.getChars(off, off + count, chars, len);
+      len += count;
+    }
+
+    @Override
+    public void flush() {
+      // Nothing to flush
+    }
+
+    @Override
+    public void close() {
+      // Nothing to close
+    }
+  }
+
+  /**
+   * Encodes the next chunk of characters into {@link #bytes}.
+   *
+   * @return  {@code false} when all output has been encoded
+   */
+  private boolean encodeNext() throws IOException {
+    long length = result.getLength();
+    if (position >= length) {
+      return false;
+    }
+    int count = (int) Math.min(length - position, CHUNK_SIZE);
+    chunkWriter.reset();
+    result.writeTo(chunkWriter, position, count);
+    boolean endOfInput = position + count == length;
+    CharBuffer in = CharBuffer.wrap(chars, 0, count);
+    bytes.clear();
+    CoderResult coderResult = charsetEncoder.encode(in, bytes, endOfInput);
+    if (coderResult.isError()) {
+      coderResult.throwException();
+    }
+    if (endOfInput) {
+      charsetEncoder.flush(bytes);
+    }
+    bytes.flip();
+    // Any unencoded characters, such as the first half of a surrogate pair, are encoded with the next chunk
+    position += count - in.remaining();
+    return true;
+  }
+
+  /**
+   * Completes the asynchronous processing once, whether written or failed.
+   */
+  private void complete() {
+    if (!completed) {
+      completed = true;
+      asyncContext.complete();
+    }
+  }
+
+  @Override
+  public void onWritePossible() throws IOException {
+    boolean success = false;
+    try {
+      while (out.isReady()) {
+        if (!bytes.hasRemaining() && !encodeNext()) {
+          complete();
+          break;
+        }
+        out.write(bytes.array(), bytes.position(), bytes.remaining());
+        bytes.position(bytes.limit());
+      }
+      success = true;
+    } finally {
+      if (!success) {
+        // Failed to encode or write
+        complete();
+      }
+    }
+  }
+
+  @Override
+  public void onError(Throwable t) {
+    if (logger.isLoggable(Level.FINE)) {
+      logger.log(Level.FINE, "Asynchronous output failed", t);
+    }
+    complete();
+  }
+}
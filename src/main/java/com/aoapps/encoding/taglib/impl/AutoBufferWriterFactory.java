@@ -0,0 +1,65 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.encoding.taglib.BufferWriterFactory;
+import com.aoapps.io.buffer.BufferWriter;
+import com.aoapps.io.buffer.CharArrayBufferWriter;
+import com.aoapps.io.buffer.SegmentedWriter;
+import javax.servlet.ServletRequest;
+
+/**
+ * Captures into a {@link CharArrayBufferWriter}, or into a {@link SegmentedWriter} when a capture is expected to be
+ * long, avoiding the repeated growth and copying of a single array.  This is the default strategy.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class AutoBufferWriterFactory implements BufferWriterFactory {
+
+  public static final String NAME = BufferWriterFactory.DEFAULT_NAME;
+
+  /**
+   * The expected capture length at which a {@link SegmentedWriter} is used.
+   */
+  private static final long SEGMENTED_EXPECTED_LENGTH = 16L * 1024;
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public BufferWriter newBufferWriter(ServletRequest request, long tempFileThreshold) {
+    return BufferWriterFactories.autoTempFile(new CharArrayBufferWriter(), request, tempFileThreshold);
+  }
+
+  @Override
+  public BufferWriter newBufferWriter(ServletRequest request, long tempFileThreshold, long expectedLength) {
+    if (expectedLength >= SEGMENTED_EXPECTED_LENGTH) {
+      return BufferWriterFactories.autoTempFile(new SegmentedWriter(), request, tempFileThreshold);
+    }
+    return newBufferWriter(request, tempFileThreshold);
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.encoding.taglib.BufferWriterFactory;
+import com.aoapps.io.buffer.AutoTempFileWriter;
+import com.aoapps.io.buffer.BufferWriter;
+import com.aoapps.servlet.attribute.ScopeEE;
+import com.aoapps.tempfiles.servlet.TempFileContextEE;
+import java.util.ServiceLoader;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRequest;
+
+/**
+ * Locates the {@link BufferWriterFactory} selected for each web application.
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class BufferWriterFactories {
+
+  /** Make no instances. */
+  private BufferWriterFactories() {
+    throw new AssertionError();
+  }
+
+  private static final Logger logger = Logger.getLogger(BufferWriterFactories.class.getName());
+
+  private static final ScopeEE.Application.Attribute<BufferWriterFactory> APPLICATION_ATTRIBUTE =
+      ScopeEE.APPLICATION.attribute(BufferWriterFactories.class.getName());
+
+  /**
+   * Gets the factory selected by {@link BufferWriterFactory#INIT_PARAM}, defaulting to
+   * {@link BufferWriterFactory#DEFAULT_NAME}.  Factories are loaded by {@link ServiceLoader} from the context class
+   * loader on first use, and the selection is cached as an application-scope attribute.
+   *
+   * @throws  IllegalArgumentException  when no factory matches
+   */
+  public static BufferWriterFactory getInstance(ServletContext servletContext) throws IllegalArgumentException {
+    BufferWriterFactory factory = APPLICATION_ATTRIBUTE.context(servletContext).get();
+    if (factory == null) {
+      String selected = servletContext.getInitParameter(BufferWriterFactory.INIT_PARAM);
+      if (selected != null) {
+        selected = selected.trim();
+      }
+      if (selected == null || selected.isEmpty()) {
+        selected = BufferWriterFactory.DEFAULT_NAME;
+      }
+      for (BufferWriterFactory candidate : ServiceLoader.load(BufferWriterFactory.class)) {
+        if (logger.isLoggable(Level.FINER)) {
+          logger.finer("Found " + BufferWriterFactory.class.getSimpleName() + " \"" + candidate.getName() + "\": " + candidate.getClass().getName());
+        }
+        if (
+            selected.equals(candidate.getName())
+                || selected.equals(candidate.getClass().getName())
+        ) {
+          factory = candidate;
+          break;
+        }
+      }
+      if (factory == null) {
+        throw new IllegalArgumentException(
+            "No " + BufferWriterFactory.class.getSimpleName() + " found for context-param "
+                + BufferWriterFactory.INIT_PARAM + "=\"" + selected + '"'
+        );
+      }
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine("Using " + BufferWriterFactory.class.getSimpleName() + " \"" + factory.getName() + "\": " + factory.getClass().getName());
+      }
+      APPLICATION_ATTRIBUTE.context(servletContext).set(factory);
+    }
+    return factory;
+  }
+
+  /**
+   * Wraps the given buffer in an {@link AutoTempFileWriter} unless the threshold is {@link Long#MAX_VALUE}.
+   */
+  public static BufferWriter autoTempFile(BufferWriter bufferWriter, ServletRequest request, long tempFileThreshold) {
+    if (tempFileThreshold != Long.MAX_VALUE) {
+      bufferWriter = new AutoTempFileWriter(
+          bufferWriter,
+          TempFileContextEE.get(request),
+          tempFileThreshold
+      );
+    }
+    return bufferWriter;
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.encoding.MediaType;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for capturing the body of a buffered tag.
+ *
+ * <p>When flight recorder is not available, or the event is not enabled in any recording, a shared no-op instance
+ * is used without allocating or beginning an event.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class CaptureEvent {
+
+  private static final CaptureEvent NOT_RECORDED = new CaptureEvent(null);
+
+  /**
+   * Creates and begins a new event.
+   */
+  public static CaptureEvent start() {
+    if (!FlightRecorder.AVAILABLE || !Recorded.TYPE.isEnabled()) {
+      return NOT_RECORDED;
+    }
+    Recorded recorded = new Recorded();
+    recorded.begin();
+    return new CaptureEvent(recorded);
+  }
+
+  /**
+   * The flight recorder event, only loaded when flight recorder is available.
+   */
+  @Name("com.aoapps.encoding.taglib.Capture")
+  @Label("Body Capture")
+  @Category({"AO Apps", "Encoding Taglib"})
+  @Description("The body of a buffered tag invoked and captured")
+  private static final class Recorded extends Event {
+
+    /**
+     * The type of the event, checked for being enabled before allocating each event.
+     */
+    private static final EventType TYPE = EventType.getEventType(Recorded.class);
+
+    @Label("Tag Class")
+    private Class<?> tagClass;
+
+    @Label("Content Type")
+    private String contentType;
+
+    @Label("Characters")
+    @Description("The number of characters captured")
+    private long characters;
+
+    @Label("Temp File")
+    @Description("Whether the capture exceeded its temp file threshold")
+    private boolean tempFile;
+
+    private void commit(Class<?> tagClass, MediaType contentType, long characters, long tempFileThreshold) {
+      end();
+      if (shouldCommit()) {
+        this.tagClass = tagClass;
+        this.contentType = contentType.name();
+        this.characters = characters;
+        this.tempFile = characters > tempFileThreshold;
+        commit();
+      }
+    }
+  }
+
+  private final Recorded recorded;
+
+  private CaptureEvent(Recorded recorded) {
+    this.recorded = recorded;
+  }
+
+  /**
+   * Ends and commits the event when recording.
+   */
+  public void commit(Class<?> tagClass, MediaType contentType, long characters, long tempFileThreshold) {
+    if (recorded != null) {
+      recorded.commit(tagClass, contentType, characters, tempFileThreshold);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+/**
+ * Running statistics of the captured body lengths of a buffered tag class.  These are used to anticipate the length
+ * of the next capture, selecting an appropriate buffer and spilling to a temp file early when the capture is expected
+ * to exceed the temp file threshold.
+ *
+ * <p>Only an estimate of the 90th percentile is kept, using a frugal streaming quantile estimator: the estimate
+ * increases by one eighth when a capture is longer and decreases by one seventy-second when shorter, which settles
+ * where one in ten captures is longer.  Updates from concurrent requests may be lost, which only slows convergence.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class CaptureStatistics {
+
+  private static final ClassValue<CaptureStatistics> statistics = new ClassValue<CaptureStatistics>() {
+    @Override
+    protected CaptureStatistics computeValue(Class<?> type) {
+      return new CaptureStatistics();
+    }
+  };
+
+  /**
+   * Gets the statistics for the given tag class.
+   */
+  public static CaptureStatistics getInstance(Class<?> tagClass) {
+    return statistics.get(tagClass);
+  }
+
+  /**
+   * The number of captures recorded before the estimate is used.
+   */
+  private static final int WARMUP_COUNT = 16;
+
+  /**
+   * When the expected length reaches the temp file threshold, spill to a temp file once this fraction of the
+   * threshold has been buffered.
+   */
+  private static final int EARLY_SPILL_DIVISOR = 8;
+
+  private volatile long estimate;
+  private volatile int count;
+
+  private CaptureStatistics() {
+  }
+
+  /**
+   * Records the length of a completed capture.
+   */
+  public void record(long length) {
+    int c = count;
+    if (c < WARMUP_COUNT) {
+      count = c + 1;
+      if (c == 0) {
+        // Start from the first capture
+        estimate = length;
+        return;
+      }
+    }
+    long current = estimate;
+    if (length > current) {
+      estimate = current + Math.max(1, Math.min(length - current, (current >> 3) + 1));
+    } else if (length < current) {
+      estimate = current - Math.max(1, Math.min(current - length, current / 72));
+    }
+  }
+
+  /**
+   * Gets the expected length of the next capture, which is the estimated 90th percentile of recent captures.
+   *
+   * @return  the expected length or {@code -1} when not enough captures have been recorded
+   */
+  public long getExpectedLength() {
+    return (count < WARMUP_COUNT) ? -1 : estimate;
+  }
+
+  /**
+   * Gets the temp file threshold to use for the next capture, which is lowered when the capture is expected to
+   * exceed the given threshold.
+   */
+  public long getTempFileThreshold(long tempFileThreshold) {
+    if (tempFileThreshold != Long.MAX_VALUE) {
+      long expectedLength = getExpectedLength();
+      if (expectedLength >= tempFileThreshold) {
+        return tempFileThreshold / EARLY_SPILL_DIVISOR;
+      }
+    }
+    return tempFileThreshold;
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded, thread-safe pool of fixed-size character blocks used by {@link PooledBufferWriter} and
+ * {@link ValueWriter}.  Blocks beyond the capacity of the pool are left for garbage collection.
+ *
+ * @author  AO Industries, Inc.
+ */
+final class CharBlockPool {
+
+  /** Make no instances. */
+  private CharBlockPool() {
+    throw new AssertionError();
+  }
+
+  /**
+   * The number of characters in each block.
+   */
+  static final int BLOCK_SIZE = 4096;
+
+  /**
+   * The maximum number of idle blocks retained, 8 MiB of characters.
+   */
+  private static final int CAPACITY = 1024;
+
+  private static final BlockingQueue<char[]> pool = new ArrayBlockingQueue<>(CAPACITY);
+
+  /**
+   * Gets a block from the pool or allocates a new one.  The contents of the block are not cleared.
+   */
+  static char[] acquire() {
+    char[] block = pool.poll();
+    return (block == null) ? new char[BLOCK_SIZE] : block;
+  }
+
+  /**
+   * Returns a block to the pool, if not full.
+   */
+  static void release(char[] block) {
+    assert block.length == BLOCK_SIZE;
+    pool.offer(block);
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.security.MessageDigest;
+
+/**
+ * Updates a {@link MessageDigest} with all characters as they are written through to another writer, so the digest
+ * of the output is available without a second pass.  Characters are digested as UTF-16BE, independent of the
+ * eventual character encoding.
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class DigestingWriter extends Writer {
+
+  private static final int BLOCK_SIZE = 4096;
+
+  private final Writer out;
+  private final MessageDigest digest;
+  private final byte[] block = new byte[BLOCK_SIZE];
+  private int blockLen;
+
+  public DigestingWriter(Writer out, MessageDigest digest) {
+    this.out = out;
+    this.digest = digest;
+  }
+
+  private void update(char c) {
+    if (blockLen == BLOCK_SIZE) {
+      digest.update(block, 0, BLOCK_SIZE);
+      blockLen = 0;
+    }
+    block[blockLen++] = (byte) (c >> 8);
+    block[blockLen++] = (byte) c;
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    update((char) c);
+    out.write(c);
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    for (int i = off, end = off + len; i < end; i++) {
+      update(cbuf[i]);
+    }
+    out.write(cbuf, off, len);
+  }
+
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    for (int i = off, end = off + len; i < end; i++) {
+      update(str.charAt(i));
+    }
+    out.write(str, off, len);
+  }
+
+  @Override
+  public Writer append(CharSequence csq, int start, int end) throws IOException {
+    if (csq == null) {
+      csq = "null";
+    }
+    for (int i = start; i < end; i++) {
+      update(csq.charAt(i));
+    }
+    out.append(csq, start, end);
+    return this;
+  }
+
+  @Override
+  public Writer append(CharSequence csq) throws IOException {
+    if (csq == null) {
+      csq = "null";
+    }
+    return append(csq, 0, csq.length());
+  }
+
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+
+  /**
+   * Completes the digest of all characters written.  The digest is reset.
+   */
+  public byte[] digest() {
+    if (blockLen != 0) {
+      digest.update(block, 0, blockLen);
+      blockLen = 0;
+    }
+    return digest.digest();
+  }
+}
@@ -0,0 +1,264 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.servlet.attribute.ScopeEE;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import javax.servlet.jsp.JspWriter;
+import javax.servlet.jsp.PageContext;
+import javax.servlet.jsp.tagext.BodyContent;
+
+/**
+ * Encodes the characters written through {@link #getWriter()} directly onto the {@link ServletOutputStream}, so that
+ * output already encoded in the response charset may be written between them without being decoded and
+ * re-encoded.
+ *
+ * <p>The servlet API does not allow both {@link #getWriter()} and {@link #getOutputStream()} to be used, so this
+ * wrapper owns the charset encoding instead of the container.  Installed by
+ * {@link com.aoapps.encoding.taglib.ByteOutputFilter}.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class EncodedByteSink extends HttpServletResponseWrapper {
+
+  private static final ScopeEE.Request.Attribute<EncodedByteSink> REQUEST_ATTRIBUTE =
+      ScopeEE.REQUEST.attribute(EncodedByteSink.class.getName());
+
+  /**
+   * Gets the sink for the given request.
+   *
+   * @return  the sink or {@code null} when {@link com.aoapps.encoding.taglib.ByteOutputFilter} is not in use
+   */
+  public static EncodedByteSink getInstance(ServletRequest request) {
+    return REQUEST_ATTRIBUTE.context(request).get();
+  }
+
+  private final ServletRequest request;
+  private final EncodedByteSink previous;
+
+  /**
+   * When set, flushes encode pending characters without flushing the response.
+   */
+  private boolean suppressFlush;
+
+  private ServletOutputStream out;
+  private Charset charset;
+  private OutputStreamWriter encoder;
+  private PrintWriter writer;
+  private boolean outputStreamUsed;
+
+  /**
+   * Wraps the response, becoming the sink of the request until {@link #close()}.
+   */
+  public EncodedByteSink(ServletRequest request, HttpServletResponse response) {
+    super(response);
+    this.request = request;
+    this.previous = getInstance(request);
+    REQUEST_ATTRIBUTE.context(request).set(this);
+  }
+
+  private OutputStreamWriter getEncoder() {
+    if (encoder == null) {
+      encoder = new OutputStreamWriter(
+          new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+              out.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+              if (!suppressFlush) {
+                out.flush();
+              }
+            }
+          },
+          charset
+      );
+    }
+    return encoder;
+  }
+
+  @Override
+  public PrintWriter getWriter() throws IOException {
+    if (outputStreamUsed) {
+      throw new IllegalStateException("getOutputStream() has already been called");
+    }
+    if (writer == null) {
+      // The charset is fixed once the writer is obtained
+      charset = Charset.forName(getCharacterEncoding());
+      out = super.getOutputStream();
+      // Delegates to the current encoder, which is replaced on reset
+      writer = new PrintWriter(
+          new Writer() {
+            @Override
+            public void write(int c) throws IOException {
+              getEncoder().write(c);
+            }
+
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+              getEncoder().write(cbuf, off, len);
+            }
+
+            @Override
+            public void write(String str, int off, int len) throws IOException {
+              getEncoder().write(str, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+              if (encoder != null) {
+                encoder.flush();
+              } else if (!suppressFlush) {
+                out.flush();
+              }
+            }
+
+            @Override
+            public void close() throws IOException {
+              flush();
+            }
+          }
+      );
+    }
+    return writer;
+  }
+
+  @Override
+  public ServletOutputStream getOutputStream() throws IOException {
+    if (writer != null) {
+      throw new IllegalStateException("getWriter() has already been called");
+    }
+    outputStreamUsed = true;
+    return super.getOutputStream();
+  }
+
+  @Override
+  public void flushBuffer() throws IOException {
+    if (writer != null) {
+      writer.flush();
+    }
+    if (!suppressFlush) {
+      super.flushBuffer();
+    }
+  }
+
+  @Override
+  public void resetBuffer() {
+    super.resetBuffer();
+    discard();
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    discard();
+  }
+
+  /**
+   * Discards the encoder on reset, since the bytes pending in the encoder are part of the reset buffer.
+   */
+  private void discard() {
+    encoder = null;
+  }
+
+  /**
+   * Writes bytes, already encoded in the given charset, between the characters written by the page.  This is only
+   * possible when the page writes directly to this response, the response charset matches, no body content is
+   * being captured, and nothing is buffered in the page writer.
+   *
+   * <p>The page writer is never flushed here, since flushing commits its buffer: on Jasper, a later
+   * {@link JspWriter#clearBuffer()}, forward, or error page would then fail with an {@link IllegalStateException}
+   * or {@link IOException}.  Instead, the caller writes the characters while the page buffer is not empty.</p>
+   *
+   * @return  {@code true} when written, or {@code false} when the caller must write the characters instead
+   */
+  public boolean write(PageContext pageContext, byte[] bytes, Charset bytesCharset) throws IOException {
+    if (
+        outputStreamUsed
+            // Response wrapped by another filter, an include, or another dispatch
+            || pageContext.getResponse() != this
+    ) {
+      return false;
+    }
+    JspWriter jspOut = pageContext.getOut();
+    if (
+        jspOut instanceof BodyContent
+            // Being captured
+            || !bytesCharset.equals(getCharset())
+            // Page buffer not empty, would be written out of order without flushing
+            || jspOut.getBufferSize() != jspOut.getRemaining()
+    ) {
+      return false;
+    }
+    getWriter();
+    // Drain the encoder onto the output stream, without committing the response
+    suppressFlush = true;
+    try {
+      writer.flush();
+    } finally {
+      suppressFlush = false;
+    }
+    out.write(bytes);
+    return true;
+  }
+
+  /**
+   * Gets the charset bytes should be encoded in for
+   * {@link #write(javax.servlet.jsp.PageContext, byte[], java.nio.charset.Charset)}.  Before the writer is obtained,
+   * this is the current response charset, which the page may still change.
+   *
+   * @return  the charset or {@code null} when {@link #getOutputStream()} is in use
+   */
+  public Charset getCharset() {
+    if (outputStreamUsed) {
+      return null;
+    }
+    return (charset != null) ? charset : Charset.forName(getCharacterEncoding());
+  }
+
+  /**
+   * Encodes any pending characters and restores the previous sink of the request.
+   */
+  public void close() throws IOException {
+    try {
+      if (writer != null) {
+        writer.flush();
+      }
+    } finally {
+      REQUEST_ATTRIBUTE.context(request).set(previous);
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.encoding.MediaType;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for writing an encoder prefix or suffix.
+ *
+ * <p>When flight recorder is not available, or the event is not enabled in any recording, a shared no-op instance
+ * is used without allocating or beginning an event.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class EncoderEvent {
+
+  public static final String PREFIX = "prefix";
+  public static final String SUFFIX = "suffix";
+
+  private static final EncoderEvent NOT_RECORDED = new EncoderEvent(null);
+
+  /**
+   * Creates and begins a new event.
+   */
+  public static EncoderEvent start() {
+    if (!FlightRecorder.AVAILABLE || !Recorded.TYPE.isEnabled()) {
+      return NOT_RECORDED;
+    }
+    Recorded recorded = new Recorded();
+    recorded.begin();
+    return new EncoderEvent(recorded);
+  }
+
+  /**
+   * The flight recorder event, only loaded when flight recorder is available.
+   */
+  @Name("com.aoapps.encoding.taglib.Encoder")
+  @Label("Encoder Prefix or Suffix")
+  @Category({"AO Apps", "Encoding Taglib"})
+  @Description("An encoder prefix or suffix written by a tag")
+  private static final class Recorded extends Event {
+
+    /**
+     * The type of the event, checked for being enabled before allocating each event.
+     */
+    private static final EventType TYPE = EventType.getEventType(Recorded.class);
+
+    @Label("Tag Class")
+    private Class<?> tagClass;
+
+    @Label("Phase")
+    @Description("Either prefix or suffix")
+    private String phase;
+
+    @Label("Output Type")
+    private String outputType;
+
+    @Label("Container Type")
+    private String containerType;
+
+    private void commit(Class<?> tagClass, String phase, MediaType outputType, MediaType containerType) {
+      end();
+      if (shouldCommit()) {
+        this.tagClass = tagClass;
+        this.phase = phase;
+        this.outputType = outputType.name();
+        this.containerType = containerType.name();
+        commit();
+      }
+    }
+  }
+
+  private final Recorded recorded;
+
+  private EncoderEvent(Recorded recorded) {
+    this.recorded = recorded;
+  }
+
+  /**
+   * Ends and commits the event when recording.
+   *
+   * @param  phase  either {@link #PREFIX} or {@link #SUFFIX}
+   */
+  public void commit(Class<?> tagClass, String phase, MediaType outputType, MediaType containerType) {
+    if (recorded != null) {
+      recorded.commit(tagClass, phase, outputType, containerType);
+    }
+  }
+}
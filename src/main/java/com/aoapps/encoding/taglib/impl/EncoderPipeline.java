@@ -0,0 +1,286 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.encoding.EncodingContext;
+import com.aoapps.encoding.MediaEncoder;
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.MediaWriter;
+import com.aoapps.encoding.servlet.EncodingContextEE;
+import com.aoapps.lang.Coercion;
+import com.aoapps.servlet.attribute.ScopeEE;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * The objects used to encode the output of one tag: the encoding context, encoder, encoder prefix writer, media
+ * writer, and the resulting {@link RequestEncodingContext}.
+ *
+ * <p>When the encoder is {@linkplain MediaEncoderTable#isEncoderShared(com.aoapps.encoding.EncodingContext, com.aoapps.encoding.MediaType, com.aoapps.encoding.MediaType, com.aoapps.encoding.MediaEncoder) shared}
+ * and the tag does not customize the encoder, the pipeline is kept for the rest of the request and reused by later
+ * tags with the same output type, container type, and container writer.  Once warmed up, such tags encode without
+ * creating a new encoder, media writer, or encoding context.  A pipeline is only reused while not
+ * {@linkplain #release() in use}, so nested tags of the same types each get their own.</p>
+ *
+ * <p>Only pipelines writing to the {@linkplain ResponseContainer#isShared(java.io.Writer) shared validator} of
+ * top-level tags are kept, since it is the only container writer that is stable across tags.  The container writers
+ * of nested tags, such as the capture of an enclosing buffered tag, are different for each invocation of their
+ * parent.  A kept pipeline is replaced once idle when the shared validator changes, so the request holds at most one
+ * pipeline per output type, container type, and prefix writer factory.</p>
+ *
+ * <p>The pipelines are held per request, and are not shared with other requests that copy the attributes of the
+ * request, such as sub-requests.  The JSP fragments of a request are only invoked on one thread at a time, so the
+ * pipelines are not synchronized.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class EncoderPipeline {
+
+  /**
+   * The pipelines kept for a request.
+   */
+  private static final class Pipelines {
+
+    /**
+     * The request owning these pipelines, to not share with other requests that copy the request attributes.
+     */
+    private final ServletRequest request;
+
+    private final List<EncoderPipeline> list = new ArrayList<>();
+
+    private Pipelines(ServletRequest request) {
+      this.request = request;
+    }
+  }
+
+  private static final ScopeEE.Request.Attribute<Pipelines> REQUEST_ATTRIBUTE =
+      ScopeEE.REQUEST.attribute(EncoderPipeline.class.getName());
+
+  /**
+   * Gets the number of pipelines kept for the given request.
+   */
+  static int getKeptCount(ServletRequest request) {
+    Pipelines pipelines = REQUEST_ATTRIBUTE.context(request).get();
+    return (pipelines == null || pipelines.request != request) ? 0 : pipelines.list.size();
+  }
+
+  /**
+   * Acquires a pipeline, reusing an idle one from the request when possible.
+   *
+   * @param  reusable  Is the container writer stable across tags?  This is only the case for the
+   *                   {@linkplain ResponseContainer#isShared(java.io.Writer) shared validator} of top-level tags.
+   *                   Pipelines are only kept for reuse when {@code true}.
+   *
+   * @param  prefixWriterFactory  creates the encoder prefix writer over the optimized container writer.  Pipelines
+   *                              are only reused for the same factory instance, so this should be a constant.
+   *
+   * @param  mediaEncoderOptions  sets the encoder options or {@code null} when the tag does not customize the encoder.
+   *                              Pipelines with options are never reused.
+   *
+   * @return  the pipeline, which must be {@linkplain #release() released}, or {@code null} when no encoder is required
+   */
+  public static EncoderPipeline acquire(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      MediaType outputType,
+      MediaType containerType,
+      Writer containerValidator,
+      boolean reusable,
+      Function<? super Writer, ? extends LazyPrefixWriter> prefixWriterFactory,
+      Consumer<? super MediaEncoder> mediaEncoderOptions
+  ) {
+    Pipelines pipelines = REQUEST_ATTRIBUTE.context(request).get();
+    if (pipelines != null && pipelines.request != request) {
+      // Copied from another request
+      pipelines = null;
+    }
+    EncodingContext encodingContext = null;
+    if (pipelines != null) {
+      for (EncoderPipeline pipeline : pipelines.list) {
+        if (pipeline.response == response) {
+          if (
+              reusable
+                  && mediaEncoderOptions == null
+                  && !pipeline.inUse
+                  && pipeline.outputType == outputType
+                  && pipeline.containerType == containerType
+                  && pipeline.containerValidator == containerValidator
+                  && pipeline.prefixWriterFactory == prefixWriterFactory
+          ) {
+            pipeline.inUse = true;
+            pipeline.prefixWriter.reset();
+            return pipeline;
+          }
+          encodingContext = pipeline.encodingContext;
+        }
+      }
+    }
+    if (encodingContext == null) {
+      encodingContext = new EncodingContextEE(servletContext, request, response);
+    }
+    MediaEncoder mediaEncoder = MediaEncoderTable.getInstance(encodingContext, outputType, containerType);
+    if (mediaEncoder == null) {
+      return null;
+    }
+    if (mediaEncoderOptions != null) {
+      mediaEncoderOptions.accept(mediaEncoder);
+    }
+    Writer optimized = Coercion.optimize(containerValidator, mediaEncoder);
+    LazyPrefixWriter prefixWriter = prefixWriterFactory.apply(optimized);
+    MediaWriter mediaWriter = outputType.newMediaWriter(
+        encodingContext,
+        mediaEncoder,
+        prefixWriter,
+        true,
+        null,
+        MediaWriter.DEFAULT_IS_NO_CLOSE,
+        MediaWriter.DEFAULT_CLOSER
+    );
+    boolean shared = MediaEncoderTable.isEncoderShared(encodingContext, outputType, containerType, mediaEncoder);
+    EncoderPipeline pipeline = new EncoderPipeline(
+        response,
+        outputType,
+        containerType,
+        containerValidator,
+        prefixWriterFactory,
+        encodingContext,
+        mediaEncoder,
+        optimized,
+        prefixWriter,
+        mediaWriter,
+        shared
+    );
+    if (reusable && mediaEncoderOptions == null && shared) {
+      if (pipelines == null) {
+        pipelines = new Pipelines(request);
+        REQUEST_ATTRIBUTE.context(request).set(pipelines);
+      }
+      keep(pipelines.list, pipeline);
+    }
+    return pipeline;
+  }
+
+  /**
+   * Keeps a new pipeline, replacing an idle pipeline of the same types and prefix writer factory, which writes to a
+   * previous shared validator.
+   */
+  private static void keep(List<EncoderPipeline> list, EncoderPipeline pipeline) {
+    for (int i = 0, size = list.size(); i < size; i++) {
+      EncoderPipeline kept = list.get(i);
+      if (
+          !kept.inUse
+              && kept.response == pipeline.response
+              && kept.outputType == pipeline.outputType
+              && kept.containerType == pipeline.containerType
+              && kept.prefixWriterFactory == pipeline.prefixWriterFactory
+      ) {
+        list.set(i, pipeline);
+        return;
+      }
+    }
+    list.add(pipeline);
+  }
+
+  private final HttpServletResponse response;
+  private final MediaType outputType;
+  private final MediaType containerType;
+  private final Writer containerValidator;
+  private final Function<? super Writer, ? extends LazyPrefixWriter> prefixWriterFactory;
+  private final EncodingContext encodingContext;
+
+  /**
+   * The encoder.
+   */
+  public final MediaEncoder mediaEncoder;
+
+  /**
+   * The container writer, optimized for the encoder.  The encoder suffix is written here.
+   */
+  public final Writer optimized;
+
+  /**
+   * Writes the encoder prefix before the first character written.
+   */
+  public final LazyPrefixWriter prefixWriter;
+
+  /**
+   * The writer for the tag output.
+   */
+  public final MediaWriter mediaWriter;
+
+  /**
+   * The context while the tag output is written.
+   */
+  public final RequestEncodingContext requestEncodingContext;
+
+  /**
+   * Is the encoder {@linkplain MediaEncoderTable#isEncoderShared(com.aoapps.encoding.EncodingContext, com.aoapps.encoding.MediaType, com.aoapps.encoding.MediaType, com.aoapps.encoding.MediaEncoder) shared}?
+   */
+  public final boolean shared;
+
+  private boolean inUse;
+
+  private EncoderPipeline(
+      HttpServletResponse response,
+      MediaType outputType,
+      MediaType containerType,
+      Writer containerValidator,
+      Function<? super Writer, ? extends LazyPrefixWriter> prefixWriterFactory,
+      EncodingContext encodingContext,
+      MediaEncoder mediaEncoder,
+      Writer optimized,
+      LazyPrefixWriter prefixWriter,
+      MediaWriter mediaWriter,
+      boolean shared
+  ) {
+    this.response = response;
+    this.outputType = outputType;
+    this.containerType = containerType;
+    this.containerValidator = containerValidator;
+    this.prefixWriterFactory = prefixWriterFactory;
+    this.encodingContext = encodingContext;
+    this.mediaEncoder = mediaEncoder;
+    this.optimized = optimized;
+    this.prefixWriter = prefixWriter;
+    this.mediaWriter = mediaWriter;
+    this.requestEncodingContext = new RequestEncodingContext(outputType, mediaWriter);
+    this.shared = shared;
+    this.inUse = true;
+  }
+
+  /**
+   * Releases the pipeline for reuse by later tags in the same request.
+   */
+  public void release() {
+    inUse = false;
+  }
+}
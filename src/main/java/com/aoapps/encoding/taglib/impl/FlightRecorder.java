@@ -0,0 +1,55 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.aoapps.encoding.taglib.impl;
+
+/**
+ * Detects whether flight recorder is available.  The module only has a static dependency on {@code jdk.jfr}, so the
+ * events are not created on a runtime image linked without flight recorder.
+ *
+ * @author  AO Industries, Inc.
+ */
+final class FlightRecorder {
+
+  /** Make no instances. */
+  private FlightRecorder() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Whether the {@code jdk.jfr} module is present and readable.
+   */
+  static final boolean AVAILABLE;
+
+  static {
+    boolean available;
+    try {
+      Class.forName("jdk.jfr.Event", false, FlightRecorder.class.getClassLoader());
+      available = true;
+    } catch (ClassNotFoundException | LinkageError e) {
+      available = false;
+    }
+    AVAILABLE = available;
+  }
+}
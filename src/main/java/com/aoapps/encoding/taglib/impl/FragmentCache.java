@@ -0,0 +1,316 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.encoding.Doctype;
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.Serialization;
+import com.aoapps.encoding.taglib.CacheTag;
+import com.aoapps.servlet.attribute.ScopeEE;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.ServletContext;
+import javax.servlet.jsp.PageContext;
+
+/**
+ * The output cached by {@link CacheTag} within a web application, bounded by the approximate memory used.
+ *
+ * <p>Entries are spread over {@link #STRIPES} independently locked stripes, each a least-recently-used map with an
+ * equal share of the total weight, so concurrent requests rarely contend on the same lock.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class FragmentCache {
+
+  private static final Logger logger = Logger.getLogger(FragmentCache.class.getName());
+
+  private static final ScopeEE.Application.Attribute<FragmentCache> APPLICATION_ATTRIBUTE =
+      ScopeEE.APPLICATION.attribute(FragmentCache.class.getName());
+
+  /**
+   * The default maximum weight, in bytes, when not configured by {@link CacheTag#MAX_WEIGHT_INIT_PARAM}.
+   */
+  private static final long DEFAULT_MAX_WEIGHT = 16L << 20; // 16 MiB
+
+  /**
+   * The number of stripes, a power of two.
+   */
+  static final int STRIPES = 16;
+
+  /**
+   * The approximate per-entry overhead, in bytes, of the key, entry, fragment, map node, and array header.
+   */
+  static final int ENTRY_OVERHEAD = 128;
+
+  /**
+   * Gets the cache for the given web application, creating on first use.  Creation is synchronized on the
+   * {@link ServletContext} so concurrent first requests share the same cache.
+   */
+  public static FragmentCache getInstance(ServletContext servletContext) {
+    FragmentCache cache = APPLICATION_ATTRIBUTE.context(servletContext).get();
+    if (cache != null) {
+      return cache;
+    }
+    synchronized (servletContext) {
+      cache = APPLICATION_ATTRIBUTE.context(servletContext).get();
+      if (cache == null) {
+        long maxWeight = DEFAULT_MAX_WEIGHT;
+        String value = servletContext.getInitParameter(CacheTag.MAX_WEIGHT_INIT_PARAM);
+        if (value != null && !(value = value.trim()).isEmpty()) {
+          try {
+            maxWeight = Long.parseLong(value);
+          } catch (NumberFormatException e) {
+            if (logger.isLoggable(Level.WARNING)) {
+              logger.log(Level.WARNING, "Invalid " + CacheTag.MAX_WEIGHT_INIT_PARAM + "=\"" + value + '"', e);
+            }
+          }
+        }
+        cache = new FragmentCache(maxWeight, TagMetrics.getInstance(servletContext));
+        APPLICATION_ATTRIBUTE.context(servletContext).set(cache);
+      }
+      return cache;
+    }
+  }
+
+  /**
+   * Identifies cached output by the key of the tag along with the output and container types, and the serialization
+   * and doctype of the {@link com.aoapps.encoding.EncodingContext} the output was encoded in.
+   */
+  public static final class Key {
+
+    private final Object key;
+    private final MediaType outputType;
+    private final MediaType containerType;
+    private final Serialization serialization;
+    private final Doctype doctype;
+    private final int hash;
+
+    public Key(
+        Object key,
+        MediaType outputType,
+        MediaType containerType,
+        Serialization serialization,
+        Doctype doctype
+    ) {
+      this.key = Objects.requireNonNull(key);
+      this.outputType = outputType;
+      this.containerType = containerType;
+      this.serialization = serialization;
+      this.doctype = doctype;
+      int h = key.hashCode();
+      h = h * 31 + outputType.hashCode();
+      h = h * 31 + containerType.hashCode();
+      h = h * 31 + Objects.hashCode(serialization);
+      h = h * 31 + Objects.hashCode(doctype);
+      this.hash = h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return
+          hash == other.hash
+              && outputType == other.outputType
+              && containerType == other.containerType
+              && serialization == other.serialization
+              && doctype == other.doctype
+              && key.equals(other.key);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  /**
+   * Cached output, stored as bytes when the response charset is known from {@link EncodedByteSink}, or as
+   * characters otherwise.
+   */
+  public static final class Fragment {
+
+    private final String chars;
+    private final byte[] bytes;
+    private final Charset charset;
+
+    /**
+     * @param  charset  the charset to store the output in, or {@code null} to store characters
+     */
+    public Fragment(String output, Charset charset) {
+      if (charset == null) {
+        this.chars = output;
+        this.bytes = null;
+      } else {
+        this.chars = null;
+        this.bytes = output.getBytes(charset);
+      }
+      this.charset = charset;
+    }
+
+    private long getWeight() {
+      return ENTRY_OVERHEAD + ((bytes != null) ? bytes.length : (2L * chars.length()));
+    }
+
+    /**
+     * Writes the output to the page, directly as bytes when possible.
+     */
+    public void writeTo(PageContext pageContext) throws IOException {
+      if (bytes == null) {
+        pageContext.getOut().write(chars);
+      } else {
+        EncodedByteSink sink = EncodedByteSink.getInstance(pageContext.getRequest());
+        if (sink == null || !sink.write(pageContext, bytes, charset)) {
+          pageContext.getOut().write(new String(bytes, charset));
+        }
+      }
+    }
+  }
+
+  private static final class Entry {
+
+    private final Fragment fragment;
+    private final long weight;
+
+    /**
+     * The {@link System#nanoTime()} the entry expires, or {@code 0} to never expire.
+     */
+    private final long expires;
+
+    private Entry(Fragment fragment, long expires) {
+      this.fragment = fragment;
+      this.weight = fragment.getWeight();
+      this.expires = expires;
+    }
+
+    private boolean isExpired(long now) {
+      return expires != 0 && now - expires >= 0;
+    }
+  }
+
+  private static final class Stripe {
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private void remove(Entry entry) {
+      weight -= entry.weight;
+    }
+  }
+
+  private final long stripeMaxWeight;
+  private final TagMetrics metrics;
+  private final Stripe[] stripes = new Stripe[STRIPES];
+
+  private FragmentCache(long maxWeight, TagMetrics metrics) {
+    this.stripeMaxWeight = maxWeight / STRIPES;
+    this.metrics = metrics;
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  private Stripe getStripe(Key key) {
+    int h = key.hash;
+    return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+  }
+
+  /**
+   * Gets the cached output, counting the hit or miss.
+   *
+   * @return  the output or {@code null} when not cached or expired
+   */
+  public Fragment get(Key key) {
+    Stripe stripe = getStripe(key);
+    Fragment output;
+    synchronized (stripe) {
+      Entry entry = stripe.entries.get(key);
+      if (entry == null) {
+        output = null;
+      } else if (entry.isExpired(System.nanoTime())) {
+        stripe.entries.remove(key);
+        stripe.remove(entry);
+        output = null;
+      } else {
+        output = entry.fragment;
+      }
+    }
+    if (output == null) {
+      metrics.cacheMiss();
+    } else {
+      metrics.cacheHit();
+    }
+    return output;
+  }
+
+  /**
+   * Caches output, evicting the least-recently-used entries of the stripe as needed.  Output too large for a stripe
+   * is not cached.
+   *
+   * @param  ttlNanos  the time-to-live in nanoseconds, or {@code 0} to remain until evicted
+   */
+  public void put(Key key, Fragment output, long ttlNanos) {
+    long expires;
+    if (ttlNanos > 0) {
+      expires = System.nanoTime() + ttlNanos;
+      // Avoid the reserved value for never expiring
+      if (expires == 0) {
+        expires = 1;
+      }
+    } else {
+      expires = 0;
+    }
+    Entry entry = new Entry(output, expires);
+    if (entry.weight > stripeMaxWeight) {
+      return;
+    }
+    Stripe stripe = getStripe(key);
+    int evicted = 0;
+    synchronized (stripe) {
+      Entry old = stripe.entries.put(key, entry);
+      if (old != null) {
+        stripe.remove(old);
+      }
+      stripe.weight += entry.weight;
+      Iterator<Entry> iter = stripe.entries.values().iterator();
+      while (stripe.weight > stripeMaxWeight) {
+        Entry eldest = iter.next();
+        iter.remove();
+        stripe.remove(eldest);
+        evicted++;
+      }
+    }
+    if (evicted != 0) {
+      metrics.cacheEvicted(evicted);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.encoding.taglib.legacy.BodyContentUnbufferer;
+import java.io.Writer;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.jsp.tagext.BodyContent;
+
+/**
+ * Unbuffers the <code>org.apache.jasper.runtime.BodyContentImpl</code> of Jasper and its forks, which include Apache
+ * Tomcat, Eclipse Jetty (apache-jsp), and GlassFish/Payara.  Each sets its <code>writer</code> field to redirect the
+ * body content, with a {@code null} writer meaning buffered.
+ *
+ * <p>The field is accessed by {@link VarHandle}, resolved per runtime class since each web application or container
+ * may load its own implementation.  This does not depend on the class being visible to the web application class
+ * loader, as is the case in Jetty.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class JasperBodyContentUnbufferer implements BodyContentUnbufferer {
+
+  private static final Logger logger = Logger.getLogger(JasperBodyContentUnbufferer.class.getName());
+
+  private static final String BODY_CONTENT_IMPL_CLASS = "org.apache.jasper.runtime.BodyContentImpl";
+  private static final String WRITER_FIELD = "writer";
+
+  private static final ClassValue<Optional<VarHandle>> writerFields = new ClassValue<Optional<VarHandle>>() {
+    @Override
+    @SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
+    protected Optional<VarHandle> computeValue(Class<?> type) {
+      if (!BODY_CONTENT_IMPL_CLASS.equals(type.getName())) {
+        return Optional.empty();
+      }
+      try {
+        Module module = JasperBodyContentUnbufferer.class.getModule();
+        module.addReads(type.getModule());
+        return Optional.of(
+            MethodHandles.privateLookupIn(type, MethodHandles.lookup())
+                .findVarHandle(type, WRITER_FIELD, Writer.class)
+        );
+      } catch (ThreadDeath td) {
+        throw td;
+      } catch (Throwable t) {
+        if (logger.isLoggable(Level.INFO)) {
+          logger.log(
+              Level.INFO,
+              "Cannot get direct access to the " + BODY_CONTENT_IMPL_CLASS + "." + WRITER_FIELD + " field.  "
+                  + "Unbuffering of BodyContent disabled.  "
+                  + "The system will behave correctly, but some optimizations are disabled.",
+              t
+          );
+        }
+        return Optional.empty();
+      }
+    }
+  };
+
+  @Override
+  public boolean unbuffer(BodyContent bodyContent, Writer writer) {
+    Optional<VarHandle> writerField = writerFields.get(bodyContent.getClass());
+    if (writerField.isPresent()) {
+      VarHandle handle = writerField.get();
+      assert handle.get(bodyContent) == null : "writer must be null since is setup for buffering";
+      handle.set(bodyContent, writer);
+      if (logger.isLoggable(Level.FINER)) {
+        logger.finer("Successfully unbuffered " + bodyContent.getClass().getName());
+      }
+      return true;
+    }
+    return false;
+  }
+}
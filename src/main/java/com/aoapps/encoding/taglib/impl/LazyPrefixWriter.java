@@ -0,0 +1,181 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import java.io.IOException;
+import java.io.Writer;
+import javax.servlet.jsp.JspException;
+
+/**
+ * Defers writing an encoder prefix until the first character is written.  This allows the encoder prefix and suffix
+ * to be omitted entirely when nothing is written.
+ *
+ * <p>The prefix is either provided as a {@link Prefix} or implemented by overriding {@link #writePrefix()}.
+ * Instances may be {@linkplain #reset() reset} for reuse.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class LazyPrefixWriter extends Writer {
+
+  /**
+   * Writes the prefix.
+   */
+  @FunctionalInterface
+  public interface Prefix {
+    void write() throws JspException, IOException;
+  }
+
+  private final Writer out;
+  private final Prefix prefix;
+  private boolean prefixWritten;
+
+  public LazyPrefixWriter(Writer out, Prefix prefix) {
+    this.out = out;
+    this.prefix = prefix;
+  }
+
+  /**
+   * For subclasses that override {@link #writePrefix()}.
+   */
+  protected LazyPrefixWriter(Writer out) {
+    this(out, null);
+  }
+
+  /**
+   * Writes the prefix.
+   */
+  protected void writePrefix() throws JspException, IOException {
+    prefix.write();
+  }
+
+  /**
+   * Checks if the prefix has been written, in which case the suffix must also be written.
+   */
+  public boolean isPrefixWritten() {
+    return prefixWritten;
+  }
+
+  /**
+   * Writes the prefix now, if not already written.
+   */
+  public void ensurePrefix() throws JspException, IOException {
+    if (!prefixWritten) {
+      prefixWritten = true;
+      writePrefix();
+    }
+  }
+
+  /**
+   * Resets for reuse, deferring the prefix again.
+   */
+  public void reset() {
+    prefixWritten = false;
+  }
+
+  private void checkPrefix() throws IOException {
+    if (!prefixWritten) {
+      try {
+        ensurePrefix();
+      } catch (JspException e) {
+        throw new IOException(e);
+      }
+    }
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    checkPrefix();
+    out.write(c);
+  }
+
+  @Override
+  public void write(char[] cbuf) throws IOException {
+    if (cbuf.length > 0) {
+      checkPrefix();
+      out.write(cbuf);
+    }
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    if (len > 0) {
+      checkPrefix();
+      out.write(cbuf, off, len);
+    }
+  }
+
+  @Override
+  public void write(String str) throws IOException {
+    if (!str.isEmpty()) {
+      checkPrefix();
+      out.write(str);
+    }
+  }
+
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    if (len > 0) {
+      checkPrefix();
+      out.write(str, off, len);
+    }
+  }
+
+  @Override
+  public LazyPrefixWriter append(CharSequence csq) throws IOException {
+    if (csq == null || csq.length() > 0) {
+      checkPrefix();
+      out.append(csq);
+    }
+    return this;
+  }
+
+  @Override
+  public LazyPrefixWriter append(CharSequence csq, int start, int end) throws IOException {
+    if (end > start) {
+      checkPrefix();
+      out.append(csq, start, end);
+    }
+    return this;
+  }
+
+  @Override
+  public LazyPrefixWriter append(char c) throws IOException {
+    checkPrefix();
+    out.append(c);
+    return this;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  /**
+   * Does not close the wrapped writer.
+   */
+  @Override
+  public void close() {
+    // Do nothing
+  }
+}
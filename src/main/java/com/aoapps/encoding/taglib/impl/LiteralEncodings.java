@@ -0,0 +1,166 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.encoding.MediaEncoder;
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.MediaValidator;
+import com.aoapps.lang.io.NullWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Literal tag values registered by the tag extra info at translation time, along with their encoded form per
+ * container type.  Since a literal value and type always produce the same output for a given encoder, it is encoded
+ * or validated once instead of on every request.
+ *
+ * <p>The encoder depends on the {@link com.aoapps.encoding.EncodingContext} of the request, so the encoded form is
+ * computed on first use and recorded with the encoder that produced it.  Only
+ * {@linkplain MediaEncoderTable#isEncoderShared(com.aoapps.encoding.EncodingContext, com.aoapps.encoding.MediaType, com.aoapps.encoding.MediaType, com.aoapps.encoding.MediaEncoder) shared encoders}
+ * are used, since they hold no per-use state.</p>
+ *
+ * <p>The registry is bounded: once full, further literals are written normally without being added.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class LiteralEncodings {
+
+  /** Make no instances. */
+  private LiteralEncodings() {
+    throw new AssertionError();
+  }
+
+  /**
+   * The maximum number of distinct literals registered.  Literals come from the source of the translated pages,
+   * so this only protects against unbounded growth.
+   */
+  private static final int MAX_SIZE = 10000;
+
+  private static final int NUM_TYPES = MediaType.values().length;
+
+  private static final ConcurrentMap<String, Literal> literals = new ConcurrentHashMap<>();
+
+  /**
+   * Registers a literal value and type, typically from the tag extra info during translation.  When the value is
+   * already registered with a different type, the first type is kept and the other is written normally.
+   */
+  public static void register(String value, MediaType outputType) {
+    if (literals.size() < MAX_SIZE) {
+      literals.putIfAbsent(value, new Literal(value, outputType));
+    }
+  }
+
+  /**
+   * Gets the registered literal for the given value and type.
+   *
+   * @return  the literal or {@code null} when not registered with this type
+   */
+  public static Literal getLiteral(String value, MediaType outputType) {
+    Literal literal = literals.get(value);
+    return (literal != null && literal.outputType == outputType) ? literal : null;
+  }
+
+  /**
+   * A literal value along with its encoded forms.
+   */
+  public static final class Literal {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte VALID = 1;
+    private static final byte INVALID = 2;
+
+    /**
+     * The value encoded by a specific encoder.  Immutable, so safely shared through {@link #encodings} without
+     * synchronization.
+     */
+    private static final class Encoded {
+      private final MediaEncoder mediaEncoder;
+      private final String encoded;
+
+      private Encoded(MediaEncoder mediaEncoder, String encoded) {
+        this.mediaEncoder = mediaEncoder;
+        this.encoded = encoded;
+      }
+    }
+
+    private final String value;
+    private final MediaType outputType;
+
+    /**
+     * Indexed by container type.  Entries are replaced as a whole, so concurrent use at worst encodes the same value
+     * more than once.
+     */
+    private final Encoded[] encodings = new Encoded[NUM_TYPES];
+
+    private byte valid;
+
+    private Literal(String value, MediaType outputType) {
+      this.value = value;
+      this.outputType = outputType;
+    }
+
+    public String getValue() {
+      return value;
+    }
+
+    /**
+     * Gets the value encoded by the given encoder, without its prefix or suffix.
+     *
+     * @param  mediaEncoder  must be a shared encoder for the output type and container type
+     */
+    public String getEncoded(MediaEncoder mediaEncoder, MediaType containerType) throws IOException {
+      int index = containerType.ordinal();
+      Encoded encoded = encodings[index];
+      if (encoded == null || encoded.mediaEncoder != mediaEncoder) {
+        StringWriter out = new StringWriter(value.length());
+        mediaEncoder.write(value, out);
+        encoded = new Encoded(mediaEncoder, out.toString());
+        encodings[index] = encoded;
+      }
+      return encoded.encoded;
+    }
+
+    /**
+     * Checks if the value is valid for its type, validating only on first use.  Invalid values are written normally
+     * so that validation fails in the usual way.
+     */
+    public boolean isValid() {
+      byte myValid = valid;
+      if (myValid == UNKNOWN) {
+        try {
+          MediaValidator validator = MediaValidator.getMediaValidator(outputType, NullWriter.getInstance());
+          validator.write(value);
+          validator.validate(outputType.getTrimBuffer());
+          myValid = VALID;
+        } catch (IOException e) {
+          myValid = INVALID;
+        }
+        valid = myValid;
+      }
+      return myValid == VALID;
+    }
+  }
+}
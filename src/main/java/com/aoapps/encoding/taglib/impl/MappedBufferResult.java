@@ -0,0 +1,131 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.io.buffer.BufferResult;
+import com.aoapps.lang.Strings;
+import com.aoapps.lang.io.Encoder;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The result from a {@link MappedBufferWriter}, written and sliced directly from its heap array or mapped regions.
+ *
+ * @author  AO Industries, Inc.
+ */
+final class MappedBufferResult implements BufferResult {
+
+  private final MappedBufferWriter buffer;
+  private final long start;
+  private final long end;
+
+  MappedBufferResult(MappedBufferWriter buffer, long start, long end) {
+    this.buffer = buffer;
+    this.start = start;
+    this.end = end;
+  }
+
+  @Override
+  public long getLength() {
+    return end - start;
+  }
+
+  @Override
+  public boolean isFastToString() {
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    long len = end - start;
+    if (len > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Result too long for a String: " + len);
+    }
+    StringBuilder sb = new StringBuilder((int) len);
+    buffer.appendRange(sb, start, end);
+    return sb.toString();
+  }
+
+  @Override
+  public void writeTo(Writer out) throws IOException {
+    writeRange(null, out, start, end);
+  }
+
+  @Override
+  public void writeTo(Writer out, long off, long len) throws IOException {
+    writeRange(null, out, rangeStart(off, len), rangeStart(off, len) + len);
+  }
+
+  @Override
+  public void writeTo(Encoder encoder, Writer out) throws IOException {
+    writeRange(encoder, out, start, end);
+  }
+
+  @Override
+  public void writeTo(Encoder encoder, Writer out, long off, long len) throws IOException {
+    writeRange(encoder, out, rangeStart(off, len), rangeStart(off, len) + len);
+  }
+
+  private long rangeStart(long off, long len) {
+    if (off < 0 || len < 0 || off + len > end - start) {
+      throw new IndexOutOfBoundsException("off=" + off + ", len=" + len + ", length=" + (end - start));
+    }
+    return start + off;
+  }
+
+  private void writeRange(Encoder encoder, Writer out, long from, long to) throws IOException {
+    buffer.writeRange(encoder, out, from, to);
+  }
+
+  @Override
+  public BufferResult trim() {
+    return trim(true, true);
+  }
+
+  @Override
+  public BufferResult trimStart() {
+    return trim(true, false);
+  }
+
+  @Override
+  public BufferResult trimEnd() {
+    return trim(false, true);
+  }
+
+  private BufferResult trim(boolean trimStart, boolean trimEnd) {
+    long newStart = start;
+    long newEnd = end;
+    if (trimStart) {
+      while (newStart < newEnd && Strings.isWhitespace(buffer.charAt(newStart))) {
+        newStart++;
+      }
+    }
+    if (trimEnd) {
+      while (newEnd > newStart && Strings.isWhitespace(buffer.charAt(newEnd - 1))) {
+        newEnd--;
+      }
+    }
+    return (newStart == start && newEnd == end) ? this : new MappedBufferResult(buffer, newStart, newEnd);
+  }
+}
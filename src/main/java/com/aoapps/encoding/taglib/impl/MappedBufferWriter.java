@@ -0,0 +1,417 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.io.buffer.BufferResult;
+import com.aoapps.io.buffer.BufferWriter;
+import com.aoapps.lang.io.Encoder;
+import com.aoapps.tempfiles.TempFile;
+import com.aoapps.tempfiles.TempFileContext;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes to a heap array until the temp file threshold is reached, then to a memory-mapped temp file.  Once mapped,
+ * the characters are never copied back onto the heap as a whole: results are written and sliced directly from the
+ * mapped regions, with any index reachable without reading the preceding characters.
+ *
+ * <p>The temp file is created in the given {@link TempFileContext}, which deletes it when the context is closed.
+ * Results must not be retained beyond the life of the context.  Once {@link #release() released}, the regions are
+ * unmapped and the temp file deleted without waiting for garbage collection or the end of the context; the buffer
+ * and its result must not be used after being released.  Buffers that are not released remain mapped until garbage
+ * collected.  This is not thread-safe.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class MappedBufferWriter extends BufferWriter {
+
+  private static final Logger logger = Logger.getLogger(MappedBufferWriter.class.getName());
+
+  /**
+   * The number of characters in each mapped region, which is 32 MiB.
+   */
+  private static final int REGION_SIZE = 1 << 24;
+
+  /**
+   * The initial size of the heap array.
+   */
+  private static final int INITIAL_HEAP_SIZE = 32;
+
+  /**
+   * The size of the array used to transfer characters from mapped regions.
+   */
+  private static final int TRANSFER_SIZE = 8192;
+
+  private final TempFileContext tempFileContext;
+  private final long tempFileThreshold;
+
+  /**
+   * The heap array, used until the threshold is reached.  {@code null} once mapped.
+   */
+  private char[] heap = new char[INITIAL_HEAP_SIZE];
+
+  private TempFile tempFile;
+  private FileChannel channel;
+  private final List<CharBuffer> regions = new ArrayList<>();
+
+  /**
+   * The mappings underlying the regions, kept to be unmapped on release.
+   */
+  private final List<MappedByteBuffer> mappings = new ArrayList<>();
+
+  /**
+   * The region currently being written or {@code null} when none mapped.
+   */
+  private CharBuffer current;
+
+  private long length;
+
+  private boolean isClosed;
+
+  private boolean released;
+
+  private BufferResult result;
+
+  /**
+   * @param  tempFileThreshold  the number of characters kept on the heap before switching to a mapped temp file, or
+   *                            {@link Long#MAX_VALUE} to never use temp files
+   */
+  public MappedBufferWriter(TempFileContext tempFileContext, long tempFileThreshold) {
+    this.tempFileContext = tempFileContext;
+    this.tempFileThreshold = tempFileThreshold;
+  }
+
+  private void checkNotClosed() throws ClosedChannelException {
+    if (isClosed) {
+      throw new ClosedChannelException();
+    }
+  }
+
+  /**
+   * Ensures space for the given number of additional characters on the heap, switching to a mapped temp file once
+   * the threshold would be exceeded.
+   *
+   * @return  {@code true} when the characters are to be written to the heap
+   */
+  private boolean ensureHeap(int len) throws IOException {
+    checkNotClosed();
+    if (heap == null) {
+      return false;
+    }
+    long newLength = length + len;
+    if (newLength > tempFileThreshold || newLength > Integer.MAX_VALUE - 8) {
+      switchToMapped();
+      return false;
+    }
+    if (newLength > heap.length) {
+      long newSize = Math.max(newLength, (long) heap.length << 1);
+      if (tempFileThreshold < newSize) {
+        newSize = Math.max(newLength, tempFileThreshold);
+      }
+      heap = Arrays.copyOf(heap, (int) Math.min(newSize, Integer.MAX_VALUE - 8));
+    }
+    return true;
+  }
+
+  private void switchToMapped() throws IOException {
+    assert heap != null;
+    assert tempFile == null;
+    tempFile = tempFileContext.createTempFile(MappedBufferWriter.class.getSimpleName());
+    channel = FileChannel.open(tempFile.getFile().toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+    char[] oldHeap = heap;
+    int oldLength = (int) length;
+    heap = null;
+    length = 0;
+    writeMapped(oldHeap, 0, oldLength);
+  }
+
+  /**
+   * Ensures the current region has space for at least one character, mapping a new region as needed.
+   */
+  private void ensureRegion() throws IOException {
+    if (current == null || !current.hasRemaining()) {
+      MappedByteBuffer mapping = channel.map(
+          FileChannel.MapMode.READ_WRITE,
+          (long) regions.size() * REGION_SIZE * Character.BYTES,
+          (long) REGION_SIZE * Character.BYTES
+      );
+      mappings.add(mapping);
+      current = mapping.order(ByteOrder.nativeOrder()).asCharBuffer();
+      regions.add(current);
+    }
+  }
+
+  private void writeMapped(char[] cbuf, int off, int len) throws IOException {
+    while (len > 0) {
+      ensureRegion();
+      int count = Math.min(len, current.remaining());
+      current.put(cbuf, off, count);
+      length += count;
+      off += count;
+      len -= count;
+    }
+  }
+
+  private void writeMapped(String str, int off, int len) throws IOException {
+    while (len > 0) {
+      ensureRegion();
+      int count = Math.min(len, current.remaining());
+      current.put(str, off, off + count);
+      length += count;
+      off += count;
+      len -= count;
+    }
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    if (ensureHeap(1)) {
+      heap[(int) length++] = (char) c;
+    } else {
+      ensureRegion();
+      current.put((char) c);
+      length++;
+    }
+  }
+
+  @Override
+  public void write(char[] cbuf) throws IOException {
+    write(cbuf, 0, cbuf.length);
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    if (ensureHeap(len)) {
+      System.arraycopy(cbuf, off, heap, (int) length, len);
+      length += len;
+    } else {
+      writeMapped(cbuf, off, len);
+    }
+  }
+
+  @Override
+  public void write(String str) throws IOException {
+    write(str, 0, str.length());
+  }
+
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    if (ensureHeap(len)) {
+      str.getChars(off, off + len, heap, (int) length);
+      length += len;
+    } else {
+      writeMapped(str, off, len);
+    }
+  }
+
+  @Override
+  public MappedBufferWriter append(CharSequence csq) throws IOException {
+    if (csq == null) {
+      write("null");
+    } else {
+      append(csq, 0, csq.length());
+    }
+    return this;
+  }
+
+  @Override
+  public MappedBufferWriter append(CharSequence csq, int start, int end) throws IOException {
+    if (csq == null) {
+      write("null", start, end - start);
+    } else if (csq instanceof String) {
+      write((String) csq, start, end - start);
+    } else {
+      for (int i = start; i < end; i++) {
+        write(csq.charAt(i));
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public MappedBufferWriter append(char c) throws IOException {
+    write(c);
+    return this;
+  }
+
+  @Override
+  public void flush() {
+    // Nothing to flush
+  }
+
+  /**
+   * Closes the file channel, if any.  The mapped regions remain valid for the result.
+   */
+  @Override
+  public void close() throws IOException {
+    if (!isClosed) {
+      isClosed = true;
+      if (channel != null) {
+        channel.close();
+        channel = null;
+      }
+    }
+  }
+
+  @Override
+  public long getLength() {
+    return length;
+  }
+
+  @Override
+  public String toString() {
+    return "MappedBufferWriter(length=" + length + ", regions=" + regions.size() + ')';
+  }
+
+  @Override
+  public BufferResult getResult() throws IllegalStateException {
+    if (!isClosed) {
+      throw new IllegalStateException("Not closed");
+    }
+    checkNotReleased();
+    if (result == null) {
+      result = new MappedBufferResult(this, 0, length);
+    }
+    return result;
+  }
+
+  /**
+   * Releases the buffer: unmaps the regions and deletes the temp file, if any.  The buffer and its result must not be
+   * used after being released.
+   */
+  public void release() {
+    if (!released) {
+      released = true;
+      isClosed = true;
+      heap = null;
+      current = null;
+      regions.clear();
+      try {
+        if (channel != null) {
+          channel.close();
+          channel = null;
+        }
+        // Unmapped before deleting, since some platforms do not delete files that are still mapped
+        for (MappedByteBuffer mapping : mappings) {
+          Unmapper.unmap(mapping);
+        }
+        mappings.clear();
+        if (tempFile != null) {
+          tempFile.close();
+          tempFile = null;
+        }
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "Unable to delete temp file, will be deleted when the context is closed", e);
+      }
+    }
+  }
+
+  /**
+   * Checks the buffer has not been released.  Reading an unmapped region would crash the virtual machine instead of
+   * throwing an exception.
+   */
+  void checkNotReleased() throws IllegalStateException {
+    if (released) {
+      throw new IllegalStateException("Mapped buffer used after having been released");
+    }
+  }
+
+  char charAt(long index) {
+    checkNotReleased();
+    if (heap != null) {
+      return heap[(int) index];
+    }
+    return regions.get((int) (index / REGION_SIZE)).get((int) (index % REGION_SIZE));
+  }
+
+  /**
+   * Writes a range of characters, transferring from mapped regions in small chunks.
+   */
+  void writeRange(Encoder encoder, Writer out, long from, long to) throws IOException {
+    checkNotReleased();
+    if (heap != null) {
+      if (encoder == null) {
+        out.write(heap, (int) from, (int) (to - from));
+      } else {
+        encoder.write(heap, (int) from, (int) (to - from), out);
+      }
+    } else if (from < to) {
+      char[] transfer = new char[(int) Math.min(to - from, TRANSFER_SIZE)];
+      long index = from;
+      while (index < to) {
+        int count = transfer(index, to, transfer);
+        if (encoder == null) {
+          out.write(transfer, 0, count);
+        } else {
+          encoder.write(transfer, 0, count, out);
+        }
+        index += count;
+      }
+    }
+  }
+
+  /**
+   * Appends a range of characters to the given builder.
+   */
+  void appendRange(StringBuilder sb, long from, long to) {
+    checkNotReleased();
+    if (heap != null) {
+      sb.append(heap, (int) from, (int) (to - from));
+    } else if (from < to) {
+      char[] transfer = new char[(int) Math.min(to - from, TRANSFER_SIZE)];
+      long index = from;
+      while (index < to) {
+        int count = transfer(index, to, transfer);
+        sb.append(transfer, 0, count);
+        index += count;
+      }
+    }
+  }
+
+  /**
+   * Copies characters from a single mapped region into the transfer array.  A duplicate of the region is read, leaving
+   * the position of the region being written unchanged.
+   *
+   * @return  the number of characters copied
+   */
+  private int transfer(long index, long to, char[] transfer) {
+    int off = (int) (index % REGION_SIZE);
+    int count = (int) Math.min(to - index, Math.min(REGION_SIZE - off, transfer.length));
+    CharBuffer region = regions.get((int) (index / REGION_SIZE)).duplicate();
+    region.position(off);
+    region.get(transfer, 0, count);
+    return count;
+  }
+}
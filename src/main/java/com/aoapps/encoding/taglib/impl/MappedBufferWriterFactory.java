@@ -0,0 +1,61 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.encoding.taglib.BufferWriterFactory;
+import com.aoapps.io.buffer.BufferWriter;
+import com.aoapps.tempfiles.servlet.TempFileContextEE;
+import javax.servlet.ServletRequest;
+
+/**
+ * Captures into a {@link MappedBufferWriter}, which switches to a memory-mapped temp file at the threshold instead of
+ * an {@link com.aoapps.io.buffer.AutoTempFileWriter}.  Very large captures are then written and sliced directly from
+ * the mapped file.
+ *
+ * <p>Released buffers are unmapped and their temp files deleted immediately, instead of once garbage collected and at
+ * the end of the request.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class MappedBufferWriterFactory implements BufferWriterFactory {
+
+  public static final String NAME = "mapped";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public BufferWriter newBufferWriter(ServletRequest request, long tempFileThreshold) {
+    return new MappedBufferWriter(TempFileContextEE.get(request), tempFileThreshold);
+  }
+
+  @Override
+  public void release(ServletRequest request, BufferWriter buffer) {
+    if (buffer instanceof MappedBufferWriter) {
+      ((MappedBufferWriter) buffer).release();
+    }
+  }
+}
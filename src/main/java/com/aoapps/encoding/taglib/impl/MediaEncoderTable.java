@@ -0,0 +1,107 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.encoding.EncodingContext;
+import com.aoapps.encoding.MediaEncoder;
+import com.aoapps.encoding.MediaType;
+
+/**
+ * Transition table over all pairs of {@link MediaType}, recording whether
+ * {@link MediaEncoder#getInstance(com.aoapps.encoding.EncodingContext, com.aoapps.encoding.MediaType, com.aoapps.encoding.MediaType)}
+ * returns an encoder.  Tags consult {@link #isEncoderRequired(com.aoapps.encoding.MediaType, com.aoapps.encoding.MediaType)}
+ * first, so the {@link EncodingContext} and encoder lookup are skipped for pairs that never need an encoder.
+ *
+ * <p>The table is learned from the first lookup of each pair.  Entries are single bytes that only ever go from
+ * unknown to a final value, so concurrent lookups at worst both resolve the same pair.</p>
+ *
+ * <p>Encoders themselves are still obtained per use, since tags may alter them through
+ * {@code setMediaEncoderOptions(MediaEncoder)}.  The table also records which pairs are served by a single shared
+ * encoder instance, which is then known to hold no per-use state.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class MediaEncoderTable {
+
+  /** Make no instances. */
+  private MediaEncoderTable() {
+    throw new AssertionError();
+  }
+
+  private static final byte UNKNOWN = 0;
+  private static final byte NONE = 1;
+  private static final byte REQUIRED = 2;
+
+  private static final int NUM_TYPES = MediaType.values().length;
+
+  private static final byte[] table = new byte[NUM_TYPES * NUM_TYPES];
+
+  private static final byte SHARED = 1;
+  private static final byte PER_USE = 2;
+
+  private static final byte[] sharedTable = new byte[NUM_TYPES * NUM_TYPES];
+
+  private static int index(MediaType outputType, MediaType containerType) {
+    return outputType.ordinal() * NUM_TYPES + containerType.ordinal();
+  }
+
+  /**
+   * Checks if an encoder may be required to write the given output type into the given container type.
+   *
+   * @return  {@code false} only when the pair is known to not require an encoder
+   */
+  public static boolean isEncoderRequired(MediaType outputType, MediaType containerType) {
+    return table[index(outputType, containerType)] != NONE;
+  }
+
+  /**
+   * Gets the encoder via {@link MediaEncoder#getInstance(com.aoapps.encoding.EncodingContext, com.aoapps.encoding.MediaType, com.aoapps.encoding.MediaType)},
+   * recording whether the pair requires an encoder.
+   */
+  public static MediaEncoder getInstance(EncodingContext encodingContext, MediaType outputType, MediaType containerType) {
+    MediaEncoder mediaEncoder = MediaEncoder.getInstance(encodingContext, outputType, containerType);
+    int index = index(outputType, containerType);
+    if (table[index] == UNKNOWN) {
+      table[index] = (mediaEncoder == null) ? NONE : REQUIRED;
+    }
+    return mediaEncoder;
+  }
+
+  /**
+   * Checks if the given pair is served by a single shared encoder instance.  Since shared encoders are used
+   * concurrently, they hold no per-use state and may be reused freely.  This is learned by performing one
+   * additional lookup for the pair and comparing the instances.
+   *
+   * @param  mediaEncoder  the encoder just obtained for the pair
+   */
+  public static boolean isEncoderShared(EncodingContext encodingContext, MediaType outputType, MediaType containerType, MediaEncoder mediaEncoder) {
+    int index = index(outputType, containerType);
+    byte shared = sharedTable[index];
+    if (shared == UNKNOWN) {
+      shared = (MediaEncoder.getInstance(encodingContext, outputType, containerType) == mediaEncoder) ? SHARED : PER_USE;
+      sharedTable[index] = shared;
+    }
+    return shared == SHARED;
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.encoding.MediaType;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the <code>type</code> attribute of tags to a {@link MediaType}, caching the result by the attribute
+ * value.  The cache is warmed by the tag extra info at translation time for literal types, when translated in the
+ * same JVM, and otherwise by the first invocation of each tag site.
+ *
+ * <p>The cache is bounded: once full, further types are resolved on each use without being added.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class MediaTypeCache {
+
+  /** Make no instances. */
+  private MediaTypeCache() {
+    throw new AssertionError();
+  }
+
+  /**
+   * The maximum number of distinct types cached.  Types normally come from a small set of literals, so this only
+   * protects against unbounded growth from dynamic values.
+   */
+  private static final int MAX_SIZE = 1000;
+
+  private static final ConcurrentMap<String, MediaType> cache = new ConcurrentHashMap<>();
+
+  /**
+   * Gets the media type first by {@linkplain MediaType#getMediaTypeByName(java.lang.String) name} then by
+   * {@linkplain MediaType#getMediaTypeForContentType(java.lang.String) content type}.
+   *
+   * @param  type  the trimmed type, never empty
+   */
+  public static MediaType getMediaType(String type) throws UnsupportedEncodingException {
+    if (type == null) {
+      MediaType mediaType = MediaType.getMediaTypeByName(null);
+      return (mediaType != null) ? mediaType : MediaType.getMediaTypeForContentType(null);
+    }
+    MediaType mediaType = cache.get(type);
+    if (mediaType == null) {
+      // First allow shortcuts (matching enum names)
+      mediaType = MediaType.getMediaTypeByName(type);
+      if (mediaType == null) {
+        mediaType = MediaType.getMediaTypeForContentType(type);
+      }
+      if (cache.size() < MAX_SIZE) {
+        cache.putIfAbsent(type, mediaType);
+      }
+    }
+    return mediaType;
+  }
+}
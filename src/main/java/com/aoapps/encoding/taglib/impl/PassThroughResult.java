@@ -0,0 +1,154 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.encoding.BufferedValidator;
+import com.aoapps.encoding.MediaType;
+import com.aoapps.io.buffer.BufferResult;
+import com.aoapps.lang.io.Encoder;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Wraps a captured body that has already been validated, so that writing it to the validator of the parent
+ * instead writes it in bulk directly to the output beneath that validator.
+ *
+ * @author  AO Industries, Inc.
+ *
+ * @see  RequestEncodingContext#unvalidatedOut
+ */
+public final class PassThroughResult implements BufferResult {
+
+  /**
+   * Wraps the captured body for pass-through when all of the following hold:
+   *
+   * <ol>
+   * <li>The parent provides an {@linkplain RequestEncodingContext#unvalidatedOut unvalidated output}</li>
+   * <li>The writer is the parent validator itself, so there is no intervening buffering that could be reordered</li>
+   * <li>The parent validator does not buffer</li>
+   * <li>The parent allows skipping validation of the content type the body was validated as.  This is the content
+   *     type, not the output type, since output of a weaker content type must still be validated as the output
+   *     type.</li>
+   * </ol>
+   *
+   * @param  out  the writer the body will be written to
+   *
+   * @param  contentType  the content type the captured body was validated as
+   *
+   * @return  the wrapped captured body or the captured body itself when pass-through is not possible
+   */
+  public static BufferResult wrap(
+      BufferResult capturedBody,
+      RequestEncodingContext parentEncodingContext,
+      Writer out,
+      MediaType contentType
+  ) {
+    if (
+        parentEncodingContext != null
+            && parentEncodingContext.unvalidatedOut != null
+            && out == parentEncodingContext.validMediaInput
+            && !(out instanceof BufferedValidator)
+            && parentEncodingContext.validMediaInput.canSkipValidation(contentType)
+    ) {
+      return new PassThroughResult(capturedBody, out, parentEncodingContext.unvalidatedOut);
+    }
+    return capturedBody;
+  }
+
+  private final BufferResult wrapped;
+  private final Writer validator;
+  private final Writer unvalidatedOut;
+
+  private PassThroughResult(BufferResult wrapped, Writer validator, Writer unvalidatedOut) {
+    this.wrapped = wrapped;
+    this.validator = validator;
+    this.unvalidatedOut = unvalidatedOut;
+  }
+
+  private Writer resolve(Writer out) {
+    return (out == validator) ? unvalidatedOut : out;
+  }
+
+  private BufferResult wrap(BufferResult result) {
+    return (result == wrapped) ? this : new PassThroughResult(result, validator, unvalidatedOut);
+  }
+
+  @Override
+  public long getLength() throws IOException {
+    return wrapped.getLength();
+  }
+
+  @Override
+  public boolean isFastToString() {
+    return wrapped.isFastToString();
+  }
+
+  @Override
+  public String toString() {
+    return wrapped.toString();
+  }
+
+  @Override
+  public void writeTo(Writer out) throws IOException {
+    wrapped.writeTo(resolve(out));
+  }
+
+  @Override
+  public void writeTo(Writer out, long off, long len) throws IOException {
+    wrapped.writeTo(resolve(out), off, len);
+  }
+
+  @Override
+  public void writeTo(Encoder encoder, Writer out) throws IOException {
+    if (encoder == null) {
+      writeTo(out);
+    } else {
+      wrapped.writeTo(encoder, out);
+    }
+  }
+
+  @Override
+  public void writeTo(Encoder encoder, Writer out, long off, long len) throws IOException {
+    if (encoder == null) {
+      writeTo(out, off, len);
+    } else {
+      wrapped.writeTo(encoder, out, off, len);
+    }
+  }
+
+  @Override
+  public BufferResult trim() throws IOException {
+    return wrap(wrapped.trim());
+  }
+
+  @Override
+  public BufferResult trimStart() throws IOException {
+    return wrap(wrapped.trimStart());
+  }
+
+  @Override
+  public BufferResult trimEnd() throws IOException {
+    return wrap(wrapped.trimEnd());
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.io.buffer.BufferWriter;
+import com.aoapps.servlet.attribute.ScopeEE;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestEvent;
+import javax.servlet.ServletRequestListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Releases the {@link PooledBufferWriter pooled buffers} of a request when the request ends, unless already
+ * {@linkplain #release(javax.servlet.ServletRequest, com.aoapps.io.buffer.BufferWriter) released} once their result
+ * was used.
+ *
+ * <p>When this listener is not active, such as in a <code>metadata-complete</code> web application that does not
+ * also declare it, the buffers not released early are left for garbage collection instead of being returned to the
+ * pool.</p>
+ *
+ * <p>The buffers of a request are guarded by their own lock, since sub-requests that copy the request attributes,
+ * such as those of ao-servlet-subrequest, share them and may run on other threads.  Such sub-requests must complete
+ * before their parent request ends.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+@WebListener("Releases pooled capture buffers at the end of each request.")
+public class PooledBufferReleaser implements ServletRequestListener {
+
+  /**
+   * The pooled buffers of a request not yet released, keyed by the buffer returned by the factory, which may wrap
+   * the pooled buffer.
+   */
+  private static final class Buffers {
+    private final Map<BufferWriter, PooledBufferWriter> buffers = new IdentityHashMap<>();
+  }
+
+  private static final ScopeEE.Request.Attribute<Buffers> REQUEST_ATTRIBUTE =
+      ScopeEE.REQUEST.attribute(PooledBufferReleaser.class.getName());
+
+  /**
+   * Registers a buffer to be released at the end of the given request.
+   *
+   * @param  buffer  the buffer returned by the factory, which may wrap the pooled buffer
+   */
+  static void register(ServletRequest request, BufferWriter buffer, PooledBufferWriter pooled) {
+    Buffers buffers = REQUEST_ATTRIBUTE.context(request).get();
+    if (buffers == null) {
+      buffers = new Buffers();
+      REQUEST_ATTRIBUTE.context(request).set(buffers);
+    }
+    synchronized (buffers) {
+      buffers.buffers.put(buffer, pooled);
+    }
+  }
+
+  /**
+   * Gets the number of buffers of the given request not yet released.
+   */
+  static int getRegisteredCount(ServletRequest request) {
+    Buffers buffers = REQUEST_ATTRIBUTE.context(request).get();
+    if (buffers == null) {
+      return 0;
+    }
+    synchronized (buffers) {
+      return buffers.buffers.size();
+    }
+  }
+
+  /**
+   * Releases a buffer before the end of the request.  Does nothing when the buffer has already been released.
+   *
+   * @param  buffer  the buffer returned by the factory, which may wrap the pooled buffer
+   */
+  static void release(ServletRequest request, BufferWriter buffer) {
+    Buffers buffers = REQUEST_ATTRIBUTE.context(request).get();
+    if (buffers != null) {
+      synchronized (buffers) {
+        PooledBufferWriter pooled = buffers.buffers.remove(buffer);
+        if (pooled != null) {
+          pooled.release();
+        }
+      }
+    }
+  }
+
+  @Override
+  public void requestInitialized(ServletRequestEvent event) {
+    // Do nothing
+  }
+
+  @Override
+  public void requestDestroyed(ServletRequestEvent event) {
+    ServletRequest request = event.getServletRequest();
+    Buffers buffers = REQUEST_ATTRIBUTE.context(request).get();
+    if (buffers != null) {
+      REQUEST_ATTRIBUTE.context(request).set(null);
+      synchronized (buffers) {
+        for (PooledBufferWriter pooled : buffers.buffers.values()) {
+          pooled.release();
+        }
+        buffers.buffers.clear();
+      }
+    }
+  }
+}
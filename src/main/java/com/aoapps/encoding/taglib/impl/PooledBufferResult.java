@@ -0,0 +1,153 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.io.buffer.BufferResult;
+import com.aoapps.lang.Strings;
+import com.aoapps.lang.io.Encoder;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The result from a {@link PooledBufferWriter}, written directly from its blocks.
+ *
+ * @author  AO Industries, Inc.
+ */
+final class PooledBufferResult implements BufferResult {
+
+  private static final int BLOCK_SIZE = CharBlockPool.BLOCK_SIZE;
+
+  private final PooledBufferWriter buffer;
+  private final long start;
+  private final long end;
+
+  PooledBufferResult(PooledBufferWriter buffer, long start, long end) {
+    this.buffer = buffer;
+    this.start = start;
+    this.end = end;
+  }
+
+  @Override
+  public long getLength() {
+    return end - start;
+  }
+
+  @Override
+  public boolean isFastToString() {
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    buffer.checkNotReleased();
+    long len = end - start;
+    if (len > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Result too long for a String: " + len);
+    }
+    StringBuilder sb = new StringBuilder((int) len);
+    long index = start;
+    while (index < end) {
+      int off = PooledBufferWriter.offsetInBlock(index);
+      int count = (int) Math.min(end - index, BLOCK_SIZE - off);
+      sb.append(buffer.blockAt(index), off, count);
+      index += count;
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public void writeTo(Writer out) throws IOException {
+    writeRange(null, out, start, end);
+  }
+
+  @Override
+  public void writeTo(Writer out, long off, long len) throws IOException {
+    writeRange(null, out, rangeStart(off, len), rangeStart(off, len) + len);
+  }
+
+  @Override
+  public void writeTo(Encoder encoder, Writer out) throws IOException {
+    writeRange(encoder, out, start, end);
+  }
+
+  @Override
+  public void writeTo(Encoder encoder, Writer out, long off, long len) throws IOException {
+    writeRange(encoder, out, rangeStart(off, len), rangeStart(off, len) + len);
+  }
+
+  private long rangeStart(long off, long len) {
+    if (off < 0 || len < 0 || off + len > end - start) {
+      throw new IndexOutOfBoundsException("off=" + off + ", len=" + len + ", length=" + (end - start));
+    }
+    return start + off;
+  }
+
+  private void writeRange(Encoder encoder, Writer out, long from, long to) throws IOException {
+    buffer.checkNotReleased();
+    long index = from;
+    while (index < to) {
+      int off = PooledBufferWriter.offsetInBlock(index);
+      int count = (int) Math.min(to - index, BLOCK_SIZE - off);
+      char[] block = buffer.blockAt(index);
+      if (encoder == null) {
+        out.write(block, off, count);
+      } else {
+        encoder.write(block, off, count, out);
+      }
+      index += count;
+    }
+  }
+
+  @Override
+  public BufferResult trim() {
+    return trim(true, true);
+  }
+
+  @Override
+  public BufferResult trimStart() {
+    return trim(true, false);
+  }
+
+  @Override
+  public BufferResult trimEnd() {
+    return trim(false, true);
+  }
+
+  private BufferResult trim(boolean trimStart, boolean trimEnd) {
+    buffer.checkNotReleased();
+    long newStart = start;
+    long newEnd = end;
+    if (trimStart) {
+      while (newStart < newEnd && Strings.isWhitespace(buffer.charAt(newStart))) {
+        newStart++;
+      }
+    }
+    if (trimEnd) {
+      while (newEnd > newStart && Strings.isWhitespace(buffer.charAt(newEnd - 1))) {
+        newEnd--;
+      }
+    }
+    return (newStart == start && newEnd == end) ? this : new PooledBufferResult(buffer, newStart, newEnd);
+  }
+}
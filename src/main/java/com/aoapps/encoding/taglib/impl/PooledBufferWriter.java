@@ -0,0 +1,219 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.io.buffer.BufferResult;
+import com.aoapps.io.buffer.BufferWriter;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes to a list of character blocks borrowed from {@link CharBlockPool}.  Unlike a growing array, nothing is
+ * copied as the buffer grows, and the blocks are recycled once {@link #release() released}.
+ *
+ * <p>The buffer and its result must not be used after being released.  This is not thread-safe.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class PooledBufferWriter extends BufferWriter {
+
+  private static final int BLOCK_SIZE = CharBlockPool.BLOCK_SIZE;
+
+  private final List<char[]> blocks = new ArrayList<>();
+
+  /**
+   * The block currently being written or {@code null} when none yet acquired.
+   */
+  private char[] current;
+
+  /**
+   * The number of characters used in the current block.
+   */
+  private int currentUsed;
+
+  private long length;
+
+  private boolean isClosed;
+
+  private boolean released;
+
+  private BufferResult result;
+
+  /**
+   * Ensures space for at least one character in the current block.
+   */
+  private void ensureSpace() throws IOException {
+    if (isClosed) {
+      throw new ClosedChannelException();
+    }
+    if (current == null || currentUsed == BLOCK_SIZE) {
+      current = CharBlockPool.acquire();
+      currentUsed = 0;
+      blocks.add(current);
+    }
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    ensureSpace();
+    current[currentUsed++] = (char) c;
+    length++;
+  }
+
+  @Override
+  public void write(char[] cbuf) throws IOException {
+    write(cbuf, 0, cbuf.length);
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    while (len > 0) {
+      ensureSpace();
+      int count = Math.min(len, BLOCK_SIZE - currentUsed);
+      System.arraycopy(cbuf, off, current, currentUsed, count);
+      currentUsed += count;
+      length += count;
+      off += count;
+      len -= count;
+    }
+  }
+
+  @Override
+  public void write(String str) throws IOException {
+    write(str, 0, str.length());
+  }
+
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    while (len > 0) {
+      ensureSpace();
+      int count = Math.min(len, BLOCK_SIZE - currentUsed);
+      str.getChars(off, off + count, current, currentUsed);
+      currentUsed += count;
+      length += count;
+      off += count;
+      len -= count;
+    }
+  }
+
+  @Override
+  public PooledBufferWriter append(CharSequence csq) throws IOException {
+    if (csq == null) {
+      write("null");
+    } else {
+      append(csq, 0, csq.length());
+    }
+    return this;
+  }
+
+  @Override
+  public PooledBufferWriter append(CharSequence csq, int start, int end) throws IOException {
+    if (csq == null) {
+      write("null", start, end - start);
+    } else if (csq instanceof String) {
+      write((String) csq, start, end - start);
+    } else {
+      for (int i = start; i < end; i++) {
+        write(csq.charAt(i));
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public PooledBufferWriter append(char c) throws IOException {
+    write(c);
+    return this;
+  }
+
+  @Override
+  public void flush() {
+    // Nothing to flush
+  }
+
+  @Override
+  public void close() {
+    isClosed = true;
+  }
+
+  @Override
+  public long getLength() {
+    return length;
+  }
+
+  @Override
+  public String toString() {
+    return "PooledBufferWriter(length=" + length + ", blocks=" + blocks.size() + ')';
+  }
+
+  @Override
+  public BufferResult getResult() throws IllegalStateException {
+    if (!isClosed) {
+      throw new IllegalStateException("Not closed");
+    }
+    checkNotReleased();
+    if (result == null) {
+      result = new PooledBufferResult(this, 0, length);
+    }
+    return result;
+  }
+
+  /**
+   * Returns all blocks to the pool.  Any further use of this buffer or its result is an error.
+   */
+  public void release() {
+    if (!released) {
+      released = true;
+      isClosed = true;
+      for (char[] block : blocks) {
+        CharBlockPool.release(block);
+      }
+      blocks.clear();
+      current = null;
+    }
+  }
+
+  void checkNotReleased() throws IllegalStateException {
+    if (released) {
+      throw new IllegalStateException("Pooled buffer used after having been released");
+    }
+  }
+
+  char charAt(long index) {
+    return blocks.get((int) (index / BLOCK_SIZE))[(int) (index % BLOCK_SIZE)];
+  }
+
+  /**
+   * Gets the block containing the given index.
+   */
+  char[] blockAt(long index) {
+    return blocks.get((int) (index / BLOCK_SIZE));
+  }
+
+  static int offsetInBlock(long index) {
+    return (int) (index % BLOCK_SIZE);
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.encoding.taglib.BufferWriterFactory;
+import com.aoapps.io.buffer.BufferWriter;
+import javax.servlet.ServletRequest;
+
+/**
+ * Captures into a {@link PooledBufferWriter}, recycling its character blocks across requests.
+ *
+ * <p>The blocks are returned to the pool once the result has been used, such as when written or when the tag that
+ * captured it completes, and otherwise at the end of the request.  This must only be selected when no captured
+ * result is retained beyond the tag that created it, such as in a page, request, session, or application
+ * attribute.</p>
+ *
+ * @author  AO Industries, Inc.
+ *
+ * @see  PooledBufferReleaser
+ */
+public class PooledBufferWriterFactory implements BufferWriterFactory {
+
+  public static final String NAME = "pooled";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public BufferWriter newBufferWriter(ServletRequest request, long tempFileThreshold) {
+    PooledBufferWriter pooled = new PooledBufferWriter();
+    BufferWriter buffer = BufferWriterFactories.autoTempFile(pooled, request, tempFileThreshold);
+    PooledBufferReleaser.register(request, buffer, pooled);
+    return buffer;
+  }
+
+  @Override
+  public void release(ServletRequest request, BufferWriter buffer) {
+    PooledBufferReleaser.release(request, buffer);
+  }
+}
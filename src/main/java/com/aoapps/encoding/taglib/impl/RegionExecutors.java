@@ -0,0 +1,105 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.encoding.taglib.ParallelTag;
+import com.aoapps.servlet.attribute.ScopeEE;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * The default executor of the region tasks of {@link ParallelTag}, one per web application.  Tasks are run on virtual
+ * threads when available, or on a pool of daemon threads.  The executor is shut down when the web application is
+ * stopped, so no threads outlive it.
+ *
+ * @author  AO Industries, Inc.
+ */
+@WebListener("Shuts down the default executor of parallel region tasks.")
+public class RegionExecutors implements ServletContextListener {
+
+  private static final Logger logger = Logger.getLogger(RegionExecutors.class.getName());
+
+  private static final ScopeEE.Application.Attribute<ExecutorService> APPLICATION_ATTRIBUTE =
+      ScopeEE.APPLICATION.attribute(RegionExecutors.class.getName());
+
+  /**
+   * Gets the default executor for the given web application, creating on first use.
+   */
+  public static ExecutorService getInstance(ServletContext servletContext) {
+    synchronized (servletContext) {
+      ExecutorService executor = APPLICATION_ATTRIBUTE.context(servletContext).get();
+      if (executor == null) {
+        executor = newExecutor(servletContext);
+        APPLICATION_ATTRIBUTE.context(servletContext).set(executor);
+      }
+      return executor;
+    }
+  }
+
+  private static ExecutorService newExecutor(ServletContext servletContext) {
+    try {
+      // Java 21+
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      if (logger.isLoggable(Level.FINE)) {
+        logger.log(Level.FINE, "Virtual threads not available, using a pool of daemon threads", e);
+      }
+      String namePrefix = ParallelTag.class.getName() + servletContext.getContextPath() + ".region-";
+      AtomicInteger threadNum = new AtomicInteger();
+      ThreadFactory threadFactory = runnable -> {
+        Thread thread = new Thread(runnable, namePrefix + threadNum.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      };
+      return Executors.newCachedThreadPool(threadFactory);
+    }
+  }
+
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    // Created on first use
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    ServletContext servletContext = event.getServletContext();
+    ExecutorService executor;
+    synchronized (servletContext) {
+      executor = APPLICATION_ATTRIBUTE.context(servletContext).get();
+      APPLICATION_ATTRIBUTE.context(servletContext).set(null);
+    }
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -1,6 +1,6 @@
 /*
  * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
- * Copyright (C) 2012, 2016, 2017, 2020, 2021, 2022, 2025  AO Industries, Inc.
+ * Copyright (C) 2012, 2016, 2017, 2020, 2021, 2022, 2025, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -30,6 +30,7 @@ import com.aoapps.encoding.ValidMediaInput;
 import com.aoapps.lang.NullArgumentException;
 import com.aoapps.lang.io.NullWriter;
 import com.aoapps.servlet.attribute.ScopeEE;
+import java.io.Writer;
 import javax.servlet.ServletRequest;
 
 /**
@@ -45,15 +46,47 @@ import javax.servlet.ServletRequest;
 //       Basically, how do we know when in a new page, and the old tag context is not actually what we want?
 public class RequestEncodingContext {
 
-  private static final ScopeEE.Request.Attribute<RequestEncodingContext> CURRENT_CONTEXT_REQUEST_ATTRIBUTE =
-      ScopeEE.REQUEST.attribute(RequestEncodingContext.class.getName() + ".currentContext");
+  /**
+   * The current context of a request.  This is stored as a request attribute once per request, then updated in-place
+   * as tags are entered and exited.  This avoids a request attribute update, along with any
+   * {@link javax.servlet.ServletRequestAttributeListener} notifications, on every tag boundary.
+   *
+   * <p>The holder is only updated by the request that owns it.  Other requests that see the holder through their
+   * attributes, such as sub-requests that copy the attributes of their parent or the request wrappers of includes,
+   * get the current context from it, but set their own holder on their first update.  This way, a sub-request, which
+   * may run on another thread, does not change the context of its parent.</p>
+   */
+  private static final class Current {
+
+    private final ServletRequest request;
+
+    private volatile RequestEncodingContext context;
+
+    private Current(ServletRequest request) {
+      this.request = request;
+    }
+  }
+
+  private static final ScopeEE.Request.Attribute<Current> CURRENT_REQUEST_ATTRIBUTE =
+      ScopeEE.REQUEST.attribute(RequestEncodingContext.class.getName() + ".current");
 
   public static RequestEncodingContext getCurrentContext(ServletRequest request) {
-    return CURRENT_CONTEXT_REQUEST_ATTRIBUTE.context(request).get();
+    Current current = CURRENT_REQUEST_ATTRIBUTE.context(request).get();
+    return (current == null) ? null : current.context;
   }
 
   public static void setCurrentContext(ServletRequest request, RequestEncodingContext context) {
-    CURRENT_CONTEXT_REQUEST_ATTRIBUTE.context(request).set(context);
+    Current current = CURRENT_REQUEST_ATTRIBUTE.context(request).get();
+    if (current == null || current.request != request) {
+      if (current == null && context == null) {
+        // Nothing to clear
+        return;
+      }
+      // Not yet set or owned by another request
+      current = new Current(request);
+      CURRENT_REQUEST_ATTRIBUTE.context(request).set(current);
+    }
+    current.context = context;
   }
 
   /**
@@ -96,8 +129,22 @@ public class RequestEncodingContext {
    */
   public final ValidMediaInput validMediaInput;
 
-  public RequestEncodingContext(MediaType contentType, ValidMediaInput validMediaInput) {
+  /**
+   * The output beneath {@link #validMediaInput}, where already-validated characters may be written directly when
+   * {@link ValidMediaInput#canSkipValidation(com.aoapps.encoding.MediaType)} allows.
+   * This is {@code null} when not available.
+   *
+   * @see  PassThroughResult
+   */
+  public final Writer unvalidatedOut;
+
+  public RequestEncodingContext(MediaType contentType, ValidMediaInput validMediaInput, Writer unvalidatedOut) {
     this.contentType = NullArgumentException.checkNotNull(contentType, "contentType");
     this.validMediaInput = NullArgumentException.checkNotNull(validMediaInput, "validMediaInput");
+    this.unvalidatedOut = unvalidatedOut;
+  }
+
+  public RequestEncodingContext(MediaType contentType, ValidMediaInput validMediaInput) {
+    this(contentType, validMediaInput, null);
   }
 }
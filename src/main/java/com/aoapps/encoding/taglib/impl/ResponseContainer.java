@@ -0,0 +1,145 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.MediaValidator;
+import com.aoapps.servlet.attribute.ScopeEE;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+/**
+ * The container type and validator of top-level tags, resolved from the response content type.  This is cached as
+ * a request attribute since pages commonly have many sibling top-level tags, which would otherwise each re-parse the
+ * content type and create a new validator.
+ *
+ * <p>The cache is replaced when the response content type changes.  The validator is only shared sequentially:
+ * it is reused while not in use, for the same output writer, and only after having been
+ * {@linkplain #release(com.aoapps.encoding.MediaValidator) released} following a successful validation.</p>
+ *
+ * <p>The container is owned by the request that created it.  Other requests that see the container through their
+ * attributes, such as sub-requests that copy the attributes of their parent, create their own container instead of
+ * sharing the validator, which is not thread-safe.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class ResponseContainer {
+
+  private static final ScopeEE.Request.Attribute<ResponseContainer> REQUEST_ATTRIBUTE =
+      ScopeEE.REQUEST.attribute(ResponseContainer.class.getName());
+
+  /**
+   * Gets the container for the current response content type, defaulting to {@link MediaType#XHTML} when the
+   * response has no content type.
+   */
+  public static ResponseContainer getInstance(ServletRequest request, ServletResponse response) throws UnsupportedEncodingException {
+    String responseContentType = response.getContentType();
+    // Default to XHTML: TODO: Is there a better way since can't set content type early in response then reset again...
+    if (responseContentType == null) {
+      responseContentType = MediaType.XHTML.getContentType();
+    }
+    ResponseContainer container = REQUEST_ATTRIBUTE.context(request).get();
+    if (
+        container == null
+            || container.request != request
+            || !container.responseContentType.equals(responseContentType)
+    ) {
+      container = new ResponseContainer(
+          request,
+          responseContentType,
+          MediaType.getMediaTypeForContentType(responseContentType)
+      );
+      REQUEST_ATTRIBUTE.context(request).set(container);
+    }
+    return container;
+  }
+
+  /**
+   * The request that owns this container.
+   */
+  private final ServletRequest request;
+
+  private final String responseContentType;
+
+  /**
+   * The container type parsed from the response content type.
+   */
+  public final MediaType containerType;
+
+  private Writer validatorOut;
+  private MediaValidator validator;
+  private boolean validatorInUse;
+
+  private ResponseContainer(ServletRequest request, String responseContentType, MediaType containerType) {
+    this.request = request;
+    this.responseContentType = responseContentType;
+    this.containerType = containerType;
+  }
+
+  /**
+   * Gets the response content type this container was resolved from.
+   */
+  public String getResponseContentType() {
+    return responseContentType;
+  }
+
+  /**
+   * Gets a validator of {@link #containerType} writing to the given output.  The previous validator is reused when
+   * it has been released and writes to the same output.  Otherwise, a new validator is created, which becomes
+   * the shared validator only when the current one is not in use.
+   */
+  public MediaValidator getValidator(Writer out) {
+    if (validatorInUse) {
+      // Nested or failed use, do not share
+      return MediaValidator.getMediaValidator(containerType, out);
+    }
+    if (validator == null || validatorOut != out) {
+      validator = MediaValidator.getMediaValidator(containerType, out);
+      validatorOut = out;
+    }
+    validatorInUse = true;
+    return validator;
+  }
+
+  /**
+   * Checks if the given writer is the shared validator, which is stable across sibling top-level tags while the
+   * response content type and output writer do not change.
+   */
+  public boolean isShared(Writer out) {
+    return out == validator;
+  }
+
+  /**
+   * Releases a validator obtained from {@link #getValidator(java.io.Writer)} for reuse.  This must only be called
+   * after a successful {@link MediaValidator#validate(boolean)}, since a validator that failed may still hold
+   * state.  Validators that are not released are simply not reused.
+   */
+  public void release(MediaValidator released) {
+    if (released == validator) {
+      validatorInUse = false;
+    }
+  }
+}
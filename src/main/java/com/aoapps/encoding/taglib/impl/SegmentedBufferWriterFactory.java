@@ -0,0 +1,49 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.encoding.taglib.BufferWriterFactory;
+import com.aoapps.io.buffer.BufferWriter;
+import com.aoapps.io.buffer.SegmentedWriter;
+import javax.servlet.ServletRequest;
+
+/**
+ * Captures into a {@link SegmentedWriter}, which avoids copying when the body is written as a few large strings.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class SegmentedBufferWriterFactory implements BufferWriterFactory {
+
+  public static final String NAME = "segmented";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public BufferWriter newBufferWriter(ServletRequest request, long tempFileThreshold) {
+    return BufferWriterFactories.autoTempFile(new SegmentedWriter(), request, tempFileThreshold);
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.io.buffer.BufferResult;
+import com.aoapps.lang.io.Encoder;
+import com.aoapps.lang.io.EncoderWriter;
+import com.aoapps.lang.io.NullWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import javax.servlet.jsp.JspException;
+
+/**
+ * A body that is not captured up front.  Writing the whole body to a writer invokes the body directly on that
+ * writer, streaming its output instead of buffering it.  Any other use of the body captures it first, after which
+ * it behaves as any captured body.
+ *
+ * <p>The body may be streamed only once and may not be captured once streamed.</p>
+ *
+ * <p>A {@link JspException} thrown by the body, including {@link javax.servlet.jsp.SkipPageException}, is thrown
+ * through the {@link BufferResult} methods as a {@link BodyException}, which the tag unwraps to rethrow the original
+ * exception unchanged.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class StreamingResult implements BufferResult {
+
+  /**
+   * Invokes the body, validating its output against the content type.
+   */
+  @FunctionalInterface
+  public interface Body {
+
+    /**
+     * @param  out  Receives the body output once validated.
+     */
+    void invoke(Writer out) throws JspException, IOException;
+  }
+
+  /**
+   * Captures the body.
+   */
+  @FunctionalInterface
+  public interface Capture {
+    BufferResult capture() throws JspException, IOException;
+  }
+
+  /**
+   * Carries a {@link JspException} thrown by the body through the {@link BufferResult} methods, which may only throw
+   * {@link IOException}.
+   */
+  public static final class BodyException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private BodyException(JspException cause) {
+      super(cause);
+    }
+
+    @Override
+    public JspException getCause() {
+      return (JspException) super.getCause();
+    }
+  }
+
+  private final Body body;
+  private final Capture capture;
+  private boolean invoked;
+  private BufferResult captured;
+
+  public StreamingResult(Body body, Capture capture) {
+    this.body = body;
+    this.capture = capture;
+  }
+
+  private void checkNotInvoked() {
+    if (invoked) {
+      throw new IllegalStateException("Body already streamed");
+    }
+    invoked = true;
+  }
+
+  private void stream(Writer out) throws IOException {
+    checkNotInvoked();
+    try {
+      body.invoke(out);
+    } catch (JspException e) {
+      throw new BodyException(e);
+    }
+  }
+
+  private BufferResult captured() throws IOException {
+    if (captured == null) {
+      checkNotInvoked();
+      try {
+        captured = capture.capture();
+      } catch (JspException e) {
+        throw new BodyException(e);
+      }
+    }
+    return captured;
+  }
+
+  /**
+   * Invokes the body when neither streamed nor captured, discarding its output.  The body is always invoked once,
+   * as it would be when captured up front.
+   */
+  public void finish() throws IOException {
+    if (!invoked) {
+      stream(NullWriter.getInstance());
+    }
+  }
+
+  @Override
+  public long getLength() throws IOException {
+    return captured().getLength();
+  }
+
+  @Override
+  public boolean isFastToString() {
+    return captured != null && captured.isFastToString();
+  }
+
+  @Override
+  public String toString() {
+    try {
+      return captured().toString();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void writeTo(Writer out) throws IOException {
+    if (captured != null) {
+      captured.writeTo(out);
+    } else {
+      stream(out);
+    }
+  }
+
+  @Override
+  public void writeTo(Writer out, long off, long len) throws IOException {
+    captured().writeTo(out, off, len);
+  }
+
+  @Override
+  public void writeTo(Encoder encoder, Writer out) throws IOException {
+    if (encoder == null) {
+      writeTo(out);
+    } else if (captured != null) {
+      captured.writeTo(encoder, out);
+    } else {
+      stream(new EncoderWriter(encoder, out));
+    }
+  }
+
+  @Override
+  public void writeTo(Encoder encoder, Writer out, long off, long len) throws IOException {
+    captured().writeTo(encoder, out, off, len);
+  }
+
+  @Override
+  public BufferResult trim() throws IOException {
+    return captured().trim();
+  }
+
+  @Override
+  public BufferResult trimStart() throws IOException {
+    return captured().trimStart();
+  }
+
+  @Override
+  public BufferResult trimEnd() throws IOException {
+    return captured().trimEnd();
+  }
+}
@@ -0,0 +1,248 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.encoding.taglib.TagMetricsMXBean;
+import com.aoapps.servlet.attribute.ScopeEE;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.servlet.ServletContext;
+
+/**
+ * Counts the encoding activity of the tags within a web application.  All counters are {@link LongAdder}, so
+ * concurrent requests do not contend on updates.
+ *
+ * @author  AO Industries, Inc.
+ *
+ * @see  TagMetricsRegistrar
+ */
+public final class TagMetrics implements TagMetricsMXBean {
+
+  private static final ScopeEE.Application.Attribute<TagMetrics> APPLICATION_ATTRIBUTE =
+      ScopeEE.APPLICATION.attribute(TagMetrics.class.getName());
+
+  /**
+   * Gets the metrics for the given web application, creating on first use.  Creation is synchronized on the
+   * {@link ServletContext} so concurrent first requests share the same metrics.
+   */
+  public static TagMetrics getInstance(ServletContext servletContext) {
+    TagMetrics metrics = APPLICATION_ATTRIBUTE.context(servletContext).get();
+    if (metrics != null) {
+      return metrics;
+    }
+    synchronized (servletContext) {
+      metrics = APPLICATION_ATTRIBUTE.context(servletContext).get();
+      if (metrics == null) {
+        metrics = new TagMetrics();
+        APPLICATION_ATTRIBUTE.context(servletContext).set(metrics);
+      }
+      return metrics;
+    }
+  }
+
+  private final ConcurrentMap<Class<?>, LongAdder> invocations = new ConcurrentHashMap<>();
+  private final LongAdder captures = new LongAdder();
+  private final LongAdder capturedCharacters = new LongAdder();
+  private final LongAdder tempFileSpills = new LongAdder();
+  private final LongAdder encoderPaths = new LongAdder();
+  private final LongAdder validatorPaths = new LongAdder();
+  private final LongAdder passThroughPaths = new LongAdder();
+  private final LongAdder encodeNanos = new LongAdder();
+  private final LongAdder validateNanos = new LongAdder();
+  private final LongAdder cacheHits = new LongAdder();
+  private final LongAdder cacheMisses = new LongAdder();
+  private final LongAdder cacheEvictions = new LongAdder();
+
+  private TagMetrics() {
+  }
+
+  /**
+   * Counts an invocation of the given tag class.
+   */
+  public void invoked(Class<?> tagClass) {
+    LongAdder counter = invocations.get(tagClass);
+    if (counter == null) {
+      counter = invocations.computeIfAbsent(tagClass, c -> new LongAdder());
+    }
+    counter.increment();
+  }
+
+  /**
+   * Counts a completed capture.
+   *
+   * @param  tempFileThreshold  the threshold used for the capture, or {@link Long#MAX_VALUE} when temp files are not
+   *                            used
+   */
+  public void captured(long length, long tempFileThreshold) {
+    captures.increment();
+    capturedCharacters.add(length);
+    if (length > tempFileThreshold) {
+      tempFileSpills.increment();
+    }
+  }
+
+  /**
+   * Counts the encoder path, without timing.
+   */
+  public void encoderPath() {
+    encoderPaths.increment();
+  }
+
+  /**
+   * Counts the encoder path along with the time spent.
+   */
+  public void encoded(long nanos) {
+    encoderPaths.increment();
+    encodeNanos.add(nanos);
+  }
+
+  /**
+   * Counts the validator path, without timing.
+   */
+  public void validatorPath() {
+    validatorPaths.increment();
+  }
+
+  /**
+   * Counts the validator path along with the time spent.
+   */
+  public void validated(long nanos) {
+    validatorPaths.increment();
+    validateNanos.add(nanos);
+  }
+
+  /**
+   * Counts the pass-through path.
+   */
+  public void passedThrough() {
+    passThroughPaths.increment();
+  }
+
+  /**
+   * Counts a cache hit.
+   */
+  public void cacheHit() {
+    cacheHits.increment();
+  }
+
+  /**
+   * Counts a cache miss.
+   */
+  public void cacheMiss() {
+    cacheMisses.increment();
+  }
+
+  /**
+   * Counts entries evicted from the cache.
+   */
+  public void cacheEvicted(int count) {
+    cacheEvictions.add(count);
+  }
+
+  @Override
+  public Map<String, Long> getInvocations() {
+    SortedMap<String, Long> map = new TreeMap<>();
+    for (Map.Entry<Class<?>, LongAdder> entry : invocations.entrySet()) {
+      map.merge(entry.getKey().getName(), entry.getValue().sum(), Long::sum);
+    }
+    return map;
+  }
+
+  @Override
+  public long getCaptures() {
+    return captures.sum();
+  }
+
+  @Override
+  public long getCapturedCharacters() {
+    return capturedCharacters.sum();
+  }
+
+  @Override
+  public long getTempFileSpills() {
+    return tempFileSpills.sum();
+  }
+
+  @Override
+  public long getEncoderPaths() {
+    return encoderPaths.sum();
+  }
+
+  @Override
+  public long getValidatorPaths() {
+    return validatorPaths.sum();
+  }
+
+  @Override
+  public long getPassThroughPaths() {
+    return passThroughPaths.sum();
+  }
+
+  @Override
+  public long getEncodeNanos() {
+    return encodeNanos.sum();
+  }
+
+  @Override
+  public long getValidateNanos() {
+    return validateNanos.sum();
+  }
+
+  @Override
+  public long getCacheHits() {
+    return cacheHits.sum();
+  }
+
+  @Override
+  public long getCacheMisses() {
+    return cacheMisses.sum();
+  }
+
+  @Override
+  public long getCacheEvictions() {
+    return cacheEvictions.sum();
+  }
+
+  @Override
+  public void reset() {
+    for (LongAdder counter : invocations.values()) {
+      counter.reset();
+    }
+    captures.reset();
+    capturedCharacters.reset();
+    tempFileSpills.reset();
+    encoderPaths.reset();
+    validatorPaths.reset();
+    passThroughPaths.reset();
+    encodeNanos.reset();
+    validateNanos.reset();
+    cacheHits.reset();
+    cacheMisses.reset();
+    cacheEvictions.reset();
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Registers the {@link TagMetrics} of each web application with the platform {@link MBeanServer}, unregistering
+ * when the web application is stopped.
+ *
+ * @author  AO Industries, Inc.
+ */
+@WebListener("Registers the tag encoding metrics MBean.")
+public class TagMetricsRegistrar implements ServletContextListener {
+
+  private static final Logger logger = Logger.getLogger(TagMetricsRegistrar.class.getName());
+
+  private static ObjectName getObjectName(ServletContext servletContext) throws MalformedObjectNameException {
+    String contextPath = servletContext.getContextPath();
+    return new ObjectName(
+        "com.aoapps.encoding.taglib:type=TagMetrics"
+            + ",host=" + ObjectName.quote(servletContext.getVirtualServerName())
+            + ",context=" + ObjectName.quote(contextPath.isEmpty() ? "/" : contextPath)
+    );
+  }
+
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    ServletContext servletContext = event.getServletContext();
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(
+          TagMetrics.getInstance(servletContext),
+          getObjectName(servletContext)
+      );
+    } catch (JMException e) {
+      logger.log(Level.WARNING, "Unable to register tag metrics MBean", e);
+    }
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    try {
+      ObjectName name = getObjectName(event.getServletContext());
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+    } catch (JMException e) {
+      logger.log(Level.WARNING, "Unable to unregister tag metrics MBean", e);
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Unmaps memory-mapped buffers explicitly through {@code sun.misc.Unsafe.invokeCleaner}, from the
+ * {@code jdk.unsupported} module, instead of waiting for garbage collection.  When not available, the mappings are
+ * released once the buffers are garbage collected.
+ *
+ * <p>A buffer must not be accessed after being unmapped, which would crash the virtual machine.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class Unmapper {
+
+  /** Make no instances. */
+  private Unmapper() {
+    throw new AssertionError();
+  }
+
+  private static final Logger logger = Logger.getLogger(Unmapper.class.getName());
+
+  private static final Object UNSAFE;
+  private static final Method INVOKE_CLEANER;
+
+  static {
+    Object unsafe;
+    Method invokeCleaner;
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      unsafe = theUnsafe.get(null);
+      invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+    } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+      logger.log(Level.FINE, "Unable to unmap explicitly, mappings released by garbage collection", e);
+      unsafe = null;
+      invokeCleaner = null;
+    }
+    UNSAFE = unsafe;
+    INVOKE_CLEANER = invokeCleaner;
+  }
+
+  /**
+   * Unmaps a buffer, which must not be a slice or duplicate.
+   *
+   * @return  {@code true} when unmapped or {@code false} when left to garbage collection
+   */
+  static boolean unmap(MappedByteBuffer buffer) {
+    if (INVOKE_CLEANER != null) {
+      try {
+        INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        return true;
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        logger.log(Level.FINE, "Unable to unmap explicitly", e);
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.encoding.MediaType;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for the final validation of output.
+ *
+ * <p>When flight recorder is not available, or the event is not enabled in any recording, a shared no-op instance
+ * is used without allocating or beginning an event.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class ValidateEvent {
+
+  private static final ValidateEvent NOT_RECORDED = new ValidateEvent(null);
+
+  /**
+   * Creates and begins a new event.
+   */
+  public static ValidateEvent start() {
+    if (!FlightRecorder.AVAILABLE || !Recorded.TYPE.isEnabled()) {
+      return NOT_RECORDED;
+    }
+    Recorded recorded = new Recorded();
+    recorded.begin();
+    return new ValidateEvent(recorded);
+  }
+
+  /**
+   * The flight recorder event, only loaded when flight recorder is available.
+   */
+  @Name("com.aoapps.encoding.taglib.Validate")
+  @Label("Final Validation")
+  @Category({"AO Apps", "Encoding Taglib"})
+  @Description("The final validation of the output of a tag, or of a captured body")
+  private static final class Recorded extends Event {
+
+    /**
+     * The type of the event, checked for being enabled before allocating each event.
+     */
+    private static final EventType TYPE = EventType.getEventType(Recorded.class);
+
+    @Label("Tag Class")
+    private Class<?> tagClass;
+
+    @Label("Media Type")
+    private String mediaType;
+
+    private void commit(Class<?> tagClass, MediaType mediaType) {
+      end();
+      if (shouldCommit()) {
+        this.tagClass = tagClass;
+        this.mediaType = mediaType.name();
+        commit();
+      }
+    }
+  }
+
+  private final Recorded recorded;
+
+  private ValidateEvent(Recorded recorded) {
+    this.recorded = recorded;
+  }
+
+  /**
+   * Ends and commits the event when recording.
+   */
+  public void commit(Class<?> tagClass, MediaType mediaType) {
+    if (recorded != null) {
+      recorded.commit(tagClass, mediaType);
+    }
+  }
+}
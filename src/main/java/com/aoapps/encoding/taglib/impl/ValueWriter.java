@@ -0,0 +1,150 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import com.aoapps.lang.Coercion;
+import com.aoapps.lang.io.Writable;
+import java.io.IOException;
+import java.io.Writer;
+import org.w3c.dom.Node;
+
+/**
+ * Writes the values of <code>&lt;ao:out&gt;</code> with type-specialized paths for the most common types, avoiding
+ * the intermediate {@link String} and dynamic type checks of
+ * {@link Coercion#write(java.lang.Object, java.io.Writer, boolean)}.  All other types are written by
+ * {@link Coercion}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class ValueWriter {
+
+  /** Make no instances. */
+  private ValueWriter() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Checks if a value may be the result of a resource bundle lookup, and thus should be converted to a
+   * {@link String} for bundle lookup markup.  Numbers, booleans, and characters are never bundle lookup results,
+   * and other types are excluded to avoid an intermediate {@link String}.
+   */
+  public static boolean isLookupCandidate(Object value) {
+    return
+        // Avoid intermediate String from Writable
+        (
+            !(value instanceof Writable)
+                || ((Writable) value).isFastToString()
+        )
+            // Other types that will not be converted to String for bundle lookups
+            && !(value instanceof char[])
+            && !(value instanceof Node)
+            && !(value instanceof Number)
+            && !(value instanceof Boolean)
+            && !(value instanceof Character);
+  }
+
+  /**
+   * Writes a value.
+   *
+   * @param  out  Already optimized via {@link Coercion#optimize(java.io.Writer, com.aoapps.lang.io.Encoder)}.
+   */
+  public static void write(Object value, Writer out) throws IOException {
+    if (value instanceof String) {
+      out.write((String) value);
+    } else if (value instanceof Integer) {
+      writeLong((Integer) value, out);
+    } else if (value instanceof Long) {
+      writeLong((Long) value, out);
+    } else if (value instanceof Boolean) {
+      out.write((Boolean) value ? "true" : "false");
+    } else if (value instanceof char[]) {
+      char[] chars = (char[]) value;
+      out.write(chars, 0, chars.length);
+    } else if (value instanceof Character) {
+      out.write((Character) value);
+    } else if (value instanceof Short) {
+      writeLong((Short) value, out);
+    } else if (value instanceof Byte) {
+      writeLong((Byte) value, out);
+    } else if (value instanceof StringBuilder) {
+      writeChars((StringBuilder) value, out);
+    } else {
+      Coercion.write(value, out, true);
+    }
+  }
+
+  /**
+   * The maximum number of characters in the decimal representation of a {@code long}, which is
+   * {@code "-9223372036854775808"}.
+   */
+  private static final int MAX_LONG_CHARS = 20;
+
+  /**
+   * Writes the decimal representation of a {@code long} without creating a {@link String}.  The digits are formatted
+   * least significant first into a local array, then written in a single call.
+   */
+  static void writeLong(long value, Writer out) throws IOException {
+    char[] buf = new char[MAX_LONG_CHARS];
+    int pos = MAX_LONG_CHARS;
+    // Accumulate negatively to handle Long.MIN_VALUE
+    long remaining = (value < 0) ? value : -value;
+    do {
+      long quotient = remaining / 10;
+      buf[--pos] = (char) ('0' + (int) (quotient * 10 - remaining));
+      remaining = quotient;
+    } while (remaining != 0);
+    if (value < 0) {
+      buf[--pos] = '-';
+    }
+    out.write(buf, pos, MAX_LONG_CHARS - pos);
+  }
+
+  /**
+   * Writes the characters of a {@link StringBuilder}.  Builders that fit in a single block are written through
+   * {@link StringBuilder#toString()}, since its short-lived copy is cheaper than acquiring a block from the shared
+   * {@link CharBlockPool}.  Longer builders are written in bulk through a pooled block, without the intermediate
+   * {@link String} of {@link Writer#append(java.lang.CharSequence)}.
+   */
+  static void writeChars(StringBuilder sb, Writer out) throws IOException {
+    int length = sb.length();
+    if (length <= CharBlockPool.BLOCK_SIZE) {
+      if (length > 0) {
+        out.write(sb.toString());
+      }
+    } else {
+      char[] block = CharBlockPool.acquire();
+      try {
+        int pos = 0;
+        while (pos < length) {
+          int end = Math.min(pos + CharBlockPool.BLOCK_SIZE, length);
+          sb.getChars(pos, end, block, 0);
+          out.write(block, 0, end - pos);
+          pos = end;
+        }
+      } finally {
+        CharBlockPool.release(block);
+      }
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.legacy;
+
+import java.io.Writer;
+import javax.servlet.jsp.JspTagException;
+import javax.servlet.jsp.tagext.BodyContent;
+
+/**
+ * Redirects the output of a container's {@link BodyContent} directly to a writer, bypassing its buffer.  Without an
+ * implementation for the container, legacy body tags fall back to copying the buffered body content.
+ *
+ * <p>Implementations are located by {@link java.util.ServiceLoader} and tried in turn until one unbuffers the body
+ * content.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public interface BodyContentUnbufferer {
+
+  /**
+   * Unbuffers the body content, when supported.
+   *
+   * @param  writer  receives all further output of the body content
+   *
+   * @return  {@code true} when unbuffered or {@code false} when the body content is not supported by this
+   *          implementation
+   */
+  boolean unbuffer(BodyContent bodyContent, Writer writer) throws JspTagException;
+}
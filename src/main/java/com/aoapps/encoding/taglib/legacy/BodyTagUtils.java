@@ -1,6 +1,6 @@
 /*
  * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
- * Copyright (C) 2020, 2021, 2022, 2024  AO Industries, Inc.
+ * Copyright (C) 2020, 2021, 2022, 2024, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -31,8 +31,11 @@ import static javax.servlet.jsp.tagext.Tag.SKIP_PAGE;
 import com.aoapps.lang.i18n.Resources;
 import com.aoapps.servlet.jsp.LocalizedJspTagException;
 import java.io.Writer;
-import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.servlet.jsp.JspTagException;
@@ -44,7 +47,6 @@ import javax.servlet.jsp.tagext.BodyTag;
  *
  * @author  AO Industries, Inc.
  */
-@SuppressWarnings({"UseSpecificCatch", "TooBroadCatch"})
 final class BodyTagUtils  {
 
   /** Make no instances. */
@@ -76,66 +78,39 @@ final class BodyTagUtils  {
     return endTagReturn;
   }
 
-  private static final String BODY_CONTENT_IMPL_CLASS = "org.apache.jasper.runtime.BodyContentImpl";
-  private static final String WRITER_FIELD = "writer";
-
-  private static final Class<?> bodyContentImplClass;
-  private static final Field writerField;
+  private static final BodyContentUnbufferer[] unbufferers;
 
   static {
-    Class<?> clazz;
-    Field field;
+    List<BodyContentUnbufferer> list = new ArrayList<>();
     try {
-      clazz = Class.forName(BODY_CONTENT_IMPL_CLASS);
-      field = clazz.getDeclaredField(WRITER_FIELD);
-      field.setAccessible(true);
-    } catch (ThreadDeath td) {
-      throw td;
-    } catch (Throwable t) {
+      for (BodyContentUnbufferer unbufferer
+          : ServiceLoader.load(BodyContentUnbufferer.class, BodyTagUtils.class.getClassLoader())) {
+        list.add(unbufferer);
+      }
+    } catch (ServiceConfigurationError e) {
       if (logger.isLoggable(Level.INFO)) {
         logger.log(
             Level.INFO,
-            "Cannot get direct access to the " + BODY_CONTENT_IMPL_CLASS + "." + WRITER_FIELD + " field.  "
+            "Cannot load " + BodyContentUnbufferer.class.getName() + ".  "
                 + "Unbuffering of BodyContent disabled.  "
                 + "The system will behave correctly, but some optimizations are disabled.",
-            t
+            e
         );
       }
-      clazz = null;
-      field = null;
     }
-    bodyContentImplClass = clazz;
-    writerField = field;
+    unbufferers = list.toArray(new BodyContentUnbufferer[list.size()]);
   }
 
   /**
    * Unbuffers a {@link BodyContent}, when possible.
    *
-   * <p>This implementation is Tomcat-specific, in that it sets the <code>BodyContentImpl.writer</code> field directly
-   * through reflection.</p>
-   *
-   * <p>TODO: Consider putting this Tomcat-specific optimization into a different package that would register itself
-   * here.  Then this package could be selectively added to dependencies to allow the feature to only be enable in
-   * development mode.</p>
+   * <p>Each {@link BodyContentUnbufferer} located by {@link ServiceLoader} is tried in turn, stopping at the first that
+   * supports the container's body content.</p>
    */
   static boolean unbuffer(BodyContent bodyContent, Writer writer) throws JspTagException {
-    // Note: bodyContentImplClass will be null when direct access disabled
-    if (bodyContentImplClass != null) {
-      Class<? extends Writer> bodyContentClass = bodyContent.getClass();
-      if (bodyContentClass == bodyContentImplClass) {
-        try {
-          assert writerField.get(bodyContent) == null : "writer must be null since is setup for buffering";
-          writerField.set(bodyContent, writer);
-          if (logger.isLoggable(Level.FINER)) {
-            logger.finer("Successfully unbuffered BodyContextImpl");
-          }
-          return true;
-        } catch (IllegalAccessException e) {
-          if (logger.isLoggable(Level.SEVERE)) {
-            logger.severe("Failed to unbuffer BodyContextImpl");
-          }
-          throw new JspTagException(e);
-        }
+    for (BodyContentUnbufferer unbufferer : unbufferers) {
+      if (unbufferer.unbuffer(bodyContent, writer)) {
+        return true;
       }
     }
     return false;
@@ -1,6 +1,6 @@
 /*
  * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
- * Copyright (C) 2020, 2021, 2022, 2024, 2025  AO Industries, Inc.
+ * Copyright (C) 2020, 2021, 2022, 2024, 2025, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -30,7 +30,15 @@ import com.aoapps.encoding.MediaValidator;
 import com.aoapps.encoding.MediaWriter;
 import com.aoapps.encoding.servlet.EncodingContextEE;
 import com.aoapps.encoding.taglib.EncodingBufferedTag;
+import com.aoapps.encoding.taglib.impl.CaptureEvent;
+import com.aoapps.encoding.taglib.impl.CaptureStatistics;
+import com.aoapps.encoding.taglib.impl.LazyPrefixWriter;
+import com.aoapps.encoding.taglib.impl.MediaEncoderTable;
+import com.aoapps.encoding.taglib.impl.PassThroughResult;
 import com.aoapps.encoding.taglib.impl.RequestEncodingContext;
+import com.aoapps.encoding.taglib.impl.ResponseContainer;
+import com.aoapps.encoding.taglib.impl.TagMetrics;
+import com.aoapps.encoding.taglib.impl.ValidateEvent;
 import com.aoapps.io.buffer.AutoTempFileWriter;
 import com.aoapps.io.buffer.BufferResult;
 import com.aoapps.io.buffer.BufferWriter;
@@ -98,7 +106,7 @@ public abstract class EncodingBufferedBodyTag extends BodyTagSupport implements
 
   /**
    * Gets the number of characters that may be buffered before switching to the
-   * use of a temp file.
+   * use of a temp file.  When captures by this class of tag are usually longer, the switch is made earlier.
    *
    * @return the threshold or {@link Long#MAX_VALUE} to never use temp files.
    *
@@ -115,39 +123,67 @@ public abstract class EncodingBufferedBodyTag extends BodyTagSupport implements
   private transient MediaType containerType;
   private transient Writer containerValidator;
   private transient boolean isNewContainerValidator;
+  private transient ResponseContainer responseContainer;
   private transient boolean writePrefixSuffix;
   // Set in updateValidatingOut
   private transient MediaType validatingOutputType;
   private transient MediaEncoder mediaEncoder;
   private transient Writer optimized;
+  private transient LazyPrefixWriter lazyPrefix;
   private transient RequestEncodingContext validatingOutEncodingContext;
   private transient Writer validatingOut;
   private transient boolean isNewValidator;
   // Set in initCapture
   private transient BufferWriter captureBuffer;
+  private transient long captureTempFileThreshold;
+  private transient CaptureEvent captureEvent;
   private transient MediaType captureType;
   private transient MediaValidator captureValidator;
   private transient boolean bodyUnbuffered;
   // Set in doAfterBody, provided to doEndTag
   private transient BufferResult capturedBody;
+  private transient BufferWriter capturedBuffer;
 
   private void init() {
     parentEncodingContext = null;
     containerType = null;
     containerValidator = null;
     isNewContainerValidator = false;
+    responseContainer = null;
     writePrefixSuffix = false;
     validatingOutputType = null;
     mediaEncoder = null;
     optimized = null;
+    lazyPrefix = null;
     validatingOutEncodingContext = null;
     validatingOut = null;
     isNewValidator = false;
     captureBuffer = null;
+    captureTempFileThreshold = 0;
+    captureEvent = null;
     captureType = null;
     captureValidator = null;
     bodyUnbuffered = false;
     capturedBody = EmptyResult.getInstance();
+    capturedBuffer = null;
+  }
+
+  /**
+   * Determines whether the {@linkplain #writeEncoderPrefix(com.aoapps.encoding.MediaEncoder, java.io.Writer) encoder prefix}
+   * and {@linkplain #writeEncoderSuffix(com.aoapps.encoding.MediaEncoder, java.io.Writer, boolean) encoder suffix}
+   * are omitted when nothing is written.  When enabled, the prefix is deferred until the first character is written,
+   * and the suffix is only written when the prefix was.
+   *
+   * <p>Only enable this when the encoder prefix and suffix merely wrap the output, such as the markup around a
+   * script or style block.  Many encoders delimit a value with them instead, such as the quotes of a string, where an
+   * empty value must still be written as <code>""</code>.</p>
+   *
+   * <p>This default implementation returns {@code false}.</p>
+   *
+   * @see  EncodingBufferedTag#isEncoderSkippedWhenEmpty()
+   */
+  public boolean isEncoderSkippedWhenEmpty() {
+    return false;
   }
 
   /**
@@ -162,6 +198,7 @@ public abstract class EncodingBufferedBodyTag extends BodyTagSupport implements
   public int doStartTag() throws JspException {
     try {
       final ServletRequest request = pageContext.getRequest();
+      TagMetrics.getInstance(pageContext.getServletContext()).invoked(getClass());
       final JspWriter directOut = pageContext.getOut();
 
       parentEncodingContext = RequestEncodingContext.getCurrentContext(request);
@@ -183,18 +220,14 @@ public abstract class EncodingBufferedBodyTag extends BodyTagSupport implements
         }
       } else {
         final ServletResponse response = pageContext.getResponse();
-        // Use the content type of the response
-        String responseContentType = response.getContentType();
-        // Default to XHTML: TODO: Is there a better way since can't set content type early in response then reset again...
-        if (responseContentType == null) {
-          responseContentType = MediaType.XHTML.getContentType();
-        }
-        containerType = MediaType.getMediaTypeForContentType(responseContentType);
+        // Use the content type of the response, resolved once per request and response content type
+        responseContainer = ResponseContainer.getInstance(request, response);
+        containerType = responseContainer.containerType;
         if (logger.isLoggable(Level.FINER)) {
-          logger.finer("containerType from responseContentType: " + containerType + " from " + responseContentType);
+          logger.finer("containerType from responseContentType: " + containerType + " from " + responseContainer.getResponseContentType());
         }
         // Need to add validator
-        containerValidator = MediaValidator.getMediaValidator(containerType, directOut);
+        containerValidator = responseContainer.getValidator(directOut);
         isNewContainerValidator = true;
         if (logger.isLoggable(Level.FINER)) {
           logger.finer("containerValidator from containerType: " + containerValidator + " from " + containerType);
@@ -226,6 +259,7 @@ public abstract class EncodingBufferedBodyTag extends BodyTagSupport implements
     if (validatingOut == null || newOutputType != validatingOutputType) {
       final MediaEncoder newMediaEncoder;
       final Writer newOptimized;
+      final LazyPrefixWriter newLazyPrefix;
       final RequestEncodingContext newValidatingOutEncodingContext;
       final Writer newValidatingOut;
       final boolean newIsNewValidator;
@@ -233,6 +267,7 @@ public abstract class EncodingBufferedBodyTag extends BodyTagSupport implements
         // No output, error if anything written.
         newMediaEncoder = null;
         newOptimized = null;
+        newLazyPrefix = null;
         // prefix skipped
         newValidatingOutEncodingContext = parentEncodingContext;
         newValidatingOut = FailOnWriteWriter.getInstance();
@@ -241,23 +276,39 @@ public abstract class EncodingBufferedBodyTag extends BodyTagSupport implements
       } else {
         final HttpServletRequest request = (HttpServletRequest) pageContext.getRequest();
         final HttpServletResponse response = (HttpServletResponse) pageContext.getResponse();
-        // Find the encoder
-        EncodingContext encodingContext = new EncodingContextEE(pageContext.getServletContext(), request, response);
-        newMediaEncoder = MediaEncoder.getInstance(encodingContext, newOutputType, containerType);
+        // Find the encoder, skipping the lookup when the types are known to not require one
+        final EncodingContext encodingContext;
+        if (MediaEncoderTable.isEncoderRequired(newOutputType, containerType)) {
+          encodingContext = new EncodingContextEE(pageContext.getServletContext(), request, response);
+          newMediaEncoder = MediaEncoderTable.getInstance(encodingContext, newOutputType, containerType);
+        } else {
+          encodingContext = null;
+          newMediaEncoder = null;
+        }
         if (newMediaEncoder != null) {
           if (logger.isLoggable(Level.FINER)) {
             logger.finer("Using MediaEncoder: " + newMediaEncoder);
           }
+          TagMetrics.getInstance(pageContext.getServletContext()).encoderPath();
           logger.finest("Setting encoder options");
           setMediaEncoderOptions(newMediaEncoder);
           // Encode our output.  The encoder guarantees valid output for our parent.
           newOptimized = Coercion.optimize(containerValidator, newMediaEncoder);
-          logger.finest("Writing encoder prefix");
-          writeEncoderPrefix(newMediaEncoder, newOptimized); // TODO: Skip prefix and suffix when empty?
+          final Writer encoderOut;
+          if (capturedBody.getLength() == 0 && isEncoderSkippedWhenEmpty()) {
+            logger.finest("Deferring encoder prefix until first write");
+            newLazyPrefix = new LazyPrefixWriter(newOptimized, () -> writeEncoderPrefix(newMediaEncoder, newOptimized));
+            encoderOut = newLazyPrefix;
+          } else {
+            logger.finest("Writing encoder prefix");
+            writeEncoderPrefix(newMediaEncoder, newOptimized);
+            newLazyPrefix = null;
+            encoderOut = newOptimized;
+          }
           MediaWriter mediaWriter = newOutputType.newMediaWriter(
               encodingContext,
               newMediaEncoder,
-              newOptimized,
+              encoderOut,
               true,
               null,
               MediaWriter.DEFAULT_IS_NO_CLOSE,
@@ -268,6 +319,7 @@ public abstract class EncodingBufferedBodyTag extends BodyTagSupport implements
           newIsNewValidator = false;
         } else {
           newOptimized = null;
+          newLazyPrefix = null;
           // If parentValidMediaInput exists and is validating our output type, no additional validation is required
           if (
               parentEncodingContext != null
@@ -276,7 +328,8 @@ public abstract class EncodingBufferedBodyTag extends BodyTagSupport implements
             if (logger.isLoggable(Level.FINER)) {
               logger.finer("Passing-through with validating parent: " + parentEncodingContext.validMediaInput);
             }
-            newValidatingOutEncodingContext = new RequestEncodingContext(newOutputType, parentEncodingContext.validMediaInput);
+            TagMetrics.getInstance(pageContext.getServletContext()).passedThrough();
+            newValidatingOutEncodingContext = new RequestEncodingContext(newOutputType, parentEncodingContext.validMediaInput, parentEncodingContext.unvalidatedOut);
             newValidatingOut = containerValidator;
             newIsNewValidator = false;
           } else {
@@ -285,6 +338,7 @@ public abstract class EncodingBufferedBodyTag extends BodyTagSupport implements
             if (logger.isLoggable(Level.FINER)) {
               logger.finer("Using MediaValidator: " + validator);
             }
+            TagMetrics.getInstance(pageContext.getServletContext()).validatorPath();
             newValidatingOutEncodingContext = new RequestEncodingContext(newOutputType, validator);
             newValidatingOut = validator;
             newIsNewValidator = true;
@@ -306,12 +360,22 @@ public abstract class EncodingBufferedBodyTag extends BodyTagSupport implements
       validatingOutputType = newOutputType;
       mediaEncoder = newMediaEncoder;
       optimized = newOptimized;
+      lazyPrefix = newLazyPrefix;
       validatingOutEncodingContext = newValidatingOutEncodingContext;
       validatingOut = newValidatingOut;
       isNewValidator = newIsNewValidator;
     }
   }
 
+  /**
+   * Gets the captured body to provide to {@link #doAfterBody(com.aoapps.io.buffer.BufferResult, java.io.Writer)}
+   * and {@link #doEndTag(com.aoapps.io.buffer.BufferResult, java.io.Writer)}.  When passing-through to a validating
+   * parent, the already validated body may be written in bulk beneath the parent validator.
+   */
+  private BufferResult getCapturedBodyForOutput() {
+    return PassThroughResult.wrap(capturedBody, parentEncodingContext, validatingOut, getContentType());
+  }
+
   /**
    * Once the out {@link JspWriter} has been replaced to output the proper content
    * type, this version of {@link #doStartTag()} is called.
@@ -349,12 +413,15 @@ public abstract class EncodingBufferedBodyTag extends BodyTagSupport implements
     assert captureType == null;
     assert captureValidator == null;
     ServletRequest request = pageContext.getRequest();
-    captureBuffer = EncodingBufferedTag.newBufferWriter(request, getTempFileThreshold());
+    CaptureStatistics statistics = CaptureStatistics.getInstance(getClass());
+    captureTempFileThreshold = statistics.getTempFileThreshold(getTempFileThreshold());
+    captureBuffer = EncodingBufferedTag.newBufferWriter(request, captureTempFileThreshold, statistics.getExpectedLength());
+    captureEvent = CaptureEvent.start();
     captureType = getContentType();
     captureValidator = MediaValidator.getMediaValidator(captureType, captureBuffer);
     RequestEncodingContext.setCurrentContext(
         request,
-        new RequestEncodingContext(captureType, captureValidator)
+        new RequestEncodingContext(captureType, captureValidator, captureBuffer)
     );
     bodyUnbuffered = BodyTagUtils.unbuffer(bodyContent, captureValidator);
   }
@@ -395,17 +462,30 @@ public abstract class EncodingBufferedBodyTag extends BodyTagSupport implements
         bodyContent.writeOut(captureValidator);
         bodyContent.clear();
       }
+      ValidateEvent validateEvent = ValidateEvent.start();
       captureValidator.validate(captureType.getTrimBuffer());
+      validateEvent.commit(getClass(), captureType);
       captureValidator.flush();
       captureBuffer.close();
       capturedBody = captureBuffer.getResult();
+      if (capturedBuffer != null) {
+        // The body of the previous invocation is not used beyond doAfterBody
+        EncodingBufferedTag.releaseBufferWriter(pageContext.getRequest(), capturedBuffer);
+      }
+      capturedBuffer = captureBuffer;
+      long length = capturedBody.getLength();
+      captureEvent.commit(getClass(), captureType, length, captureTempFileThreshold);
+      TagMetrics.getInstance(pageContext.getServletContext()).captured(length, captureTempFileThreshold);
+      CaptureStatistics.getInstance(getClass()).record(length);
       captureBuffer = null;
+      captureTempFileThreshold = 0;
+      captureEvent = null;
       captureType = null;
       captureValidator = null;
       updateValidatingOut(getOutputType());
       RequestEncodingContext.setCurrentContext(pageContext.getRequest(), validatingOutEncodingContext);
       assert validatingOut == Coercion.optimize(validatingOut, null);
-      int afterBodyReturn = BodyTagUtils.checkAfterBodyReturn(doAfterBody(capturedBody, validatingOut));
+      int afterBodyReturn = BodyTagUtils.checkAfterBodyReturn(doAfterBody(getCapturedBodyForOutput(), validatingOut));
       if (afterBodyReturn == EVAL_BODY_AGAIN) {
         initCapture();
       }
@@ -419,7 +499,8 @@ public abstract class EncodingBufferedBodyTag extends BodyTagSupport implements
    * While the out {@link JspWriter} is still replaced to output the proper content
    * type, this version of {@link #doAfterBody()} is called.
    *
-   * @param  capturedBody  The buffered result of the most recent body invocation.
+   * @param  capturedBody  The buffered result of the most recent body invocation.  Must not be used once the body is
+   *                       invoked again or the tag has completed, since its buffer is then released.
    *
    * @param  out  When the output type is {@code null}, will throw an exception if anything written,
    *              otherwise validates all characters against the output type.
@@ -445,14 +526,18 @@ public abstract class EncodingBufferedBodyTag extends BodyTagSupport implements
       updateValidatingOut(getOutputType());
       RequestEncodingContext.setCurrentContext(pageContext.getRequest(), validatingOutEncodingContext);
       assert validatingOut == Coercion.optimize(validatingOut, null);
-      int endTagReturn = doEndTag(capturedBody, validatingOut);
+      int endTagReturn = doEndTag(getCapturedBodyForOutput(), validatingOut);
       if (isNewValidator) {
         ((MediaValidator) validatingOut).validate(validatingOutputType.getTrimBuffer());
       }
       BodyTagUtils.checkEndTagReturn(endTagReturn);
       if (mediaEncoder != null) {
-        logger.finest("Writing encoder suffix");
-        writeEncoderSuffix(mediaEncoder, optimized, validatingOutputType.getTrimBuffer());
+        if (lazyPrefix == null || lazyPrefix.isPrefixWritten()) {
+          logger.finest("Writing encoder suffix");
+          writeEncoderSuffix(mediaEncoder, optimized, validatingOutputType.getTrimBuffer());
+        } else {
+          logger.finest("Skipping encoder suffix since nothing written");
+        }
       }
 
       // Write any suffix
@@ -462,6 +547,7 @@ public abstract class EncodingBufferedBodyTag extends BodyTagSupport implements
       }
       if (isNewContainerValidator) {
         ((MediaValidator) containerValidator).validate(containerType.getTrimBuffer());
+        responseContainer.release((MediaValidator) containerValidator);
       }
 
       return endTagReturn;
@@ -475,7 +561,8 @@ public abstract class EncodingBufferedBodyTag extends BodyTagSupport implements
    * type, this version of {@link #doEndTag()} is called.
    *
    * @param  capturedBody  The buffered result of the most recent body invocation or {@link EmptyResult#getInstance()}
-   *                       when body never invoked.
+   *                       when body never invoked.  Must not be used once the tag has completed, since its buffer is
+   *                       then released.
    *
    * @param  out  When the output type is {@code null}, will throw an exception if anything written,
    *              otherwise validates all characters against the output type.
@@ -495,8 +582,16 @@ public abstract class EncodingBufferedBodyTag extends BodyTagSupport implements
   @Override
   public void doFinally() {
     try {
+      ServletRequest request = pageContext.getRequest();
       // Restore previous encoding context that is used for our output
-      RequestEncodingContext.setCurrentContext(pageContext.getRequest(), parentEncodingContext);
+      RequestEncodingContext.setCurrentContext(request, parentEncodingContext);
+      // The captured body is not used beyond the tag
+      if (captureBuffer != null) {
+        EncodingBufferedTag.releaseBufferWriter(request, captureBuffer);
+      }
+      if (capturedBuffer != null) {
+        EncodingBufferedTag.releaseBufferWriter(request, capturedBuffer);
+      }
     } finally {
       init();
     }
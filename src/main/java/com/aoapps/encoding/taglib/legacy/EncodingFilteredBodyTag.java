@@ -1,6 +1,6 @@
 /*
  * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
- * Copyright (C) 2020, 2021, 2022, 2024, 2025  AO Industries, Inc.
+ * Copyright (C) 2020, 2021, 2022, 2024, 2025, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -29,7 +29,11 @@ import com.aoapps.encoding.MediaType;
 import com.aoapps.encoding.MediaValidator;
 import com.aoapps.encoding.MediaWriter;
 import com.aoapps.encoding.servlet.EncodingContextEE;
+import com.aoapps.encoding.taglib.impl.LazyPrefixWriter;
+import com.aoapps.encoding.taglib.impl.MediaEncoderTable;
 import com.aoapps.encoding.taglib.impl.RequestEncodingContext;
+import com.aoapps.encoding.taglib.impl.ResponseContainer;
+import com.aoapps.encoding.taglib.impl.TagMetrics;
 import com.aoapps.lang.Coercion;
 import com.aoapps.lang.i18n.Resources;
 import com.aoapps.servlet.BodyContentImplCoercionOptimizerInitializer;
@@ -122,10 +126,12 @@ public abstract class EncodingFilteredBodyTag extends BodyTagSupport implements
   private transient MediaType containerType;
   private transient Writer containerValidator;
   private transient boolean isNewContainerValidator;
+  private transient ResponseContainer responseContainer;
   // Set in updateValidatingOut
   private transient MediaType validatingOutputType;
   private transient MediaEncoder mediaEncoder;
   private transient Writer optimized;
+  private transient LazyPrefixWriter lazyPrefix;
   private transient RequestEncodingContext validatingOutEncodingContext;
   private transient Writer validatingOut;
   private transient boolean isNewValidator;
@@ -138,9 +144,11 @@ public abstract class EncodingFilteredBodyTag extends BodyTagSupport implements
     containerType = null;
     containerValidator = null;
     isNewContainerValidator = false;
+    responseContainer = null;
     validatingOutputType = null;
     mediaEncoder = null;
     optimized = null;
+    lazyPrefix = null;
     validatingOutEncodingContext = null;
     validatingOut = null;
     isNewValidator = false;
@@ -148,6 +156,24 @@ public abstract class EncodingFilteredBodyTag extends BodyTagSupport implements
     bodyUnbuffered = false;
   }
 
+  /**
+   * Determines whether the {@linkplain #writeEncoderPrefix(com.aoapps.encoding.MediaEncoder, java.io.Writer) encoder prefix}
+   * and {@linkplain #writeEncoderSuffix(com.aoapps.encoding.MediaEncoder, java.io.Writer, boolean) encoder suffix}
+   * are omitted when nothing is written.  When enabled, the prefix is deferred until the first character is written,
+   * and the suffix is only written when the prefix was.
+   *
+   * <p>Only enable this when the encoder prefix and suffix merely wrap the output, such as the markup around a
+   * script or style block.  Many encoders delimit a value with them instead, such as the quotes of a string, where an
+   * empty value must still be written as <code>""</code>.</p>
+   *
+   * <p>This default implementation returns {@code false}.</p>
+   *
+   * @see  com.aoapps.encoding.taglib.EncodingFilteredTag#isEncoderSkippedWhenEmpty()
+   */
+  public boolean isEncoderSkippedWhenEmpty() {
+    return false;
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -160,6 +186,7 @@ public abstract class EncodingFilteredBodyTag extends BodyTagSupport implements
   public int doStartTag() throws JspException {
     try {
       final ServletRequest request = pageContext.getRequest();
+      TagMetrics.getInstance(pageContext.getServletContext()).invoked(getClass());
       final JspWriter directOut = pageContext.getOut();
 
       parentEncodingContext = RequestEncodingContext.getCurrentContext(request);
@@ -181,18 +208,14 @@ public abstract class EncodingFilteredBodyTag extends BodyTagSupport implements
         }
       } else {
         final ServletResponse response = pageContext.getResponse();
-        // Use the content type of the response
-        String responseContentType = response.getContentType();
-        // Default to XHTML: TODO: Is there a better way since can't set content type early in response then reset again...
-        if (responseContentType == null) {
-          responseContentType = MediaType.XHTML.getContentType();
-        }
-        containerType = MediaType.getMediaTypeForContentType(responseContentType);
+        // Use the content type of the response, resolved once per request and response content type
+        responseContainer = ResponseContainer.getInstance(request, response);
+        containerType = responseContainer.containerType;
         if (logger.isLoggable(Level.FINER)) {
-          logger.finer("containerType from responseContentType: " + containerType + " from " + responseContentType);
+          logger.finer("containerType from responseContentType: " + containerType + " from " + responseContainer.getResponseContentType());
         }
         // Need to add validator
-        containerValidator = MediaValidator.getMediaValidator(containerType, directOut);
+        containerValidator = responseContainer.getValidator(directOut);
         isNewContainerValidator = true;
         if (logger.isLoggable(Level.FINER)) {
           logger.finer("containerValidator from containerType: " + containerValidator + " from " + containerType);
@@ -222,29 +245,46 @@ public abstract class EncodingFilteredBodyTag extends BodyTagSupport implements
     if (validatingOut == null || newOutputType != validatingOutputType) {
       final MediaEncoder newMediaEncoder;
       final Writer newOptimized;
+      final LazyPrefixWriter newLazyPrefix;
       final RequestEncodingContext newValidatingOutEncodingContext;
       final Writer newValidatingOut;
       final boolean newIsNewValidator;
       final Mode newMode;
       final HttpServletRequest request = (HttpServletRequest) pageContext.getRequest();
       final HttpServletResponse response = (HttpServletResponse) pageContext.getResponse();
-      // Find the encoder
-      EncodingContext encodingContext = new EncodingContextEE(pageContext.getServletContext(), request, response);
-      newMediaEncoder = MediaEncoder.getInstance(encodingContext, newOutputType, containerType);
+      // Find the encoder, skipping the lookup when the types are known to not require one
+      final EncodingContext encodingContext;
+      if (MediaEncoderTable.isEncoderRequired(newOutputType, containerType)) {
+        encodingContext = new EncodingContextEE(pageContext.getServletContext(), request, response);
+        newMediaEncoder = MediaEncoderTable.getInstance(encodingContext, newOutputType, containerType);
+      } else {
+        encodingContext = null;
+        newMediaEncoder = null;
+      }
       if (newMediaEncoder != null) {
         if (logger.isLoggable(Level.FINER)) {
           logger.finer("Using MediaEncoder: " + newMediaEncoder);
         }
+        TagMetrics.getInstance(pageContext.getServletContext()).encoderPath();
         logger.finest("Setting encoder options");
         setMediaEncoderOptions(newMediaEncoder);
         // Encode both our output and the content.  The encoder validates our input and guarantees valid output for our parent.
         newOptimized = Coercion.optimize(containerValidator, newMediaEncoder);
-        logger.finest("Writing encoder prefix");
-        writeEncoderPrefix(newMediaEncoder, newOptimized);
+        final Writer encoderOut;
+        if (isEncoderSkippedWhenEmpty()) {
+          logger.finest("Deferring encoder prefix until first write");
+          newLazyPrefix = new LazyPrefixWriter(newOptimized, () -> writeEncoderPrefix(newMediaEncoder, newOptimized));
+          encoderOut = newLazyPrefix;
+        } else {
+          logger.finest("Writing encoder prefix");
+          writeEncoderPrefix(newMediaEncoder, newOptimized);
+          newLazyPrefix = null;
+          encoderOut = newOptimized;
+        }
         MediaWriter mediaWriter = newOutputType.newMediaWriter(
             encodingContext,
             newMediaEncoder,
-            newOptimized,
+            encoderOut,
             true,
             null,
             MediaWriter.DEFAULT_IS_NO_CLOSE,
@@ -256,6 +296,7 @@ public abstract class EncodingFilteredBodyTag extends BodyTagSupport implements
         newMode = Mode.ENCODING;
       } else {
         newOptimized = null;
+        newLazyPrefix = null;
         // If parentValidMediaInput exists and is validating our output type, no additional validation is required
         if (
             parentEncodingContext != null
@@ -264,7 +305,8 @@ public abstract class EncodingFilteredBodyTag extends BodyTagSupport implements
           if (logger.isLoggable(Level.FINER)) {
             logger.finer("Passing-through with validating parent: " + parentEncodingContext.validMediaInput);
           }
-          newValidatingOutEncodingContext = new RequestEncodingContext(newOutputType, parentEncodingContext.validMediaInput);
+          TagMetrics.getInstance(pageContext.getServletContext()).passedThrough();
+          newValidatingOutEncodingContext = new RequestEncodingContext(newOutputType, parentEncodingContext.validMediaInput, parentEncodingContext.unvalidatedOut);
           newValidatingOut = containerValidator;
           newIsNewValidator = false;
           newMode = Mode.PASSTHROUGH;
@@ -274,6 +316,7 @@ public abstract class EncodingFilteredBodyTag extends BodyTagSupport implements
           if (logger.isLoggable(Level.FINER)) {
             logger.finer("Using MediaValidator: " + validator);
           }
+          TagMetrics.getInstance(pageContext.getServletContext()).validatorPath();
           newValidatingOutEncodingContext = new RequestEncodingContext(newOutputType, validator);
           newValidatingOut = validator;
           newIsNewValidator = true;
@@ -305,6 +348,7 @@ public abstract class EncodingFilteredBodyTag extends BodyTagSupport implements
       validatingOutputType = newOutputType;
       mediaEncoder = newMediaEncoder;
       optimized = newOptimized;
+      lazyPrefix = newLazyPrefix;
       validatingOutEncodingContext = newValidatingOutEncodingContext;
       validatingOut = newValidatingOut;
       isNewValidator = newIsNewValidator;
@@ -443,8 +487,12 @@ public abstract class EncodingFilteredBodyTag extends BodyTagSupport implements
       }
       BodyTagUtils.checkEndTagReturn(endTagReturn);
       if (mediaEncoder != null) {
-        logger.finest("Writing encoder suffix");
-        writeEncoderSuffix(mediaEncoder, optimized, validatingOutputType.getTrimBuffer());
+        if (lazyPrefix == null || lazyPrefix.isPrefixWritten()) {
+          logger.finest("Writing encoder suffix");
+          writeEncoderSuffix(mediaEncoder, optimized, validatingOutputType.getTrimBuffer());
+        } else {
+          logger.finest("Skipping encoder suffix since nothing written");
+        }
       }
 
       // Write any suffix
@@ -452,6 +500,7 @@ public abstract class EncodingFilteredBodyTag extends BodyTagSupport implements
       writeSuffix(containerType, containerValidator);
       if (isNewContainerValidator) {
         ((MediaValidator) containerValidator).validate(containerType.getTrimBuffer());
+        responseContainer.release((MediaValidator) containerValidator);
       }
 
       return endTagReturn;
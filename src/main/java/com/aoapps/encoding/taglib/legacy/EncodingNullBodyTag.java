@@ -1,6 +1,6 @@
 /*
  * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
- * Copyright (C) 2020, 2021, 2022, 2024, 2025  AO Industries, Inc.
+ * Copyright (C) 2020, 2021, 2022, 2024, 2025, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -29,7 +29,11 @@ import com.aoapps.encoding.MediaType;
 import com.aoapps.encoding.MediaValidator;
 import com.aoapps.encoding.MediaWriter;
 import com.aoapps.encoding.servlet.EncodingContextEE;
+import com.aoapps.encoding.taglib.impl.LiteralEncodings;
+import com.aoapps.encoding.taglib.impl.MediaEncoderTable;
 import com.aoapps.encoding.taglib.impl.RequestEncodingContext;
+import com.aoapps.encoding.taglib.impl.ResponseContainer;
+import com.aoapps.encoding.taglib.impl.TagMetrics;
 import com.aoapps.lang.Coercion;
 import com.aoapps.lang.i18n.Resources;
 import com.aoapps.lang.io.FailOnWriteWriter;
@@ -84,10 +88,12 @@ public abstract class EncodingNullBodyTag extends BodyTagSupport implements TryC
   private transient MediaType containerType;
   private transient Writer containerValidator;
   private transient boolean isNewContainerValidator;
+  private transient ResponseContainer responseContainer;
   private transient boolean writePrefixSuffix;
   // Set in updateValidatingOut
   private transient MediaType validatingOutputType;
   private transient MediaEncoder mediaEncoder;
+  private transient boolean mediaEncoderShared;
   private transient Writer optimized;
   private transient RequestEncodingContext validatingOutEncodingContext;
   private transient Writer validatingOut;
@@ -100,9 +106,11 @@ public abstract class EncodingNullBodyTag extends BodyTagSupport implements TryC
     containerType = null;
     containerValidator = null;
     isNewContainerValidator = false;
+    responseContainer = null;
     writePrefixSuffix = false;
     validatingOutputType = null;
     mediaEncoder = null;
+    mediaEncoderShared = false;
     optimized = null;
     validatingOutEncodingContext = null;
     validatingOut = null;
@@ -122,6 +130,7 @@ public abstract class EncodingNullBodyTag extends BodyTagSupport implements TryC
   public int doStartTag() throws JspException {
     try {
       final ServletRequest request = pageContext.getRequest();
+      TagMetrics.getInstance(pageContext.getServletContext()).invoked(getClass());
       final JspWriter directOut = pageContext.getOut();
 
       parentEncodingContext = RequestEncodingContext.getCurrentContext(request);
@@ -143,18 +152,14 @@ public abstract class EncodingNullBodyTag extends BodyTagSupport implements TryC
         }
       } else {
         final ServletResponse response = pageContext.getResponse();
-        // Use the content type of the response
-        String responseContentType = response.getContentType();
-        // Default to XHTML: TODO: Is there a better way since can't set content type early in response then reset again...
-        if (responseContentType == null) {
-          responseContentType = MediaType.XHTML.getContentType();
-        }
-        containerType = MediaType.getMediaTypeForContentType(responseContentType);
+        // Use the content type of the response, resolved once per request and response content type
+        responseContainer = ResponseContainer.getInstance(request, response);
+        containerType = responseContainer.containerType;
         if (logger.isLoggable(Level.FINER)) {
-          logger.finer("containerType from responseContentType: " + containerType + " from " + responseContentType);
+          logger.finer("containerType from responseContentType: " + containerType + " from " + responseContainer.getResponseContentType());
         }
         // Need to add validator
-        containerValidator = MediaValidator.getMediaValidator(containerType, directOut);
+        containerValidator = responseContainer.getValidator(directOut);
         isNewContainerValidator = true;
         if (logger.isLoggable(Level.FINER)) {
           logger.finer("containerValidator from containerType: " + containerValidator + " from " + containerType);
@@ -185,6 +190,7 @@ public abstract class EncodingNullBodyTag extends BodyTagSupport implements TryC
   private void updateValidatingOut(MediaType newOutputType) throws JspException, IOException {
     if (validatingOut == null || newOutputType != validatingOutputType) {
       final MediaEncoder newMediaEncoder;
+      final boolean newMediaEncoderShared;
       final Writer newOptimized;
       final RequestEncodingContext newValidatingOutEncodingContext;
       final Writer newValidatingOut;
@@ -192,6 +198,7 @@ public abstract class EncodingNullBodyTag extends BodyTagSupport implements TryC
       if (newOutputType == null) {
         // No output, error if anything written.
         newMediaEncoder = null;
+        newMediaEncoderShared = false;
         newOptimized = null;
         // prefix skipped
         newValidatingOutEncodingContext = parentEncodingContext;
@@ -201,15 +208,26 @@ public abstract class EncodingNullBodyTag extends BodyTagSupport implements TryC
       } else {
         final HttpServletRequest request = (HttpServletRequest) pageContext.getRequest();
         final HttpServletResponse response = (HttpServletResponse) pageContext.getResponse();
-        // Find the encoder
-        EncodingContext encodingContext = new EncodingContextEE(pageContext.getServletContext(), request, response);
-        newMediaEncoder = MediaEncoder.getInstance(encodingContext, newOutputType, containerType);
+        // Find the encoder, skipping the lookup when the types are known to not require one
+        final EncodingContext encodingContext;
+        if (MediaEncoderTable.isEncoderRequired(newOutputType, containerType)) {
+          encodingContext = new EncodingContextEE(pageContext.getServletContext(), request, response);
+          newMediaEncoder = MediaEncoderTable.getInstance(encodingContext, newOutputType, containerType);
+        } else {
+          encodingContext = null;
+          newMediaEncoder = null;
+        }
         if (newMediaEncoder != null) {
           if (logger.isLoggable(Level.FINER)) {
             logger.finer("Using MediaEncoder: " + newMediaEncoder);
           }
+          TagMetrics.getInstance(pageContext.getServletContext()).encoderPath();
           logger.finest("Setting encoder options");
           setMediaEncoderOptions(newMediaEncoder);
+          // Only determined for literals, which may reuse their encoded form with shared encoders
+          newMediaEncoderShared =
+              getLiteralValue() != null
+                  && MediaEncoderTable.isEncoderShared(encodingContext, newOutputType, containerType, newMediaEncoder);
           // Encode our output.  The encoder guarantees valid output for our parent.
           newOptimized = Coercion.optimize(containerValidator, newMediaEncoder);
           logger.finest("Writing encoder prefix");
@@ -227,6 +245,7 @@ public abstract class EncodingNullBodyTag extends BodyTagSupport implements TryC
           newValidatingOut = mediaWriter;
           newIsNewValidator = false;
         } else {
+          newMediaEncoderShared = false;
           newOptimized = null;
           // If parentValidMediaInput exists and is validating our output type, no additional validation is required
           if (
@@ -236,7 +255,8 @@ public abstract class EncodingNullBodyTag extends BodyTagSupport implements TryC
             if (logger.isLoggable(Level.FINER)) {
               logger.finer("Passing-through with validating parent: " + parentEncodingContext.validMediaInput);
             }
-            newValidatingOutEncodingContext = new RequestEncodingContext(newOutputType, parentEncodingContext.validMediaInput);
+            TagMetrics.getInstance(pageContext.getServletContext()).passedThrough();
+            newValidatingOutEncodingContext = new RequestEncodingContext(newOutputType, parentEncodingContext.validMediaInput, parentEncodingContext.unvalidatedOut);
             newValidatingOut = containerValidator;
             newIsNewValidator = false;
           } else {
@@ -245,6 +265,7 @@ public abstract class EncodingNullBodyTag extends BodyTagSupport implements TryC
             if (logger.isLoggable(Level.FINER)) {
               logger.finer("Using MediaValidator: " + validator);
             }
+            TagMetrics.getInstance(pageContext.getServletContext()).validatorPath();
             newValidatingOutEncodingContext = new RequestEncodingContext(newOutputType, validator);
             newValidatingOut = validator;
             newIsNewValidator = true;
@@ -265,6 +286,7 @@ public abstract class EncodingNullBodyTag extends BodyTagSupport implements TryC
       }
       validatingOutputType = newOutputType;
       mediaEncoder = newMediaEncoder;
+      mediaEncoderShared = newMediaEncoderShared;
       optimized = newOptimized;
       validatingOutEncodingContext = newValidatingOutEncodingContext;
       validatingOut = newValidatingOut;
@@ -387,9 +409,21 @@ public abstract class EncodingNullBodyTag extends BodyTagSupport implements TryC
       updateValidatingOut(getOutputType());
       RequestEncodingContext.setCurrentContext(pageContext.getRequest(), validatingOutEncodingContext);
       assert validatingOut == Coercion.optimize(validatingOut, null);
-      int endTagReturn = doEndTag(validatingOut);
-      if (isNewValidator) {
-        ((MediaValidator) validatingOut).validate(validatingOutputType.getTrimBuffer());
+      final int endTagReturn;
+      LiteralEncodings.Literal literal = getLiteral(validatingOutputType);
+      if (literal != null && mediaEncoder != null && mediaEncoderShared) {
+        // Write the literal as previously encoded by this same encoder
+        optimized.write(literal.getEncoded(mediaEncoder, containerType));
+        endTagReturn = EVAL_PAGE;
+      } else if (literal != null && isNewValidator && literal.isValid()) {
+        // Write the literal as previously validated
+        containerValidator.write(literal.getValue());
+        endTagReturn = EVAL_PAGE;
+      } else {
+        endTagReturn = doEndTag(validatingOut);
+        if (isNewValidator) {
+          ((MediaValidator) validatingOut).validate(validatingOutputType.getTrimBuffer());
+        }
       }
       BodyTagUtils.checkEndTagReturn(endTagReturn);
       if (mediaEncoder != null) {
@@ -404,6 +438,7 @@ public abstract class EncodingNullBodyTag extends BodyTagSupport implements TryC
       }
       if (isNewContainerValidator) {
         ((MediaValidator) containerValidator).validate(containerType.getTrimBuffer());
+        responseContainer.release((MediaValidator) containerValidator);
       }
 
       return endTagReturn;
@@ -412,6 +447,32 @@ public abstract class EncodingNullBodyTag extends BodyTagSupport implements TryC
     }
   }
 
+  /**
+   * Gets the registered literal for the {@linkplain #getLiteralValue() literal value} of this tag.
+   */
+  private LiteralEncodings.Literal getLiteral(MediaType outputType) {
+    if (outputType == null) {
+      return null;
+    }
+    String literalValue = getLiteralValue();
+    return (literalValue == null) ? null : LiteralEncodings.getLiteral(literalValue, outputType);
+  }
+
+  /**
+   * Gets the output of this tag when it is a literal known at translation time, such as a literal attribute value.
+   * When the literal has been registered by the tag extra info, its encoded or validated form is cached and written
+   * in place of calling {@link #doEndTag(java.io.Writer)}, with {@link #EVAL_PAGE} returned.  Otherwise,
+   * {@link #doEndTag(java.io.Writer)} is called as usual.
+   *
+   * <p>When non-null, the value must be exactly what {@link #doEndTag(java.io.Writer)} would write in the output
+   * type, and the tag must write nothing else in the output type.</p>
+   *
+   * <p>This default implementation returns {@code null}.</p>
+   */
+  protected String getLiteralValue() {
+    return null;
+  }
+
   /**
    * While the out {@link JspWriter} is still replaced to output the proper content
    * type, this version of {@link #doEndTag()} is called.
@@ -1,6 +1,6 @@
 /*
  * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
- * Copyright (C) 2020, 2021, 2022, 2023  AO Industries, Inc.
+ * Copyright (C) 2020, 2021, 2022, 2023, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -24,6 +24,7 @@
 package com.aoapps.encoding.taglib.legacy;
 
 import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.taglib.impl.MediaTypeCache;
 import com.aoapps.lang.Coercion;
 import java.io.UnsupportedEncodingException;
 
@@ -44,16 +45,16 @@ public class EncodingTag extends EncodingFilteredBodyTag {
   private transient MediaType mediaType;
 
   public void setType(Object type) {
+    if (type instanceof MediaType) {
+      this.mediaType = (MediaType) type;
+      return;
+    }
     type = Coercion.trimNullIfEmpty(type);
     String typeStr = (type == null) ? null : Coercion.toString(type);
-    MediaType newMediaType = MediaType.getMediaTypeByName(typeStr);
-    if (newMediaType == null) {
-      try {
-        newMediaType = MediaType.getMediaTypeForContentType(typeStr);
-      } catch (UnsupportedEncodingException e) {
-        throw new IllegalArgumentException(e);
-      }
+    try {
+      this.mediaType = MediaTypeCache.getMediaType(typeStr);
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalArgumentException(e);
     }
-    this.mediaType = newMediaType;
   }
 }
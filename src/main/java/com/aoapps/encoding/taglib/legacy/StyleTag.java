@@ -35,6 +35,16 @@ public class StyleTag extends EncodingFilteredBodyTag {
     return MediaType.CSS;
   }
 
+  /**
+   * The encoder prefix and suffix only wrap the block, so are omitted for an empty block.
+   *
+   * @return  {@code true}
+   */
+  @Override
+  public boolean isEncoderSkippedWhenEmpty() {
+    return true;
+  }
+
   /* BodyTag only: */
   private static final long serialVersionUID = 1L;
   /**/
@@ -1,6 +1,6 @@
 /*
  * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
- * Copyright (C) 2021, 2022  AO Industries, Inc.
+ * Copyright (C) 2021, 2022, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -23,7 +23,16 @@
 module com.aoapps.encoding.taglib {
   exports com.aoapps.encoding.taglib;
   exports com.aoapps.encoding.taglib.legacy;
+  provides com.aoapps.encoding.taglib.BufferWriterFactory with
+      com.aoapps.encoding.taglib.impl.AutoBufferWriterFactory,
+      com.aoapps.encoding.taglib.impl.CharArrayBufferWriterFactory,
+      com.aoapps.encoding.taglib.impl.MappedBufferWriterFactory,
+      com.aoapps.encoding.taglib.impl.PooledBufferWriterFactory,
+      com.aoapps.encoding.taglib.impl.SegmentedBufferWriterFactory;
+  provides com.aoapps.encoding.taglib.legacy.BodyContentUnbufferer with com.aoapps.encoding.taglib.impl.JasperBodyContentUnbufferer;
   provides com.aoapps.lang.ThrowableSurrogateFactoryInitializer with com.aoapps.encoding.taglib.JavaeeWebSurrogateFactoryInitializer;
+  uses com.aoapps.encoding.taglib.BufferWriterFactory;
+  uses com.aoapps.encoding.taglib.legacy.BodyContentUnbufferer;
   // Direct
   requires com.aoapps.collections; // <groupId>com.aoapps</groupId><artifactId>ao-collections</artifactId>
   requires com.aoapps.encoding; // <groupId>com.aoapps</groupId><artifactId>ao-encoding</artifactId>
@@ -40,5 +49,8 @@ module com.aoapps.encoding.taglib {
   requires javax.servlet.jsp.api; // <groupId>javax.servlet.jsp</groupId><artifactId>javax.servlet.jsp-api</artifactId>
   // Java SE
   requires java.logging;
+  requires java.management;
   requires java.xml;
+  // JDK
+  requires static jdk.jfr; // Optional, see com.aoapps.encoding.taglib.impl.FlightRecorder
 }
@@ -0,0 +1,73 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.aoapps.encoding.taglib;
+
+import com.aoapps.encoding.MediaType;
+import com.aoapps.io.buffer.BufferResult;
+import java.io.IOException;
+import java.io.Writer;
+import javax.servlet.jsp.JspException;
+
+/**
+ * A buffered tag that captures its body then writes the captured body to its output, optionally streaming the body.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class CaptureTag extends EncodingBufferedTag {
+
+  private final MediaType contentType;
+  private final MediaType outputType;
+  private final boolean streamingBody;
+
+  public CaptureTag(MediaType contentType, MediaType outputType, boolean streamingBody) {
+    this.contentType = contentType;
+    this.outputType = outputType;
+    this.streamingBody = streamingBody;
+  }
+
+  public CaptureTag(MediaType contentType, MediaType outputType) {
+    this(contentType, outputType, false);
+  }
+
+  @Override
+  public MediaType getContentType() {
+    return contentType;
+  }
+
+  @Override
+  public MediaType getOutputType() {
+    return outputType;
+  }
+
+  @Override
+  public boolean isStreamingBody() {
+    return streamingBody;
+  }
+
+  @Override
+  protected void doTag(BufferResult capturedBody, Writer out) throws JspException, IOException {
+    capturedBody.writeTo(out);
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.aoapps.encoding.taglib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.aoapps.encoding.MediaType;
+import java.io.IOException;
+import javax.servlet.jsp.JspException;
+import org.junit.Test;
+
+/**
+ * Tests that the encoder prefix and suffix delimiting a value, such as the quotes of a string, are still written for
+ * an empty value, while those only wrapping a block are omitted.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class EmptyValueTest {
+
+  /**
+   * Renders <code>&lt;ao:text&gt;</code> with the given value nested in the given container tag.
+   */
+  private static String renderText(EncodingFilteredTag container, String value) throws JspException, IOException {
+    TestPage page = new TestPage(MediaType.XHTML);
+    try {
+      container.setJspContext(page.pageContext);
+      container.setJspBody(TestFragment.of(page.pageContext, bodyOut -> {
+        bodyOut.write("x = ");
+        TextTag text = new TextTag();
+        text.setJspContext(page.pageContext);
+        text.setParent(container);
+        text.setJspBody(TestFragment.text(page.pageContext, value));
+        text.doTag();
+        bodyOut.write(';');
+      }));
+      container.doTag();
+      return page.getOutput();
+    } finally {
+      page.release();
+    }
+  }
+
+  /**
+   * The empty value must render as the non-empty value with the value removed, keeping the encoder prefix and suffix.
+   */
+  private static void assertDelimited(EncodingFilteredTag emptyContainer, EncodingFilteredTag container) throws JspException, IOException {
+    String nonEmpty = renderText(container, "a");
+    int pos = nonEmpty.indexOf("x = ") + "x = ".length();
+    int valuePos = nonEmpty.indexOf('a', pos);
+    int end = nonEmpty.lastIndexOf(';');
+    assertTrue("Expected a prefix and suffix around the value: " + nonEmpty, valuePos > pos && end > valuePos + 1);
+    String expected = nonEmpty.substring(0, valuePos) + nonEmpty.substring(valuePos + 1);
+    assertEquals(expected, renderText(emptyContainer, ""));
+  }
+
+  @Test
+  public void testEmptyTextInJavaScript() throws JspException, IOException {
+    assertDelimited(new JavaScriptTag(), new JavaScriptTag());
+  }
+
+  @Test
+  public void testEmptyTextInJson() throws JspException, IOException {
+    assertDelimited(new JsonTag(), new JsonTag());
+  }
+
+  @Test
+  public void testEmptyTextInSh() throws JspException, IOException {
+    assertDelimited(new ShTag(), new ShTag());
+  }
+
+  @Test
+  public void testEmptyJavaScriptBlockOmitted() throws JspException, IOException {
+    TestPage page = new TestPage(MediaType.XHTML);
+    try {
+      JavaScriptTag tag = new JavaScriptTag();
+      tag.setJspContext(page.pageContext);
+      tag.setJspBody(TestFragment.text(page.pageContext, ""));
+      tag.doTag();
+      assertEquals("", page.getOutput());
+    } finally {
+      page.release();
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.aoapps.encoding.taglib;
+
+import static org.junit.Assert.assertEquals;
+
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.taglib.impl.RegionExecutors;
+import java.io.IOException;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.tagext.JspTag;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that {@link ParallelTag} writes its regions in document order.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class ParallelTagTest {
+
+  private TestPage page;
+
+  @Before
+  public void setUp() {
+    page = new TestPage(MediaType.XHTML);
+  }
+
+  @After
+  public void tearDown() {
+    new RegionExecutors().contextDestroyed(new ServletContextEvent(page.servletContext));
+    page.release();
+  }
+
+  /**
+   * Renders a region writing the result of its task in brackets.
+   */
+  private void region(JspTag parent, String result) throws JspException, IOException {
+    RegionTag region = new RegionTag();
+    region.setJspContext(page.pageContext);
+    region.setParent(parent);
+    region.setType(MediaType.XHTML);
+    region.setTask(() -> result);
+    region.setVar("result");
+    region.setJspBody(TestFragment.of(
+        page.pageContext,
+        out -> out.write("[" + page.pageContext.getAttribute("result") + "]")
+    ));
+    region.doTag();
+  }
+
+  @Test
+  public void testRegionsInOrder() throws JspException, IOException {
+    ParallelTag parallel = new ParallelTag();
+    parallel.setJspContext(page.pageContext);
+    parallel.setJspBody(TestFragment.of(page.pageContext, out -> {
+      out.write('a');
+      region(parallel, "1");
+      out.write('b');
+      region(parallel, "2");
+      out.write('c');
+    }));
+    parallel.doTag();
+    assertEquals("a[1]b[2]c", page.getOutput());
+  }
+
+  @Test
+  public void testRegionWithinCaptureInOrder() throws JspException, IOException {
+    ParallelTag parallel = new ParallelTag();
+    parallel.setJspContext(page.pageContext);
+    parallel.setJspBody(TestFragment.of(page.pageContext, out -> {
+      out.write('a');
+      CaptureTag capture = new CaptureTag(MediaType.XHTML, MediaType.XHTML);
+      capture.setJspContext(page.pageContext);
+      capture.setParent(parallel);
+      capture.setJspBody(TestFragment.of(page.pageContext, captureOut -> {
+        captureOut.write('b');
+        region(capture, "1");
+        captureOut.write('c');
+      }));
+      capture.doTag();
+      region(parallel, "2");
+      out.write('d');
+    }));
+    parallel.doTag();
+    assertEquals("ab[1]c[2]d", page.getOutput());
+  }
+}
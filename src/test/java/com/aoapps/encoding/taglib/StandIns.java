@@ -0,0 +1,237 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.aoapps.encoding.taglib;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * In-memory stand-ins for the servlet environment, sufficient to drive the tag pipelines outside of a container.
+ *
+ * <p>The methods used on the hot path of the tags are implemented directly.  All other methods fall through to a
+ * {@link Proxy} that returns default values, which is enough for the occasional lookup of headers and init
+ * parameters.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class StandIns {
+
+  /** Make no instances. */
+  private StandIns() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Creates a proxy that returns {@code null}, {@code false}, or zero for every method.
+   */
+  private static <T> T lenient(Class<T> iface) {
+    return iface.cast(Proxy.newProxyInstance(
+        iface.getClassLoader(),
+        new Class<?>[]{iface},
+        (proxy, method, args) -> {
+          Class<?> returnType = method.getReturnType();
+          if (returnType == boolean.class) {
+            return false;
+          }
+          if (returnType == int.class) {
+            return 0;
+          }
+          if (returnType == long.class) {
+            return 0L;
+          }
+          if (returnType == Enumeration.class) {
+            return Collections.emptyEnumeration();
+          }
+          if ("toString".equals(method.getName()) && method.getParameterCount() == 0) {
+            return iface.getSimpleName() + " stand-in";
+          }
+          if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+          }
+          if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+            return proxy == args[0];
+          }
+          return null;
+        }
+    ));
+  }
+
+  /**
+   * Creates a new servlet context.  Attributes are backed by a {@link HashMap}.
+   */
+  public static ServletContext newServletContext(Map<String, String> initParameters) {
+    Map<String, Object> attributes = new HashMap<>();
+    ServletContext lenient = lenient(ServletContext.class);
+    return (ServletContext) Proxy.newProxyInstance(
+        ServletContext.class.getClassLoader(),
+        new Class<?>[]{ServletContext.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getAttribute":
+              return attributes.get((String) args[0]);
+            case "setAttribute":
+              if (args[1] == null) {
+                attributes.remove((String) args[0]);
+              } else {
+                attributes.put((String) args[0], args[1]);
+              }
+              return null;
+            case "removeAttribute":
+              attributes.remove((String) args[0]);
+              return null;
+            case "getAttributeNames":
+              return Collections.enumeration(attributes.keySet());
+            case "getContextPath":
+              return "";
+            case "getInitParameter":
+              return initParameters.get((String) args[0]);
+            case "getInitParameterNames":
+              return Collections.enumeration(initParameters.keySet());
+            default:
+              return method.invoke(lenient, args);
+          }
+        }
+    );
+  }
+
+  /**
+   * An in-memory request.  Attributes are backed by a {@link HashMap}, as there is only a single thread.
+   */
+  public static class Request extends HttpServletRequestWrapper {
+
+    private final ServletContext servletContext;
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    public Request(ServletContext servletContext) {
+      super(lenient(HttpServletRequest.class));
+      this.servletContext = servletContext;
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+      return servletContext;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+      return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+      return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    public void setAttribute(String name, Object o) {
+      if (o == null) {
+        attributes.remove(name);
+      } else {
+        attributes.put(name, o);
+      }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+      attributes.remove(name);
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+      return "UTF-8";
+    }
+
+    @Override
+    public String getMethod() {
+      return "GET";
+    }
+
+    @Override
+    public String getRequestURI() {
+      return "/index.jsp";
+    }
+
+    @Override
+    public String getContextPath() {
+      return "";
+    }
+
+    @Override
+    public String getServletPath() {
+      return "/index.jsp";
+    }
+  }
+
+  /**
+   * An in-memory response with a settable content type.
+   */
+  public static class Response extends HttpServletResponseWrapper {
+
+    private String contentType;
+
+    public Response(String contentType) {
+      super(lenient(HttpServletResponse.class));
+      this.contentType = contentType;
+    }
+
+    @Override
+    public String getContentType() {
+      return contentType;
+    }
+
+    @Override
+    public void setContentType(String type) {
+      this.contentType = type;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+      return "UTF-8";
+    }
+
+    @Override
+    public boolean isCommitted() {
+      return false;
+    }
+
+    @Override
+    public String encodeURL(String url) {
+      return url;
+    }
+
+    @Override
+    public String encodeRedirectURL(String url) {
+      return url;
+    }
+  }
+}
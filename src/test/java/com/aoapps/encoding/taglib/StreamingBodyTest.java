@@ -0,0 +1,100 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.aoapps.encoding.taglib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.aoapps.encoding.MediaType;
+import java.io.IOException;
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.JspTagException;
+import javax.servlet.jsp.SkipPageException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests buffered tags with a {@linkplain EncodingBufferedTag#isStreamingBody() streaming body}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class StreamingBodyTest {
+
+  private TestPage page;
+
+  @Before
+  public void setUp() {
+    page = new TestPage(MediaType.XHTML);
+  }
+
+  @After
+  public void tearDown() {
+    page.release();
+  }
+
+  private CaptureTag newStreamingTag(TestFragment body) {
+    CaptureTag tag = new CaptureTag(MediaType.XHTML, MediaType.XHTML, true);
+    tag.setJspContext(page.pageContext);
+    tag.setJspBody(body);
+    return tag;
+  }
+
+  @Test
+  public void testStreamed() throws JspException, IOException {
+    newStreamingTag(TestFragment.text(page.pageContext, "<p>a</p>")).doTag();
+    assertEquals("<p>a</p>", page.getOutput());
+  }
+
+  @Test
+  public void testSkipPageExceptionUnchanged() throws JspException, IOException {
+    SkipPageException skip = new SkipPageException();
+    CaptureTag tag = newStreamingTag(TestFragment.of(page.pageContext, out -> {
+      out.write("<p>a</p>");
+      throw skip;
+    }));
+    try {
+      tag.doTag();
+      fail("SkipPageException expected");
+    } catch (SkipPageException e) {
+      assertSame(skip, e);
+    }
+  }
+
+  @Test
+  public void testJspExceptionUnchanged() throws JspException, IOException {
+    JspTagException error = new JspTagException("Body failed");
+    CaptureTag tag = newStreamingTag(TestFragment.of(page.pageContext, out -> {
+      throw error;
+    }));
+    try {
+      tag.doTag();
+      fail("JspTagException expected");
+    } catch (JspTagException e) {
+      assertSame(error, e);
+    }
+  }
+}
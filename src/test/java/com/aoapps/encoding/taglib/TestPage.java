@@ -0,0 +1,93 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.aoapps.encoding.taglib;
+
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.taglib.impl.PooledBufferReleaser;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Map;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRequestEvent;
+import javax.servlet.ServletRequestListener;
+
+/**
+ * A single in-memory page render: servlet context, request, response, and page context.  The output is captured and
+ * available from {@link #getOutput()}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class TestPage {
+
+  public final ServletContext servletContext;
+  public final StandIns.Request request;
+  public final StandIns.Response response;
+  public final TestPageContext pageContext;
+  private final StringWriter out = new StringWriter();
+
+  private final ServletRequestListener[] requestListeners = {
+      new PooledBufferReleaser()
+  };
+
+  public TestPage(MediaType responseType, Map<String, String> initParameters) {
+    servletContext = StandIns.newServletContext(initParameters);
+    request = new StandIns.Request(servletContext);
+    response = new StandIns.Response(responseType.getContentType());
+    pageContext = new TestPageContext(servletContext, request, response, out);
+  }
+
+  public TestPage(MediaType responseType) {
+    this(responseType, Collections.emptyMap());
+  }
+
+  public TestPage() {
+    this(MediaType.XHTML);
+  }
+
+  /**
+   * Gets the output of the page so far.
+   */
+  public String getOutput() {
+    return out.toString();
+  }
+
+  /**
+   * Notifies the request listeners the request has ended, as the container would.
+   */
+  public void endRequest() {
+    ServletRequestEvent event = new ServletRequestEvent(servletContext, request);
+    for (ServletRequestListener listener : requestListeners) {
+      listener.requestDestroyed(event);
+    }
+  }
+
+  /**
+   * Ends the request and releases the page context.
+   */
+  public void release() {
+    endRequest();
+    pageContext.release();
+  }
+}
@@ -0,0 +1,313 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.aoapps.encoding.taglib;
+
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.el.ELContext;
+import javax.servlet.Servlet;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpSession;
+import javax.servlet.jsp.JspWriter;
+import javax.servlet.jsp.PageContext;
+import javax.servlet.jsp.el.ExpressionEvaluator;
+import javax.servlet.jsp.el.VariableResolver;
+import javax.servlet.jsp.tagext.BodyContent;
+
+/**
+ * An in-memory {@link PageContext}, maintaining its own stack of {@link JspWriter} for
+ * {@link #pushBody(java.io.Writer)}, {@link #pushBody()}, and {@link #popBody()}.
+ *
+ * <p>Only the features used by the tag pipelines are implemented.  Forwarding, including, sessions, and expression
+ * evaluation are not supported.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public class TestPageContext extends PageContext {
+
+  private final ServletContext servletContext;
+  private final ServletRequest request;
+  private final ServletResponse response;
+  private final Map<String, Object> pageAttributes = new HashMap<>();
+  private final Deque<JspWriter> outs = new ArrayDeque<>();
+  /**
+   * The writers pushed by {@link #pushBody(java.io.Writer)}, reused per nesting depth as JSP containers do.
+   */
+  private final List<TestJspWriter> pushedWriters = new ArrayList<>();
+  private JspWriter out;
+
+  public TestPageContext(ServletContext servletContext, ServletRequest request, ServletResponse response, Writer out) {
+    this.servletContext = servletContext;
+    this.request = request;
+    this.response = response;
+    this.out = new TestJspWriter(out);
+  }
+
+  @Override
+  public void initialize(
+      Servlet servlet,
+      ServletRequest request,
+      ServletResponse response,
+      String errorPageUrl,
+      boolean needsSession,
+      int bufferSize,
+      boolean autoFlush
+  ) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void release() {
+    pageAttributes.clear();
+    outs.clear();
+  }
+
+  @Override
+  public HttpSession getSession() {
+    return null;
+  }
+
+  @Override
+  public Object getPage() {
+    return null;
+  }
+
+  @Override
+  public ServletRequest getRequest() {
+    return request;
+  }
+
+  @Override
+  public ServletResponse getResponse() {
+    return response;
+  }
+
+  @Override
+  public Exception getException() {
+    return null;
+  }
+
+  @Override
+  public ServletConfig getServletConfig() {
+    return null;
+  }
+
+  @Override
+  public ServletContext getServletContext() {
+    return servletContext;
+  }
+
+  @Override
+  public void forward(String relativeUrlPath) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void include(String relativeUrlPath) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void include(String relativeUrlPath, boolean flush) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void handlePageException(Exception e) {
+    throw new UnsupportedOperationException(e);
+  }
+
+  @Override
+  public void handlePageException(Throwable t) {
+    throw new UnsupportedOperationException(t);
+  }
+
+  @Override
+  public void setAttribute(String name, Object value) {
+    setAttribute(name, value, PAGE_SCOPE);
+  }
+
+  @Override
+  public void setAttribute(String name, Object value, int scope) {
+    switch (scope) {
+      case PAGE_SCOPE:
+        if (value == null) {
+          pageAttributes.remove(name);
+        } else {
+          pageAttributes.put(name, value);
+        }
+        break;
+      case REQUEST_SCOPE:
+        request.setAttribute(name, value);
+        break;
+      case APPLICATION_SCOPE:
+        servletContext.setAttribute(name, value);
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported scope: " + scope);
+    }
+  }
+
+  @Override
+  public Object getAttribute(String name) {
+    return getAttribute(name, PAGE_SCOPE);
+  }
+
+  @Override
+  public Object getAttribute(String name, int scope) {
+    switch (scope) {
+      case PAGE_SCOPE:
+        return pageAttributes.get(name);
+      case REQUEST_SCOPE:
+        return request.getAttribute(name);
+      case SESSION_SCOPE:
+        return null;
+      case APPLICATION_SCOPE:
+        return servletContext.getAttribute(name);
+      default:
+        throw new IllegalArgumentException("Unsupported scope: " + scope);
+    }
+  }
+
+  @Override
+  public Object findAttribute(String name) {
+    Object value = pageAttributes.get(name);
+    if (value == null) {
+      value = request.getAttribute(name);
+      if (value == null) {
+        value = servletContext.getAttribute(name);
+      }
+    }
+    return value;
+  }
+
+  @Override
+  public void removeAttribute(String name) {
+    pageAttributes.remove(name);
+    request.removeAttribute(name);
+    servletContext.removeAttribute(name);
+  }
+
+  @Override
+  public void removeAttribute(String name, int scope) {
+    setAttribute(name, null, scope);
+  }
+
+  @Override
+  public int getAttributesScope(String name) {
+    if (pageAttributes.containsKey(name)) {
+      return PAGE_SCOPE;
+    }
+    if (request.getAttribute(name) != null) {
+      return REQUEST_SCOPE;
+    }
+    if (servletContext.getAttribute(name) != null) {
+      return APPLICATION_SCOPE;
+    }
+    return 0;
+  }
+
+  @Override
+  public Enumeration<String> getAttributeNamesInScope(int scope) {
+    switch (scope) {
+      case PAGE_SCOPE:
+        return Collections.enumeration(pageAttributes.keySet());
+      case REQUEST_SCOPE:
+        return request.getAttributeNames();
+      case SESSION_SCOPE:
+        return Collections.emptyEnumeration();
+      case APPLICATION_SCOPE:
+        return servletContext.getAttributeNames();
+      default:
+        throw new IllegalArgumentException("Unsupported scope: " + scope);
+    }
+  }
+
+  @Override
+  public JspWriter getOut() {
+    return out;
+  }
+
+  @Override
+  public JspWriter pushBody(Writer writer) {
+    int depth = outs.size();
+    outs.push(out);
+    TestJspWriter pushed;
+    if (depth < pushedWriters.size()) {
+      pushed = pushedWriters.get(depth);
+      pushed.setWriter(writer);
+    } else {
+      pushed = new TestJspWriter(writer);
+      pushedWriters.add(pushed);
+    }
+    out = pushed;
+    return out;
+  }
+
+  @Override
+  public BodyContent pushBody() {
+    outs.push(out);
+    BodyContent bodyContent = new TestBodyContent(out);
+    out = bodyContent;
+    return bodyContent;
+  }
+
+  @Override
+  public JspWriter popBody() {
+    out = outs.pop();
+    return out;
+  }
+
+  @Override
+  @Deprecated
+  public ExpressionEvaluator getExpressionEvaluator() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  @Deprecated
+  public VariableResolver getVariableResolver() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Expression evaluation is not supported, but tags may look-up the context before checking whether they have
+   * any expressions to evaluate.
+   */
+  @Override
+  public ELContext getELContext() {
+    return null;
+  }
+}
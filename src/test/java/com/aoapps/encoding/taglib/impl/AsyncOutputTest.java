@@ -0,0 +1,160 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.aoapps.encoding.taglib.impl;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.taglib.StandIns;
+import com.aoapps.encoding.taglib.TestBodyContent;
+import com.aoapps.encoding.taglib.TestJspWriter;
+import com.aoapps.lang.io.NullWriter;
+import java.util.Collections;
+import javax.servlet.DispatcherType;
+import javax.servlet.jsp.JspWriter;
+import org.junit.Test;
+
+/**
+ * Tests {@link AsyncOutput#isPossible(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, javax.servlet.jsp.JspWriter)}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class AsyncOutputTest {
+
+  /**
+   * A request with settable dispatcher type and asynchronous state.
+   */
+  private static class Request extends StandIns.Request {
+
+    private DispatcherType dispatcherType = DispatcherType.REQUEST;
+    private boolean asyncStarted;
+    private boolean asyncSupported = true;
+
+    private Request() {
+      super(StandIns.newServletContext(Collections.emptyMap()));
+    }
+
+    @Override
+    public DispatcherType getDispatcherType() {
+      return dispatcherType;
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+      return asyncStarted;
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+      return asyncSupported;
+    }
+  }
+
+  /**
+   * A response with settable committed state.
+   */
+  private static class Response extends StandIns.Response {
+
+    private boolean committed;
+
+    private Response() {
+      super(MediaType.XHTML.getContentType());
+    }
+
+    @Override
+    public boolean isCommitted() {
+      return committed;
+    }
+  }
+
+  private static JspWriter newPageOut() {
+    return new TestJspWriter(NullWriter.getInstance());
+  }
+
+  @Test
+  public void testPossible() {
+    assertTrue(AsyncOutput.isPossible(new Request(), new Response(), newPageOut()));
+  }
+
+  @Test
+  public void testNotPossibleForInclude() {
+    Request request = new Request();
+    request.dispatcherType = DispatcherType.INCLUDE;
+    assertFalse(AsyncOutput.isPossible(request, new Response(), newPageOut()));
+  }
+
+  @Test
+  public void testNotPossibleForForward() {
+    Request request = new Request();
+    request.dispatcherType = DispatcherType.FORWARD;
+    assertFalse(AsyncOutput.isPossible(request, new Response(), newPageOut()));
+  }
+
+  @Test
+  public void testNotPossibleWhenAsyncStarted() {
+    Request request = new Request();
+    request.asyncStarted = true;
+    assertFalse(AsyncOutput.isPossible(request, new Response(), newPageOut()));
+  }
+
+  @Test
+  public void testNotPossibleWhenAsyncNotSupported() {
+    Request request = new Request();
+    request.asyncSupported = false;
+    assertFalse(AsyncOutput.isPossible(request, new Response(), newPageOut()));
+  }
+
+  @Test
+  public void testNotPossibleWhenCommitted() {
+    Response response = new Response();
+    response.committed = true;
+    assertFalse(AsyncOutput.isPossible(new Request(), response, newPageOut()));
+  }
+
+  @Test
+  public void testNotPossibleWhenBuffered() {
+    JspWriter pageOut = new TestJspWriter(NullWriter.getInstance()) {
+      @Override
+      public int getBufferSize() {
+        return 8192;
+      }
+
+      @Override
+      public int getRemaining() {
+        return 8000;
+      }
+    };
+    assertFalse(AsyncOutput.isPossible(new Request(), new Response(), pageOut));
+  }
+
+  @Test
+  public void testNotPossibleInEmptyBodyContent() {
+    TestBodyContent bodyContent = new TestBodyContent(newPageOut());
+    // Nothing is buffered, but the output is captured by the enclosing tag
+    assertTrue(bodyContent.getBufferSize() == bodyContent.getRemaining());
+    assertFalse(AsyncOutput.isPossible(new Request(), new Response(), bodyContent));
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.aoapps.encoding.taglib.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.taglib.CaptureTag;
+import com.aoapps.encoding.taglib.OutTag;
+import com.aoapps.encoding.taglib.StandIns;
+import com.aoapps.encoding.taglib.TestFragment;
+import com.aoapps.encoding.taglib.TestPage;
+import com.aoapps.encoding.taglib.TestPageContext;
+import com.aoapps.encoding.taglib.TextTag;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.servlet.jsp.JspContext;
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.tagext.JspTag;
+import org.junit.Test;
+
+/**
+ * Tests the bounding of the {@link EncoderPipeline} kept per request.  At most one pipeline is kept per output type,
+ * container type, and prefix writer factory, and only when the encoder is shared.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class EncoderPipelineTest {
+
+  private static final int ITERATIONS = 100;
+
+  /**
+   * Renders <code>&lt;ao:text&gt;</code> with the given value.
+   */
+  static void text(JspContext jspContext, JspTag parent, String value) throws JspException, IOException {
+    TextTag text = new TextTag();
+    text.setJspContext(jspContext);
+    text.setParent(parent);
+    text.setJspBody(TestFragment.text(jspContext, value));
+    text.doTag();
+  }
+
+  /**
+   * Renders <code>&lt;ao:out&gt;</code> with the given value.
+   */
+  static void out(JspContext jspContext, JspTag parent, Object value) throws JspException, IOException {
+    OutTag out = new OutTag();
+    out.setJspContext(jspContext);
+    out.setParent(parent);
+    out.setValue(value);
+    out.doTag();
+  }
+
+  @Test
+  public void testTopLevelBounded() throws JspException, IOException {
+    TestPage page = new TestPage(MediaType.XHTML);
+    try {
+      StringBuilder expected = new StringBuilder();
+      for (int i = 0; i < ITERATIONS; i++) {
+        text(page.pageContext, null, "a<b");
+        expected.append("a&lt;b");
+      }
+      assertEquals(expected.toString(), page.getOutput());
+      assertTrue(EncoderPipeline.getKeptCount(page.request) <= 1);
+    } finally {
+      page.release();
+    }
+  }
+
+  /**
+   * Once kept, later top-level tags reuse the same encoder, media writer, and encoding context instead of creating
+   * their own.
+   */
+  @Test
+  public void testTopLevelReused() throws JspException, IOException {
+    TestPage page = new TestPage(MediaType.XHTML);
+    try {
+      List<RequestEncodingContext> contexts = new ArrayList<>();
+      for (int i = 0; i < ITERATIONS; i++) {
+        TextTag text = new TextTag();
+        text.setJspContext(page.pageContext);
+        text.setJspBody(TestFragment.of(page.pageContext, bodyOut -> {
+          contexts.add(RequestEncodingContext.getCurrentContext(page.request));
+          bodyOut.write("a<b");
+        }));
+        text.doTag();
+      }
+      assumeTrue("Encoder not shared", EncoderPipeline.getKeptCount(page.request) == 1);
+      assertEquals(ITERATIONS, contexts.size());
+      RequestEncodingContext first = contexts.get(0);
+      for (RequestEncodingContext context : contexts) {
+        assertSame(first, context);
+      }
+    } finally {
+      page.release();
+    }
+  }
+
+  @Test
+  public void testNestedInBufferedNotKept() throws JspException, IOException {
+    TestPage page = new TestPage(MediaType.XHTML);
+    try {
+      StringBuilder expected = new StringBuilder();
+      for (int i = 0; i < ITERATIONS; i++) {
+        CaptureTag capture = new CaptureTag(MediaType.XHTML, MediaType.XHTML);
+        capture.setJspContext(page.pageContext);
+        capture.setJspBody(TestFragment.of(page.pageContext, bodyOut -> {
+          text(page.pageContext, capture, "a<b");
+          text(page.pageContext, capture, "c&d");
+        }));
+        capture.doTag();
+        expected.append("a&lt;bc&amp;d");
+      }
+      assertEquals(expected.toString(), page.getOutput());
+      // The capture writer of each invocation is different, so the nested pipelines are not kept
+      assertEquals(0, EncoderPipeline.getKeptCount(page.request));
+    } finally {
+      page.release();
+    }
+  }
+
+  @Test
+  public void testTopLevelBoundedAcrossCaptures() throws JspException, IOException {
+    TestPage page = new TestPage(MediaType.XHTML);
+    try {
+      for (int i = 0; i < ITERATIONS; i++) {
+        // Each capture uses a different writer, replacing the shared validator of the response container
+        CaptureTag capture = new CaptureTag(MediaType.XHTML, MediaType.XHTML);
+        capture.setJspContext(page.pageContext);
+        capture.setJspBody(TestFragment.text(page.pageContext, "<p />"));
+        capture.doTag();
+        text(page.pageContext, null, "a<b");
+      }
+      assertTrue(EncoderPipeline.getKeptCount(page.request) <= 1);
+    } finally {
+      page.release();
+    }
+  }
+
+  @Test
+  public void testNotSharedWithCopiedAttributes() throws JspException, IOException {
+    TestPage page = new TestPage(MediaType.XHTML);
+    try {
+      text(page.pageContext, null, "a<b");
+      int kept = EncoderPipeline.getKeptCount(page.request);
+      // A sub-request copying the attributes of the request, as done by ao-servlet-subrequest
+      StandIns.Request subRequest = new StandIns.Request(page.servletContext);
+      for (String name : Collections.list(page.request.getAttributeNames())) {
+        subRequest.setAttribute(name, page.request.getAttribute(name));
+      }
+      assertEquals(0, EncoderPipeline.getKeptCount(subRequest));
+      StringWriter subOut = new StringWriter();
+      TestPageContext subPageContext = new TestPageContext(page.servletContext, subRequest, page.response, subOut);
+      text(subPageContext, null, "c&d");
+      assertEquals("c&amp;d", subOut.toString());
+      assertEquals(kept, EncoderPipeline.getKeptCount(subRequest));
+      assertEquals(kept, EncoderPipeline.getKeptCount(page.request));
+    } finally {
+      page.release();
+    }
+  }
+
+  @Test
+  public void testOutTopLevelBounded() throws JspException, IOException {
+    TestPage page = new TestPage(MediaType.XHTML);
+    try {
+      StringBuilder expected = new StringBuilder();
+      for (int i = 0; i < ITERATIONS; i++) {
+        out(page.pageContext, null, "a<b");
+        out(page.pageContext, null, i);
+        text(page.pageContext, null, "c&d");
+        expected.append("a&lt;b").append(i).append("c&amp;d");
+      }
+      assertEquals(expected.toString(), page.getOutput());
+      // One for each of ao:out and ao:text, which have different prefix writer factories
+      assertTrue(EncoderPipeline.getKeptCount(page.request) <= 2);
+    } finally {
+      page.release();
+    }
+  }
+
+  @Test
+  public void testOutNestedInBufferedNotKept() throws JspException, IOException {
+    TestPage page = new TestPage(MediaType.XHTML);
+    try {
+      StringBuilder expected = new StringBuilder();
+      for (int i = 0; i < ITERATIONS; i++) {
+        final int value = i;
+        CaptureTag capture = new CaptureTag(MediaType.XHTML, MediaType.XHTML);
+        capture.setJspContext(page.pageContext);
+        capture.setJspBody(TestFragment.of(page.pageContext, bodyOut -> {
+          out(page.pageContext, capture, "a<b");
+          out(page.pageContext, capture, value);
+        }));
+        capture.doTag();
+        expected.append("a&lt;b").append(i);
+      }
+      assertEquals(expected.toString(), page.getOutput());
+      assertEquals(0, EncoderPipeline.getKeptCount(page.request));
+    } finally {
+      page.release();
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.aoapps.encoding.Doctype;
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.Serialization;
+import com.aoapps.encoding.taglib.CacheTag;
+import com.aoapps.encoding.taglib.StandIns;
+import java.util.Arrays;
+import java.util.Collections;
+import javax.servlet.ServletContext;
+import org.junit.Test;
+
+/**
+ * Tests the keying and eviction of the {@link FragmentCache}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class FragmentCacheTest {
+
+  /**
+   * The length of the fragments cached by the eviction tests.
+   */
+  private static final int LENGTH = 10;
+
+  /**
+   * The weight of a stripe that fits exactly one fragment of {@link #LENGTH} characters.
+   */
+  private static final long STRIPE_WEIGHT = FragmentCache.ENTRY_OVERHEAD + 2 * LENGTH;
+
+  private static ServletContext newServletContext(long maxWeight) {
+    return StandIns.newServletContext(
+        Collections.singletonMap(CacheTag.MAX_WEIGHT_INIT_PARAM, Long.toString(maxWeight))
+    );
+  }
+
+  private static FragmentCache.Key key(Object key, Serialization serialization, Doctype doctype) {
+    return new FragmentCache.Key(key, MediaType.TEXT, MediaType.XHTML, serialization, doctype);
+  }
+
+  private static FragmentCache.Fragment fragment(int i) {
+    String output = Integer.toString(i);
+    StringBuilder padded = new StringBuilder(LENGTH);
+    for (int j = output.length(); j < LENGTH; j++) {
+      padded.append('0');
+    }
+    return new FragmentCache.Fragment(padded.append(output).toString(), null);
+  }
+
+  @Test
+  public void testKeyEquals() {
+    FragmentCache.Key key = key("a", Serialization.SGML, Doctype.HTML5);
+    FragmentCache.Key same = key("a", Serialization.SGML, Doctype.HTML5);
+    assertEquals(key, same);
+    assertEquals(key.hashCode(), same.hashCode());
+    assertNotEquals(key, key("b", Serialization.SGML, Doctype.HTML5));
+    assertNotEquals(
+        key,
+        new FragmentCache.Key("a", MediaType.XHTML, MediaType.XHTML, Serialization.SGML, Doctype.HTML5)
+    );
+    assertNotEquals(
+        key,
+        new FragmentCache.Key("a", MediaType.TEXT, MediaType.TEXT, Serialization.SGML, Doctype.HTML5)
+    );
+    assertNotEquals(key, key("a", Serialization.XML, Doctype.HTML5));
+    assertNotEquals(key, key("a", Serialization.SGML, Doctype.STRICT));
+  }
+
+  @Test
+  public void testKeyedBySerializationAndDoctype() {
+    FragmentCache cache = FragmentCache.getInstance(newServletContext(1L << 20));
+    FragmentCache.Fragment sgml = fragment(1);
+    cache.put(key("a", Serialization.SGML, Doctype.HTML5), sgml, 0);
+    assertSame(sgml, cache.get(key("a", Serialization.SGML, Doctype.HTML5)));
+    assertNull(cache.get(key("a", Serialization.XML, Doctype.HTML5)));
+    assertNull(cache.get(key("a", Serialization.SGML, Doctype.STRICT)));
+    FragmentCache.Fragment xml = fragment(2);
+    cache.put(key("a", Serialization.XML, Doctype.HTML5), xml, 0);
+    assertSame(sgml, cache.get(key("a", Serialization.SGML, Doctype.HTML5)));
+    assertSame(xml, cache.get(key("a", Serialization.XML, Doctype.HTML5)));
+  }
+
+  @Test
+  public void testEvictedWhenFull() {
+    ServletContext servletContext = newServletContext(FragmentCache.STRIPES * STRIPE_WEIGHT);
+    FragmentCache cache = FragmentCache.getInstance(servletContext);
+    final int puts = 100;
+    for (int i = 0; i < puts; i++) {
+      cache.put(key(i, Serialization.SGML, Doctype.HTML5), fragment(i), 0);
+    }
+    // Each stripe fits a single fragment
+    int cached = 0;
+    for (int i = 0; i < puts; i++) {
+      if (cache.get(key(i, Serialization.SGML, Doctype.HTML5)) != null) {
+        cached++;
+      }
+    }
+    assertTrue(cached <= FragmentCache.STRIPES);
+    assertEquals(puts - cached, TagMetrics.getInstance(servletContext).getCacheEvictions());
+    // The most recent is always kept
+    assertNotNull(cache.get(key(puts - 1, Serialization.SGML, Doctype.HTML5)));
+  }
+
+  @Test
+  public void testReplacedWithoutEviction() {
+    ServletContext servletContext = newServletContext(FragmentCache.STRIPES * STRIPE_WEIGHT);
+    FragmentCache cache = FragmentCache.getInstance(servletContext);
+    FragmentCache.Fragment last = null;
+    for (int i = 0; i < 10; i++) {
+      last = fragment(i);
+      cache.put(key("a", Serialization.SGML, Doctype.HTML5), last, 0);
+    }
+    assertSame(last, cache.get(key("a", Serialization.SGML, Doctype.HTML5)));
+    assertEquals(0, TagMetrics.getInstance(servletContext).getCacheEvictions());
+  }
+
+  @Test
+  public void testTooLargeNotCached() {
+    FragmentCache cache = FragmentCache.getInstance(newServletContext(FragmentCache.STRIPES * STRIPE_WEIGHT));
+    FragmentCache.Key key = key("a", Serialization.SGML, Doctype.HTML5);
+    // One character more than fits a stripe
+    char[] output = new char[LENGTH + 1];
+    Arrays.fill(output, 'a');
+    cache.put(key, new FragmentCache.Fragment(new String(output), null), 0);
+    assertNull(cache.get(key));
+  }
+
+  @Test
+  public void testExpired() throws InterruptedException {
+    FragmentCache cache = FragmentCache.getInstance(newServletContext(1L << 20));
+    FragmentCache.Key key = key("a", Serialization.SGML, Doctype.HTML5);
+    cache.put(key, fragment(1), 1);
+    Thread.sleep(1);
+    assertNull(cache.get(key));
+  }
+}
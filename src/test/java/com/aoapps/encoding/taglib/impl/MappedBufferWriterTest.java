@@ -0,0 +1,118 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.aoapps.io.buffer.BufferResult;
+import com.aoapps.tempfiles.TempFileContext;
+import java.io.IOException;
+import java.io.StringWriter;
+import org.junit.Test;
+
+/**
+ * Tests the {@link MappedBufferWriter} on the heap and once mapped, including its release.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class MappedBufferWriterTest {
+
+  private static final int THRESHOLD = 16;
+
+  private static String repeat(int length) {
+    StringBuilder sb = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      sb.append((char) ('a' + (i % 26)));
+    }
+    return sb.toString();
+  }
+
+  private static void assertReleased(MappedBufferWriter buffer, BufferResult result) {
+    try {
+      result.toString();
+      fail("Result used after release");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+    try {
+      result.writeTo(new StringWriter());
+      fail("Result used after release");
+    } catch (IllegalStateException | IOException e) {
+      // Expected
+    }
+    try {
+      buffer.getResult();
+      fail("Result gotten after release");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+    try {
+      buffer.write('a');
+      fail("Written after release");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+
+  private static void testRelease(int length) throws IOException {
+    String expected = repeat(length);
+    try (TempFileContext tempFileContext = new TempFileContext()) {
+      MappedBufferWriter buffer = new MappedBufferWriter(tempFileContext, THRESHOLD);
+      buffer.write(expected);
+      buffer.close();
+      BufferResult result = buffer.getResult();
+      assertEquals(expected, result.toString());
+      StringWriter out = new StringWriter();
+      result.writeTo(out, 1, length - 2);
+      assertEquals(expected.substring(1, length - 1), out.toString());
+      buffer.release();
+      assertReleased(buffer, result);
+      // Released only once
+      buffer.release();
+    }
+  }
+
+  @Test
+  public void testReleaseHeap() throws IOException {
+    testRelease(THRESHOLD);
+  }
+
+  @Test
+  public void testReleaseMapped() throws IOException {
+    testRelease(THRESHOLD * 10);
+  }
+
+  @Test
+  public void testReleasedByFactory() throws IOException {
+    try (TempFileContext tempFileContext = new TempFileContext()) {
+      MappedBufferWriter buffer = new MappedBufferWriter(tempFileContext, THRESHOLD);
+      buffer.write(repeat(THRESHOLD * 10));
+      buffer.close();
+      BufferResult result = buffer.getResult();
+      new MappedBufferWriterFactory().release(null, buffer);
+      assertReleased(buffer, result);
+    }
+  }
+}
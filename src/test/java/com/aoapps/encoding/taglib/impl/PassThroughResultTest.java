@@ -0,0 +1,149 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.aoapps.encoding.taglib.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.ValidMediaInput;
+import com.aoapps.encoding.taglib.EncodingBufferedTag;
+import com.aoapps.encoding.taglib.StandIns;
+import com.aoapps.io.buffer.BufferResult;
+import com.aoapps.io.buffer.BufferWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collections;
+import org.junit.Test;
+
+/**
+ * Tests {@link PassThroughResult} only skips the parent validator for the content type the captured body was
+ * validated as.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class PassThroughResultTest {
+
+  /**
+   * A parent validator that may skip validation only of its own type, recording what is written through it.
+   */
+  private static class ParentValidator extends Writer implements ValidMediaInput {
+
+    private final MediaType type;
+    private final StringBuilder validated = new StringBuilder();
+
+    private ParentValidator(MediaType type) {
+      this.type = type;
+    }
+
+    @Override
+    public MediaType getValidMediaInputType() {
+      return type;
+    }
+
+    @Override
+    public boolean isValidatingMediaInputType(MediaType inputType) {
+      return inputType == type;
+    }
+
+    @Override
+    public boolean canSkipValidation(MediaType outputType) {
+      return outputType == type;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+      validated.append(cbuf, off, len);
+    }
+
+    @Override
+    public void flush() {
+      // Nothing to flush
+    }
+
+    @Override
+    public void close() {
+      // Nothing to close
+    }
+  }
+
+  private static BufferResult capture(String value) throws IOException {
+    BufferWriter buffer = EncodingBufferedTag.newBufferWriter(
+        new StandIns.Request(StandIns.newServletContext(Collections.emptyMap()))
+    );
+    try {
+      buffer.write(value);
+    } finally {
+      buffer.close();
+    }
+    return buffer.getResult();
+  }
+
+  @Test
+  public void testPassThroughWhenContentTypeSkippable() throws IOException {
+    ParentValidator parent = new ParentValidator(MediaType.XHTML);
+    StringWriter unvalidatedOut = new StringWriter();
+    RequestEncodingContext parentContext = new RequestEncodingContext(MediaType.XHTML, parent, unvalidatedOut);
+    BufferResult wrapped = PassThroughResult.wrap(capture("<p />"), parentContext, parent, MediaType.XHTML);
+    assertTrue(wrapped instanceof PassThroughResult);
+    wrapped.writeTo(parent);
+    assertEquals("<p />", unvalidatedOut.toString());
+    assertEquals("", parent.validated.toString());
+  }
+
+  @Test
+  public void testValidatedWhenOnlyOutputTypeSkippable() throws IOException {
+    ParentValidator parent = new ParentValidator(MediaType.XHTML);
+    StringWriter unvalidatedOut = new StringWriter();
+    RequestEncodingContext parentContext = new RequestEncodingContext(MediaType.XHTML, parent, unvalidatedOut);
+    // Validated only as text, while the tag outputs XHTML
+    BufferResult captured = capture("<p />");
+    assertSame(captured, PassThroughResult.wrap(captured, parentContext, parent, MediaType.TEXT));
+  }
+
+  @Test
+  public void testValidatedWhenWritingElsewhere() throws IOException {
+    ParentValidator parent = new ParentValidator(MediaType.XHTML);
+    RequestEncodingContext parentContext = new RequestEncodingContext(MediaType.XHTML, parent, new StringWriter());
+    BufferResult captured = capture("<p />");
+    assertSame(captured, PassThroughResult.wrap(captured, parentContext, new StringWriter(), MediaType.XHTML));
+  }
+
+  @Test
+  public void testValidatedWithoutUnvalidatedOut() throws IOException {
+    ParentValidator parent = new ParentValidator(MediaType.XHTML);
+    RequestEncodingContext parentContext = new RequestEncodingContext(MediaType.XHTML, parent);
+    BufferResult captured = capture("<p />");
+    assertSame(captured, PassThroughResult.wrap(captured, parentContext, parent, MediaType.XHTML));
+  }
+
+  @Test
+  public void testValidatedWithoutParent() throws IOException {
+    BufferResult captured = capture("<p />");
+    assertSame(captured, PassThroughResult.wrap(captured, null, new StringWriter(), MediaType.XHTML));
+  }
+}
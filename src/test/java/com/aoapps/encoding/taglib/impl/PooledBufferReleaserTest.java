@@ -0,0 +1,119 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.taglib.BufferWriterFactory;
+import com.aoapps.encoding.taglib.CaptureTag;
+import com.aoapps.encoding.taglib.EncodingBufferedTag;
+import com.aoapps.encoding.taglib.StandIns;
+import com.aoapps.encoding.taglib.TestFragment;
+import com.aoapps.encoding.taglib.TestPage;
+import com.aoapps.io.buffer.BufferWriter;
+import java.io.IOException;
+import java.util.Collections;
+import javax.servlet.jsp.JspException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the release of {@link PooledBufferWriter pooled buffers} once used, or at the end of the request.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class PooledBufferReleaserTest {
+
+  private TestPage page;
+
+  @Before
+  public void setUp() {
+    page = new TestPage(
+        MediaType.XHTML,
+        Collections.singletonMap(BufferWriterFactory.INIT_PARAM, PooledBufferWriterFactory.NAME)
+    );
+  }
+
+  @After
+  public void tearDown() {
+    page.release();
+  }
+
+  @Test
+  public void testReleasedWhenTagCompletes() throws JspException, IOException {
+    for (int i = 0; i < 10; i++) {
+      CaptureTag tag = new CaptureTag(MediaType.XHTML, MediaType.XHTML);
+      tag.setJspContext(page.pageContext);
+      tag.setJspBody(TestFragment.text(page.pageContext, "<p>a</p>"));
+      tag.doTag();
+      assertEquals(0, PooledBufferReleaser.getRegisteredCount(page.request));
+    }
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 10; i++) {
+      expected.append("<p>a</p>");
+    }
+    assertEquals(expected.toString(), page.getOutput());
+  }
+
+  @Test
+  public void testReleasedOnce() throws IOException {
+    BufferWriter buffer = EncodingBufferedTag.newBufferWriter(page.request);
+    buffer.write("a");
+    buffer.close();
+    assertEquals(1, PooledBufferReleaser.getRegisteredCount(page.request));
+    EncodingBufferedTag.releaseBufferWriter(page.request, buffer);
+    assertEquals(0, PooledBufferReleaser.getRegisteredCount(page.request));
+    // Already released
+    EncodingBufferedTag.releaseBufferWriter(page.request, buffer);
+    assertEquals(0, PooledBufferReleaser.getRegisteredCount(page.request));
+  }
+
+  @Test
+  public void testReleasedAtEndOfRequest() throws IOException {
+    BufferWriter buffer = EncodingBufferedTag.newBufferWriter(page.request);
+    buffer.write("a");
+    buffer.close();
+    assertEquals("a", buffer.getResult().toString());
+    assertEquals(1, PooledBufferReleaser.getRegisteredCount(page.request));
+    page.endRequest();
+    assertEquals(0, PooledBufferReleaser.getRegisteredCount(page.request));
+  }
+
+  @Test
+  public void testSharedWithCopiedAttributes() throws IOException {
+    EncodingBufferedTag.newBufferWriter(page.request);
+    // A sub-request copying the attributes of the request, as done by ao-servlet-subrequest
+    StandIns.Request subRequest = new StandIns.Request(page.servletContext);
+    for (String name : Collections.list(page.request.getAttributeNames())) {
+      subRequest.setAttribute(name, page.request.getAttribute(name));
+    }
+    BufferWriter subBuffer = EncodingBufferedTag.newBufferWriter(subRequest);
+    // Released with the parent request
+    assertEquals(2, PooledBufferReleaser.getRegisteredCount(page.request));
+    EncodingBufferedTag.releaseBufferWriter(subRequest, subBuffer);
+    assertEquals(1, PooledBufferReleaser.getRegisteredCount(page.request));
+  }
+}
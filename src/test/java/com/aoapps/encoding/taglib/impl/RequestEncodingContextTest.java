@@ -0,0 +1,96 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.taglib.StandIns;
+import java.util.Collections;
+import javax.servlet.ServletContext;
+import org.junit.Test;
+
+/**
+ * Tests that the current {@link RequestEncodingContext} of a request is not changed through another request that
+ * shares its attributes.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class RequestEncodingContextTest {
+
+  private static final RequestEncodingContext OTHER = new RequestEncodingContext(
+      MediaType.TEXT,
+      RequestEncodingContext.DISCARD.validMediaInput
+  );
+
+  /**
+   * Creates a sub-request copying the attributes of the request, as done by ao-servlet-subrequest.
+   */
+  private static StandIns.Request copyAttributes(ServletContext servletContext, StandIns.Request request) {
+    StandIns.Request subRequest = new StandIns.Request(servletContext);
+    for (String name : Collections.list(request.getAttributeNames())) {
+      subRequest.setAttribute(name, request.getAttribute(name));
+    }
+    return subRequest;
+  }
+
+  @Test
+  public void testSetAndClear() {
+    ServletContext servletContext = StandIns.newServletContext(Collections.emptyMap());
+    StandIns.Request request = new StandIns.Request(servletContext);
+    assertNull(RequestEncodingContext.getCurrentContext(request));
+    RequestEncodingContext.setCurrentContext(request, OTHER);
+    assertSame(OTHER, RequestEncodingContext.getCurrentContext(request));
+    RequestEncodingContext.setCurrentContext(request, null);
+    assertNull(RequestEncodingContext.getCurrentContext(request));
+  }
+
+  @Test
+  public void testSubRequestDoesNotChangeParent() {
+    ServletContext servletContext = StandIns.newServletContext(Collections.emptyMap());
+    StandIns.Request request = new StandIns.Request(servletContext);
+    RequestEncodingContext.setCurrentContext(request, OTHER);
+    StandIns.Request subRequest = copyAttributes(servletContext, request);
+    // Inherited from the parent
+    assertSame(OTHER, RequestEncodingContext.getCurrentContext(subRequest));
+    RequestEncodingContext.setCurrentContext(subRequest, RequestEncodingContext.DISCARD);
+    assertSame(RequestEncodingContext.DISCARD, RequestEncodingContext.getCurrentContext(subRequest));
+    assertSame(OTHER, RequestEncodingContext.getCurrentContext(request));
+    RequestEncodingContext.setCurrentContext(subRequest, null);
+    assertNull(RequestEncodingContext.getCurrentContext(subRequest));
+    assertSame(OTHER, RequestEncodingContext.getCurrentContext(request));
+  }
+
+  @Test
+  public void testParentDoesNotChangeSubRequest() {
+    ServletContext servletContext = StandIns.newServletContext(Collections.emptyMap());
+    StandIns.Request request = new StandIns.Request(servletContext);
+    RequestEncodingContext.setCurrentContext(request, OTHER);
+    StandIns.Request subRequest = copyAttributes(servletContext, request);
+    RequestEncodingContext.setCurrentContext(subRequest, RequestEncodingContext.DISCARD);
+    RequestEncodingContext.setCurrentContext(request, null);
+    assertSame(RequestEncodingContext.DISCARD, RequestEncodingContext.getCurrentContext(subRequest));
+  }
+}
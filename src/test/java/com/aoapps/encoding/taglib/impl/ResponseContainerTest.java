@@ -0,0 +1,76 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import com.aoapps.encoding.MediaType;
+import com.aoapps.encoding.MediaValidator;
+import com.aoapps.encoding.taglib.StandIns;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.util.Collections;
+import javax.servlet.ServletContext;
+import org.junit.Test;
+
+/**
+ * Tests the sharing of the {@link ResponseContainer} validator between the top-level tags of a request.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class ResponseContainerTest {
+
+  @Test
+  public void testReusedWhenReleased() throws UnsupportedEncodingException {
+    ServletContext servletContext = StandIns.newServletContext(Collections.emptyMap());
+    StandIns.Request request = new StandIns.Request(servletContext);
+    StandIns.Response response = new StandIns.Response(MediaType.XHTML.getContentType());
+    StringWriter out = new StringWriter();
+    ResponseContainer container = ResponseContainer.getInstance(request, response);
+    MediaValidator validator = container.getValidator(out);
+    // In use
+    assertNotSame(validator, container.getValidator(out));
+    container.release(validator);
+    assertSame(container, ResponseContainer.getInstance(request, response));
+    assertSame(validator, container.getValidator(out));
+  }
+
+  @Test
+  public void testNotSharedWithCopiedAttributes() throws UnsupportedEncodingException {
+    ServletContext servletContext = StandIns.newServletContext(Collections.emptyMap());
+    StandIns.Request request = new StandIns.Request(servletContext);
+    StandIns.Response response = new StandIns.Response(MediaType.XHTML.getContentType());
+    ResponseContainer container = ResponseContainer.getInstance(request, response);
+    // A sub-request copying the attributes of the request, as done by ao-servlet-subrequest
+    StandIns.Request subRequest = new StandIns.Request(servletContext);
+    for (String name : Collections.list(request.getAttributeNames())) {
+      subRequest.setAttribute(name, request.getAttribute(name));
+    }
+    ResponseContainer subContainer = ResponseContainer.getInstance(subRequest, response);
+    assertNotSame(container, subContainer);
+    assertSame(container, ResponseContainer.getInstance(request, response));
+    assertSame(subContainer, ResponseContainer.getInstance(subRequest, response));
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * ao-encoding-taglib - High performance streaming character encoding in a JSP environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of ao-encoding-taglib.
+ *
+ * ao-encoding-taglib is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ao-encoding-taglib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ao-encoding-taglib.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.aoapps.encoding.taglib.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import org.junit.Test;
+
+/**
+ * Tests the type-specialized paths of {@link ValueWriter}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public class ValueWriterTest {
+
+  /**
+   * Counts the calls to the writer, to verify digits are written in bulk.
+   */
+  private static class CountingWriter extends StringWriter {
+
+    private int calls;
+
+    @Override
+    public void write(int c) {
+      calls++;
+      super.write(c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+      calls++;
+      super.write(cbuf, off, len);
+    }
+
+    @Override
+    public void write(String str) {
+      calls++;
+      super.write(str);
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+      calls++;
+      super.write(str, off, len);
+    }
+  }
+
+  private static String write(Object value) throws IOException {
+    Writer out = new StringWriter();
+    ValueWriter.write(value, out);
+    return out.toString();
+  }
+
+  private static void assertLong(long value) throws IOException {
+    CountingWriter out = new CountingWriter();
+    ValueWriter.writeLong(value, out);
+    assertEquals(Long.toString(value), out.toString());
+    assertEquals("Digits must be written in a single call", 1, out.calls);
+  }
+
+  @Test
+  public void testLong() throws IOException {
+    assertLong(0);
+    assertLong(1);
+    assertLong(-1);
+    assertLong(9);
+    assertLong(10);
+    assertLong(-10);
+    assertLong(99);
+    assertLong(100);
+    assertLong(123456789);
+    assertLong(-123456789);
+    assertLong(Integer.MAX_VALUE);
+    assertLong(Integer.MIN_VALUE);
+    assertLong(Long.MAX_VALUE);
+    assertLong(Long.MIN_VALUE);
+    assertLong(Long.MIN_VALUE + 1);
+  }
+
+  @Test
+  public void testPowersOfTen() throws IOException {
+    for (long value = 1; value > 0 && value <= Long.MAX_VALUE / 10; value *= 10) {
+      assertLong(value - 1);
+      assertLong(value);
+      assertLong(value + 1);
+      assertLong(-value);
+    }
+  }
+
+  @Test
+  public void testIntegralTypes() throws IOException {
+    assertEquals("-2147483648", write(Integer.MIN_VALUE));
+    assertEquals("9223372036854775807", write(Long.MAX_VALUE));
+    assertEquals("-32768", write(Short.MIN_VALUE));
+    assertEquals("127", write(Byte.MAX_VALUE));
+  }
+
+  @Test
+  public void testOtherTypes() throws IOException {
+    assertEquals("a<b", write("a<b"));
+    assertEquals("true", write(Boolean.TRUE));
+    assertEquals("false", write(Boolean.FALSE));
+    assertEquals("abc", write(new char[]{'a', 'b', 'c'}));
+    assertEquals("x", write('x'));
+    assertEquals("", write(new StringBuilder()));
+    assertEquals("1.5", write(1.5));
+  }
+
+  @Test
+  public void testStringBuilder() throws IOException {
+    int[] lengths = {1, CharBlockPool.BLOCK_SIZE, CharBlockPool.BLOCK_SIZE + 1, 3 * CharBlockPool.BLOCK_SIZE + 7};
+    for (int length : lengths) {
+      StringBuilder sb = new StringBuilder(length);
+      for (int i = 0; i < length; i++) {
+        sb.append((char) ('a' + i % 26));
+      }
+      assertEquals(sb.toString(), write(sb));
+    }
+  }
+}